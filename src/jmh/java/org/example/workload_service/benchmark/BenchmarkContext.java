@@ -0,0 +1,32 @@
+package org.example.workload_service.benchmark;
+
+import org.example.workload_service.WorkloadServiceApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// boots the service without the web server or Eureka, against its in-memory H2 unless an override
+// brings its own datasource or a profile that does
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String... overrides) {
+        SpringApplication application = new SpringApplication(WorkloadServiceApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        List<String> args = new ArrayList<>(List.of(
+                "--eureka.client.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.example=WARN"));
+        if (Arrays.stream(overrides).noneMatch(o ->
+                o.startsWith("--spring.datasource.url=") || o.startsWith("--spring.profiles.active=")))
+            args.add("--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1");
+        args.addAll(List.of(overrides));
+        return application.run(args.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.workload_service.benchmark;
+
+import org.example.workload_service.Enum.ActionType;
+import org.example.workload_service.dto.TrainerWorkloadRequest;
+import org.example.workload_service.service.TrainerWorkloadService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProcessWorkloadBenchmark {
+
+    @Param({"STRIPED", "ATOMIC", "OPTIMISTIC"})
+    public String concurrencyMode;
+
+    // how many trainers the writes are spread over, 1 makes every writer contend on the same row
+    @Param({"1", "1000"})
+    public int trainers;
+
+    private ConfigurableApplicationContext context;
+    private TrainerWorkloadService service;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkContext.start("--workload.concurrency.mode=" + concurrencyMode);
+        service = context.getBean(TrainerWorkloadService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Events {
+
+        private long sequence;
+
+        TrainerWorkloadRequest next(int trainers) {
+            long n = sequence++;
+            TrainerWorkloadRequest request = new TrainerWorkloadRequest();
+            request.setIdempotencyKey(UUID.randomUUID().toString());
+            request.setUsername("trainer-" + (n % trainers));
+            request.setFirstName("John");
+            request.setLastName("Doe");
+            request.setActive(true);
+            request.setTrainingDate(LocalDate.of(2024, 1 + (int) (n % 12), 15));
+            request.setDuration(30);
+            request.setActionType(ActionType.ADD);
+            return request;
+        }
+    }
+
+    @Benchmark
+    public void processWorkload(Events events) {
+        service.processWorkload(events.next(trainers));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void processWorkloadContended(Events events) {
+        service.processWorkload(events.next(trainers));
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.workload_service.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Time from launching a fresh JVM to the first accepted POST /api/workloads. Every variant starts the
+// thin jar laid out by the fast-start build profile, so only the profile and the CDS archive differ:
+// mvn -Pfast-start,benchmarks verify -Djmh.args="StartupBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupBenchmark {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final String BODY = """
+            {"username":"startup.bench","firstName":"Startup","lastName":"Bench","active":true,
+             "trainingDate":"2025-01-15","duration":60,"actionType":"ADD"}""";
+
+    @Param({"default", "fast-start", "fast-start-cds"})
+    public String launch;
+
+    private Path directory;
+    private Path jar;
+    private HttpClient client;
+    private Process process;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Path.of(System.getProperty("fast-start.dir", "target/fast-start"));
+        try (var files = Files.list(directory)) {
+            jar = files.filter(file -> file.getFileName().toString().endsWith("-fast-start.jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("no fast-start jar in " + directory
+                            + ", build it with mvn -Pfast-start package"));
+        }
+        if (launch.equals("fast-start-cds") && !Files.exists(directory.resolve("app.jsa")))
+            throw new IllegalStateException("no CDS archive in " + directory);
+        client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+    }
+
+    @Benchmark
+    public int launchToFirstPost() throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (launch.equals("fast-start-cds"))
+            command.add("-XX:SharedArchiveFile=" + directory.resolve("app.jsa"));
+        if (!launch.equals("default"))
+            command.add("-Dspring.profiles.active=fast-start");
+        command.add("-Dserver.port=" + port);
+        command.add("-jar");
+        command.add(jar.toString());
+        process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(directory.resolve("startup-" + launch + ".log").toFile())
+                .start();
+
+        HttpRequest post = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/workloads"))
+                .header("Content-Type", "application/json")
+                .header("X-Auth-Username", "startup.bench")
+                .POST(HttpRequest.BodyPublishers.ofString(BODY))
+                .build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive())
+                throw new IllegalStateException("service exited with " + process.exitValue());
+            try {
+                HttpResponse<Void> response = client.send(post, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() / 100 == 2)
+                    return response.statusCode();
+            } catch (ConnectException e) {
+                // not listening yet
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException("no successful POST within " + STARTUP_TIMEOUT);
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() throws InterruptedException {
+        if (process == null)
+            return;
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS))
+            process.destroyForcibly().waitFor();
+        process = null;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
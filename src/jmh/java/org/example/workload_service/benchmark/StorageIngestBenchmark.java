@@ -0,0 +1,105 @@
+package org.example.workload_service.benchmark;
+
+import org.example.workload_service.Enum.ActionType;
+import org.example.workload_service.dto.TrainerWorkloadRequest;
+import org.example.workload_service.service.TrainerWorkloadBatchService;
+import org.example.workload_service.service.TrainerWorkloadService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// ingest throughput against the in-memory database and the durable h2-file profile,
+// one event per transaction and BATCH events per transaction
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageIngestBenchmark {
+
+    static final int BATCH = 100;
+
+    @Param({"mem", "h2-file"})
+    public String storage;
+
+    private ConfigurableApplicationContext context;
+    private TrainerWorkloadService service;
+    private TrainerWorkloadBatchService batchService;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = storage.equals("mem")
+                ? BenchmarkContext.start()
+                : BenchmarkContext.start("--spring.profiles.active=h2-file",
+                        "--workload.storage.directory="
+                                + Path.of("target", "benchmark-db", UUID.randomUUID().toString()).toAbsolutePath());
+        service = context.getBean(TrainerWorkloadService.class);
+        batchService = context.getBean(TrainerWorkloadBatchService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Events {
+
+        private long sequence;
+
+        TrainerWorkloadRequest next() {
+            long n = sequence++;
+            TrainerWorkloadRequest request = new TrainerWorkloadRequest();
+            request.setIdempotencyKey(UUID.randomUUID().toString());
+            request.setUsername("trainer-" + (n % 1000));
+            request.setFirstName("John");
+            request.setLastName("Doe");
+            request.setActive(true);
+            request.setTrainingDate(LocalDate.of(2024, 1 + (int) (n % 12), 15));
+            request.setDuration(30);
+            request.setActionType(ActionType.ADD);
+            return request;
+        }
+
+        List<TrainerWorkloadRequest> nextBatch() {
+            List<TrainerWorkloadRequest> batch = new ArrayList<>(BATCH);
+            for (int i = 0; i < BATCH; i++)
+                batch.add(next());
+            return batch;
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void processWorkload(Events events) {
+        service.processWorkload(events.next());
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(BATCH)
+    public Object processBatch(Events events) {
+        return batchService.processBatch(events.nextBatch());
+    }
+}
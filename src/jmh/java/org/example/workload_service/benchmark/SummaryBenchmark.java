@@ -0,0 +1,66 @@
+package org.example.workload_service.benchmark;
+
+import org.example.workload_service.dto.SerializedSummary;
+import org.example.workload_service.dto.TrainerWorkloadResponse;
+import org.example.workload_service.respository.TrainerWorkloadBatchRepository;
+import org.example.workload_service.service.TrainerWorkloadService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SummaryBenchmark {
+
+    private static final String USERNAME = "john.doe";
+
+    @Param({"1", "10", "50"})
+    public int years;
+
+    // false sizes the summary cache to zero so every call builds the response from the table
+    @Param({"false", "true"})
+    public boolean cached;
+
+    private ConfigurableApplicationContext context;
+    private TrainerWorkloadService service;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkContext.start("--workload.summary-cache.max-size=" + (cached ? 10_000 : 0));
+        context.getBean(TrainerWorkloadBatchRepository.class).insert(SummaryFixtures.rows(USERNAME, years));
+        service = context.getBean(TrainerWorkloadService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public TrainerWorkloadResponse getSummary() {
+        return service.getSummary(USERNAME);
+    }
+
+    // what a 200 costs once the JSON bytes are cached, against getSummary plus serialization when they are not
+    @Benchmark
+    public SerializedSummary getSerializedSummary() {
+        return service.getSerializedSummary(USERNAME);
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.workload_service.benchmark;
+
+import org.example.workload_service.dto.TrainerWorkloadResponse;
+import org.example.workload_service.entity.TrainerWorkload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// run with -Djmh.args="SummaryBuildBenchmark -prof gc" and compare gc.alloc.rate.norm between the two builders
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SummaryBuildBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int years;
+
+    private List<TrainerWorkload> rows;
+
+    @Setup
+    public void setUp() {
+        rows = SummaryFixtures.rows("john.doe", years);
+    }
+
+    @Benchmark
+    public TrainerWorkloadResponse nestedMaps() {
+        return SummaryFixtures.nestedMapResponse(rows);
+    }
+
+    @Benchmark
+    public TrainerWorkloadResponse yearMonthTotals() {
+        return SummaryFixtures.compactResponse(rows);
+    }
+}
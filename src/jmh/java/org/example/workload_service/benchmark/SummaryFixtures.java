@@ -0,0 +1,67 @@
+package org.example.workload_service.benchmark;
+
+import org.example.workload_service.dto.TrainerWorkloadResponse;
+import org.example.workload_service.dto.YearMonthTotals;
+import org.example.workload_service.entity.TrainerWorkload;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class SummaryFixtures {
+
+    static final int FIRST_YEAR = 1990;
+
+    private SummaryFixtures() {
+    }
+
+    static List<TrainerWorkload> rows(String username, int years) {
+        List<TrainerWorkload> rows = new ArrayList<>(years * 12);
+        for (int y = 0; y < years; y++) {
+            for (int m = 1; m <= 12; m++) {
+                TrainerWorkload row = new TrainerWorkload();
+                row.setUsername(username);
+                row.setFirstName("John");
+                row.setLastName("Doe");
+                row.setActive(true);
+                row.setYear(FIRST_YEAR + y);
+                row.setMonth(m);
+                row.setTotalDuration(60 * m + y);
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    // the response shape getSummary produced before YearMonthTotals: a HashMap per year and boxed totals
+    static TrainerWorkloadResponse nestedMapResponse(List<TrainerWorkload> rows) {
+        String[] months = new String[]{"Jan","Feb","Mar","Apr","May","Jun","Jul","Aug","Sep","Oct","Nov","Dec"};
+        TrainerWorkloadResponse response = describe(rows.getFirst());
+        Map<Integer, Map<String, Integer>> map = new HashMap<>();
+        rows.forEach(row -> {
+            map.putIfAbsent(row.getYear(), new HashMap<>());
+            map.get(row.getYear()).put(months[row.getMonth() - 1], row.getTotalDuration());
+        });
+        response.setYearsSummary(map);
+        return response;
+    }
+
+    static TrainerWorkloadResponse compactResponse(List<TrainerWorkload> rows) {
+        TrainerWorkloadResponse response = describe(rows.getFirst());
+        YearMonthTotals totals = new YearMonthTotals();
+        for (TrainerWorkload row : rows)
+            totals.add(row.getYear(), row.getMonth(), row.getTotalDuration());
+        response.setYearsSummary(totals);
+        return response;
+    }
+
+    private static TrainerWorkloadResponse describe(TrainerWorkload row) {
+        TrainerWorkloadResponse response = new TrainerWorkloadResponse();
+        response.setUsername(row.getUsername());
+        response.setFirstName(row.getFirstName());
+        response.setLastName(row.getLastName());
+        response.setActive(row.getActive());
+        return response;
+    }
+}
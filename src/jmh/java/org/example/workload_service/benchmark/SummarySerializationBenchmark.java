@@ -0,0 +1,52 @@
+package org.example.workload_service.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.workload_service.dto.TrainerWorkloadResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SummarySerializationBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int years;
+
+    @Param({"nested", "compact"})
+    public String representation;
+
+    private ObjectMapper objectMapper;
+    private TrainerWorkloadResponse response;
+
+    @Setup
+    public void setUp() {
+        // same builder Spring MVC uses for its message converter
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        var rows = SummaryFixtures.rows("john.doe", years);
+        response = representation.equals("compact")
+                ? SummaryFixtures.compactResponse(rows)
+                : SummaryFixtures.nestedMapResponse(rows);
+    }
+
+    @Benchmark
+    public byte[] writeValueAsBytes() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
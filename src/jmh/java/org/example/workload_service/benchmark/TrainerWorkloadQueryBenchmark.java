@@ -0,0 +1,119 @@
+package org.example.workload_service.benchmark;
+
+import org.example.workload_service.dto.TrainerMonthTotal;
+import org.example.workload_service.dto.YearMonthTotals;
+import org.example.workload_service.entity.TrainerWorkload;
+import org.example.workload_service.respository.TrainerSummaryRepository;
+import org.example.workload_service.respository.TrainerWorkloadRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// latency of the trainer_workload reads behind the write and summary endpoints as the table grows: the month
+// lookup of a single write, the summary projection and the month-range query of the range and multi-get
+// summaries; 10M rows need the forked heap below
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class TrainerWorkloadQueryBenchmark {
+
+    private static final int MONTHS_PER_TRAINER = 120;
+    // trainers per multi-get, a tenth of workload.query.max-usernames
+    private static final int MULTI_GET = 10;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    // false drops the migration indexes to show the scan the queries fall back to
+    @Param({"true", "false"})
+    public boolean indexed;
+
+    private ConfigurableApplicationContext context;
+    private TrainerWorkloadRepository repository;
+    private TrainerSummaryRepository summaryRepository;
+    private int trainers;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkContext.start();
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        // ten years of months per trainer, generated inside H2 so setup does not round-trip 10M rows
+        jdbcTemplate.update("""
+                INSERT INTO trainer_workload
+                    (username, first_name, last_name, is_active, work_year, work_month, total_duration, version)
+                SELECT 'trainer-' || ((X - 1) / ?), 'John', 'Doe', TRUE,
+                       2015 + MOD((X - 1) / 12, 10), 1 + MOD(X - 1, 12), MOD(X, 480), 0
+                FROM SYSTEM_RANGE(1, ?)""", MONTHS_PER_TRAINER, rows);
+        if (!indexed) {
+            jdbcTemplate.execute("ALTER TABLE trainer_workload DROP CONSTRAINT uk_trainer_workload_month");
+            jdbcTemplate.execute("DROP INDEX idx_trainer_workload_summary");
+        }
+        jdbcTemplate.execute("ANALYZE TABLE trainer_workload");
+        repository = context.getBean(TrainerWorkloadRepository.class);
+        summaryRepository = context.getBean(TrainerSummaryRepository.class);
+        trainers = Math.max(1, rows / MONTHS_PER_TRAINER);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    private String randomTrainer() {
+        return "trainer-" + ThreadLocalRandom.current().nextInt(trainers);
+    }
+
+    @Benchmark
+    public Optional<TrainerWorkload> findByUsernameAndYearAndMonth() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return repository.findByUsernameAndYearAndMonth(randomTrainer(), 2015 + random.nextInt(10), 1 + random.nextInt(12));
+    }
+
+    // GET /api/workloads/{username}
+    @Benchmark
+    public YearMonthTotals summaryMonthTotals() {
+        return summaryRepository.findMonthTotals(randomTrainer());
+    }
+
+    // GET /api/workloads/{username}?from=&to= with a twelve month range across a year boundary
+    @Benchmark
+    public List<TrainerMonthTotal> findMonthTotalsRange() {
+        return findMonthTotals(List.of(randomTrainer()));
+    }
+
+    // GET /api/workloads?usernames= over the same range
+    @Benchmark
+    public List<TrainerMonthTotal> findMonthTotalsMultiGet() {
+        List<String> usernames = new ArrayList<>(MULTI_GET);
+        for (int i = 0; i < MULTI_GET; i++)
+            usernames.add(randomTrainer());
+        return findMonthTotals(usernames);
+    }
+
+    private List<TrainerMonthTotal> findMonthTotals(List<String> usernames) {
+        int fromYear = 2015 + ThreadLocalRandom.current().nextInt(9);
+        int fromKey = fromYear * 12 + 6;
+        return repository.findMonthTotals(usernames, fromYear, fromYear + 1, fromKey, fromKey + 11);
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.workload_service.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import org.example.workload_service.config.WorkloadProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// lives in the filter's package so it can call doFilterInternal directly;
+// run with -prof gc to compare allocation per request as well as time
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GatewayAuthFilterBenchmark {
+
+    @Param({"", "ROLE_TRAINER", "ROLE_TRAINER,ROLE_ADMIN,ROLE_AUDITOR"})
+    public String roles;
+
+    // cached-no-details is the filter with workload.gateway.authentication-details=false
+    @Param({"split", "cached", "cached-no-details"})
+    public String variant;
+
+    private GatewayAuthFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain chain;
+
+    @Setup
+    public void setUp() {
+        WorkloadProperties properties = new WorkloadProperties();
+        properties.getGateway().setAuthenticationDetails(!variant.equals("cached-no-details"));
+        filter = new GatewayAuthFilter(properties);
+        request = new MockHttpServletRequest("POST", "/api/workloads");
+        request.addHeader("X-Auth-Username", "john.doe");
+        if (!roles.isEmpty())
+            request.addHeader("X-Auth-Roles", roles);
+        request.setRemoteAddr("10.0.0.1");
+        response = new MockHttpServletResponse();
+        chain = (req, res) -> { };
+    }
+
+    @Benchmark
+    public Object doFilterInternal() throws Exception {
+        if (variant.equals("split"))
+            splitFilter(request);
+        else
+            filter.doFilterInternal(request, response, chain);
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    // the filter as it was before the roles cache, kept as the baseline
+    private static void splitFilter(HttpServletRequest request) {
+        String username = request.getHeader("X-Auth-Username");
+        String rolesHeader = request.getHeader("X-Auth-Roles");
+
+        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            List<GrantedAuthority> authorities = List.of();
+
+            if (rolesHeader != null && !rolesHeader.isBlank()) {
+                authorities = Arrays.stream(rolesHeader.split(","))
+                        .map(SimpleGrantedAuthority::new)
+                        .collect(Collectors.toList());
+            }
+
+            UsernamePasswordAuthenticationToken auth =
+                    new UsernamePasswordAuthenticationToken(username, null, authorities);
+            auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(auth);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.workload_service.tracing;
+
+import brave.Span;
+import brave.Tracer;
+import brave.Tracing;
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.ThreadLocalCurrentTraceContext;
+import brave.propagation.TraceContext;
+import brave.sampler.Sampler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// one server span per operation, the way the observation filter opens it, under the old always-on
+// sampler and under the adaptive one; the handler stands in for a span exporter
+// lives in the sampler's package so it can drive enter/exit like TraceSamplingFilter does
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class TraceSamplingBenchmark {
+
+    @Param({"always", "adaptive"})
+    public String sampler;
+
+    private AdaptiveTraceSampler adaptive;
+    private Tracing tracing;
+    private Tracer tracer;
+    private final LongAdder reported = new LongAdder();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        adaptive = new AdaptiveTraceSampler(
+                new TraceSamplingSettings(10, Duration.ofMillis(500), Duration.ofSeconds(30),
+                        Map.of("/api/workloads", 50)),
+                new SimpleMeterRegistry(), System::nanoTime);
+        tracing = Tracing.newBuilder()
+                .localServiceName("workload-service")
+                .currentTraceContext(ThreadLocalCurrentTraceContext.create())
+                .sampler(sampler.equals("always") ? Sampler.ALWAYS_SAMPLE : adaptive)
+                .addSpanHandler(new SpanHandler() {
+                    @Override
+                    public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+                        reported.increment();
+                        return true;
+                    }
+                })
+                .build();
+        tracer = tracing.tracer();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        tracing.close();
+    }
+
+    @Benchmark
+    public void serverSpan(Blackhole blackhole) {
+        adaptive.enter("/api/workloads/john.doe");
+        try {
+            Span span = tracer.nextSpan()
+                    .name("http get /api/workloads/{username}")
+                    .kind(Span.Kind.SERVER)
+                    .tag("method", "GET")
+                    .tag("uri", "/api/workloads/{username}")
+                    .start();
+            try (Tracer.SpanInScope scope = tracer.withSpanInScope(span)) {
+                blackhole.consume(tracer.currentSpan());
+            } finally {
+                span.tag("status", "200").finish();
+            }
+        } finally {
+            adaptive.exit();
+        }
+    }
+}
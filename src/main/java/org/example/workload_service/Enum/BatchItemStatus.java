@@ -0,0 +1,8 @@
+package org.example.workload_service.Enum;
+
+public enum BatchItemStatus {
+    APPLIED,
+    DUPLICATE,
+    REJECTED,
+    FAILED
+}
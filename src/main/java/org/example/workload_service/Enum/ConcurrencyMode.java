@@ -0,0 +1,7 @@
+package org.example.workload_service.Enum;
+
+public enum ConcurrencyMode {
+    STRIPED,
+    ATOMIC,
+    OPTIMISTIC
+}
@@ -0,0 +1,30 @@
+package org.example.workload_service.Enum;
+
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    // null for an unknown name, so the controller can answer 400 itself
+    public static ExportFormat parse(String name) {
+        for (ExportFormat format : values())
+            if (format.name().equalsIgnoreCase(name))
+                return format;
+        return null;
+    }
+}
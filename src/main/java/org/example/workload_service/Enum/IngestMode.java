@@ -0,0 +1,6 @@
+package org.example.workload_service.Enum;
+
+public enum IngestMode {
+    SYNC,
+    ASYNC
+}
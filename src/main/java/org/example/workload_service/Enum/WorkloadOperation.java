@@ -0,0 +1,23 @@
+package org.example.workload_service.Enum;
+
+import java.util.Locale;
+
+// the fixed set of storage calls on the write and summary paths, used as a metric tag
+public enum WorkloadOperation {
+    IDEMPOTENCY_CHECK,
+    IDEMPOTENCY_RECORD,
+    FIND_MONTH,
+    SAVE_MONTH,
+    INSERT_MONTH,
+    ADD_DURATION,
+    SUBTRACT_DURATION,
+    FIND_TOTAL,
+    SUMMARY_TOTALS,
+    SUMMARY_TRAINER;
+
+    private final String tag = name().toLowerCase(Locale.ROOT);
+
+    public String tag() {
+        return tag;
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.workload_service.config;
+
+import org.example.workload_service.entity.ImportCheckpoint;
+import org.example.workload_service.entity.ProcessedEvent;
+import org.example.workload_service.entity.TrainerWorkload;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+
+import java.util.List;
+
+// the fast-start profile trades first-request latency of library beans for a shorter boot
+@Configuration(proxyBeanMethods = false)
+@Profile("fast-start")
+public class FastStartConfig {
+
+    static final List<Class<?>> ENTITIES = List.of(TrainerWorkload.class, ProcessedEvent.class, ImportCheckpoint.class);
+
+    // the service's own beans own the schedules, startup rebuilds and event listeners, so they stay eager;
+    // springdoc, the actuator endpoints and the rest of the library beans wait for their first use
+    @Bean
+    static LazyInitializationExcludeFilter workloadBeansStayEager() {
+        return (beanName, definition, beanType) ->
+                beanType.getPackageName().startsWith("org.example.workload_service");
+    }
+
+    // replaces the classpath scan for @Entity classes at boot
+    @Bean
+    PersistenceManagedTypes persistenceManagedTypes() {
+        return PersistenceManagedTypes.of(ENTITIES.stream().map(Class::getName).toList(), List.of());
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.workload_service.config;
+
+import org.example.workload_service.ingest.InMemoryWorkloadEventChannel;
+import org.example.workload_service.ingest.WorkloadEventChannel;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class IngestConfig {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public WorkloadEventChannel workloadEventChannel(WorkloadProperties properties) {
+        return new InMemoryWorkloadEventChannel(properties.getIngest().getQueueCapacity());
+    }
+}
@@ -0,0 +1,166 @@
+package org.example.workload_service.config;
+
+import lombok.Data;
+import org.example.workload_service.Enum.ConcurrencyMode;
+import org.example.workload_service.Enum.EngineMode;
+import org.example.workload_service.Enum.IngestMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "workload")
+public class WorkloadProperties {
+
+    private Concurrency concurrency = new Concurrency();
+    private Idempotency idempotency = new Idempotency();
+    private SummaryCache summaryCache = new SummaryCache();
+    private Engine engine = new Engine();
+    private Journal journal = new Journal();
+    private Ingest ingest = new Ingest();
+    private Query query = new Query();
+    private Export export = new Export();
+    private Import importer = new Import();
+    private Stream stream = new Stream();
+    private Tracing tracing = new Tracing();
+    private Gateway gateway = new Gateway();
+    private Sharding sharding = new Sharding();
+    private Overload overload = new Overload();
+    private Leaderboard leaderboard = new Leaderboard();
+
+    @Data
+    public static class Concurrency {
+        // STRIPED only serializes writers inside one instance; use ATOMIC or OPTIMISTIC with several replicas
+        private ConcurrencyMode mode = ConcurrencyMode.STRIPED;
+        private int stripes = 64;
+        private int maxAttempts = 10;
+        private Duration retryBackoff = Duration.ofMillis(5);
+    }
+
+    @Data
+    public static class Idempotency {
+        private Duration ttl = Duration.ofDays(7);
+        private Duration purgeInterval = Duration.ofMinutes(10);
+        private long expectedKeys = 1_000_000;
+        private double falsePositiveRate = 0.01;
+        private int recentKeys = 10_000;
+    }
+
+    @Data
+    public static class SummaryCache {
+        private long maxSize = 10_000;
+        private Duration ttl = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Engine {
+        // MEMORY keeps the authoritative totals in this instance, so it is meant for a single replica
+        private EngineMode mode = EngineMode.DATABASE;
+        private Duration flushInterval = Duration.ofSeconds(1);
+        private int flushBatchSize = 500;
+    }
+
+    @Data
+    public static class Journal {
+        private boolean enabled = false;
+        private String directory = "data/journal";
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+        // false acknowledges before the page cache is forced, a crash can then lose the last appends
+        private boolean sync = true;
+        private Duration snapshotInterval = Duration.ofMinutes(5);
+        private int retainedSnapshots = 2;
+    }
+
+    @Data
+    public static class Ingest {
+        // ASYNC answers POST/DELETE with 202 and applies the events from a bounded queue in micro-batches
+        private IngestMode mode = IngestMode.SYNC;
+        private int queueCapacity = 10_000;
+        private int workers = 2;
+        private int batchSize = 200;
+        private Duration pollTimeout = Duration.ofMillis(50);
+        private Duration retryAfter = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class Query {
+        private int maxUsernames = 100;
+        private int maxPageSize = 100;
+        private int maxDays = 371;
+    }
+
+    @Data
+    public static class Export {
+        private int fetchSize = 1000;
+        private DataSize gzipBufferSize = DataSize.ofKilobytes(64);
+    }
+
+    @Data
+    public static class Import {
+        private int chunkSize = 10_000;
+        private int parallelism = 0;
+    }
+
+    @Data
+    public static class Stream {
+        private Duration coalesceWindow = Duration.ofMillis(200);
+        private int bufferSize = 1000;
+        private int maxSubscribers = 1000;
+        private Duration timeout = Duration.ofMinutes(30);
+        private Duration heartbeat = Duration.ofSeconds(15);
+    }
+
+    @Data
+    public static class Tracing {
+        private int baselinePerSecond = 10;
+        private Duration slowThreshold = Duration.ofMillis(500);
+        private Duration boostWindow = Duration.ofSeconds(30);
+        // path prefix -> traces per second, longest prefix wins
+        private Map<String, Integer> endpointBudgets = new LinkedHashMap<>(Map.of("/api/workloads", 50));
+    }
+
+    @Data
+    public static class Gateway {
+        private int rolesCacheSize = 256;          // distinct X-Auth-Roles values kept parsed
+        private boolean authenticationDetails = true;
+    }
+
+    @Data
+    public static class Sharding {
+        // trainers are spread over the shards by a jump hash of the username, 1 keeps the single spring.datasource
+        private int shards = 1;
+        // the shard count the rows were written with; until --rebalance-shards has run both layouts stay open
+        private int previousShards = 0;
+        private String urlTemplate = "jdbc:h2:mem:trainerdb-{shard};DB_CLOSE_DELAY=-1";
+    }
+
+    @Data
+    public static class Overload {
+        private boolean enabled = true;
+        // resilience4j bulkhead instances and rate limiter configs, see the resilience4j section of application.yml
+        private String writeBulkhead = "workload-write";
+        private String readBulkhead = "workload-read";
+        private String callerRateLimiter = "workload-caller";
+        private int maxCallers = 10_000;                   // per-caller limiters kept, the least recent are dropped
+        private Duration repositoryTimeout = Duration.ofSeconds(2);
+        // how long a single write or read waits for a pooled connection before it is shed with a 503
+        private Duration connectionTimeout = Duration.ofSeconds(1);
+        // keyed by controller method name, e.g. export
+        private Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+        @Data
+        public static class Endpoint {
+            private String bulkhead;
+            private String rateLimiter;
+        }
+    }
+
+    @Data
+    public static class Leaderboard {
+        // events only reach the replica that handled them; every replica reloads its boards from the table this often
+        private Duration refreshInterval = Duration.ofMinutes(1);
+    }
+}
@@ -1,11 +1,46 @@
 package org.example.workload_service.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.example.workload_service.Enum.ExportFormat;
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.dto.BatchItemResult;
+import org.example.workload_service.dto.DayTotal;
+import org.example.workload_service.dto.LeaderboardEntry;
+import org.example.workload_service.dto.SerializedSummary;
+import org.example.workload_service.dto.TrainerRankingEntry;
 import org.example.workload_service.dto.TrainerWorkloadRequest;
 import org.example.workload_service.dto.TrainerWorkloadResponse;
+import org.example.workload_service.dto.WeekTotal;
+import org.example.workload_service.dto.YearTotal;
+import org.example.workload_service.ingest.AsyncWorkloadIngestor;
+import org.example.workload_service.service.MonthRange;
+import org.example.workload_service.service.TrainerWorkloadBatchService;
 import org.example.workload_service.service.TrainerWorkloadService;
+import org.example.workload_service.service.WorkloadCalendar;
+import org.example.workload_service.service.WorkloadChangeStream;
+import org.example.workload_service.service.WorkloadExporter;
+import org.example.workload_service.service.WorkloadLeaderboard;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/workloads")
@@ -13,23 +48,159 @@ import org.springframework.web.bind.annotation.*;
 public class TrainerWorkloadController {
 
     private final TrainerWorkloadService service;
+    private final TrainerWorkloadBatchService batchService;
+    private final AsyncWorkloadIngestor ingestor;
+    private final WorkloadProperties properties;
+    private final WorkloadLeaderboard leaderboard;
+    private final WorkloadExporter exporter;
+    private final WorkloadChangeStream changeStream;
+    private final WorkloadCalendar calendar;
 
     @PostMapping
     public ResponseEntity<Void> updateWorkload(
             @RequestBody TrainerWorkloadRequest request) {
+        if (ingestor.isEnabled())
+            return enqueue(request);
         service.processWorkload(request);
         return ResponseEntity.ok().build();
     }
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchItemResult>> updateWorkloads(
+            @RequestBody List<TrainerWorkloadRequest> requests) {
+        return ResponseEntity.ok(batchService.processBatch(requests));
+    }
+    // written on the request thread straight into the servlet stream, so no async timeout cuts a long export short
+    @GetMapping("/export")
+    public void export(@RequestParam(defaultValue = "ndjson") String format,
+                       @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                       HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        if (exportFormat == null) {
+            response.sendError(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        response.setContentType(exportFormat.contentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"workloads." + exportFormat.extension() + "\"");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip)
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        try (OutputStream out = gzip
+                ? new GZIPOutputStream(response.getOutputStream(), (int) properties.getExport().getGzipBufferSize().toBytes())
+                : response.getOutputStream()) {
+            exporter.export(exportFormat, out);
+        }
+    }
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(@RequestParam(required = false) List<String> usernames) {
+        Set<String> filter = usernames == null ? Set.of() : new LinkedHashSet<>(usernames);
+        if (filter.size() > properties.getQuery().getMaxUsernames())
+            return ResponseEntity.badRequest().build();
+        SseEmitter emitter = changeStream.subscribe(filter);
+        if (emitter == null)
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        return ResponseEntity.ok(emitter);
+    }
     @GetMapping("/{username}")
-    public ResponseEntity<?> getSummary(@PathVariable String username){
-         TrainerWorkloadResponse res = service.getSummary(username);
+    public ResponseEntity<?> getSummary(@PathVariable String username,
+                                        @RequestParam(required = false) YearMonth from,
+                                        @RequestParam(required = false) YearMonth to,
+                                        WebRequest webRequest){
+         MonthRange range = new MonthRange(from, to);
+         if (!range.isValid())
+             return ResponseEntity.badRequest().build();
+         if (range.isAll())
+             return getFullSummary(username, webRequest);
+         TrainerWorkloadResponse res = service.getSummary(username, range);
          if(res == null)
              return ResponseEntity.notFound().build();
          return ResponseEntity.ok().body(res);
     }
+    // If-None-Match is answered from the cached tag; a 200 writes the cached JSON bytes as they are
+    private ResponseEntity<?> getFullSummary(String username, WebRequest webRequest) {
+        SerializedSummary summary = service.getSerializedSummary(username);
+        if (summary == null)
+            return ResponseEntity.notFound().build();
+        if (webRequest.checkNotModified(summary.etag()))
+            return null;
+        return ResponseEntity.ok()
+                .eTag(summary.etag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(summary.json());
+    }
+    // every day of the range, both ends included
+    @GetMapping("/{username}/days")
+    public ResponseEntity<List<DayTotal>> getDays(@PathVariable String username,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (!isValidDayRange(from, to))
+            return ResponseEntity.badRequest().build();
+        List<DayTotal> days = calendar.getDays(username, from, to);
+        return days == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(days);
+    }
+    // every ISO week the range touches
+    @GetMapping("/{username}/weeks")
+    public ResponseEntity<List<WeekTotal>> getWeeks(@PathVariable String username,
+                                                    @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                    @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (!isValidDayRange(from, to))
+            return ResponseEntity.badRequest().build();
+        List<WeekTotal> weeks = calendar.getWeeks(username, from, to);
+        return weeks == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(weeks);
+    }
+    @GetMapping("/{username}/years")
+    public ResponseEntity<List<YearTotal>> getYears(@PathVariable String username) {
+        List<YearTotal> years = calendar.getYears(username);
+        return years == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(years);
+    }
+    private boolean isValidDayRange(LocalDate from, LocalDate to) {
+        return !from.isAfter(to) && to.toEpochDay() - from.toEpochDay() < properties.getQuery().getMaxDays();
+    }
+    @GetMapping(params = "usernames")
+    public ResponseEntity<List<TrainerWorkloadResponse>> getSummaries(
+            @RequestParam List<String> usernames,
+            @RequestParam(required = false) YearMonth from,
+            @RequestParam(required = false) YearMonth to) {
+        MonthRange range = new MonthRange(from, to);
+        Set<String> distinct = new LinkedHashSet<>(usernames);
+        if (!range.isValid() || distinct.isEmpty() || distinct.size() > properties.getQuery().getMaxUsernames())
+            return ResponseEntity.badRequest().build();
+        return ResponseEntity.ok(service.getSummaries(distinct, range));
+    }
+    @GetMapping("/ranking")
+    public ResponseEntity<Page<TrainerRankingEntry>> getRanking(
+            @RequestParam int year,
+            @RequestParam int month,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        if (month < 1 || month > 12 || page < 0 || size < 1 || size > properties.getQuery().getMaxPageSize())
+            return ResponseEntity.badRequest().build();
+        return ResponseEntity.ok(service.getRanking(year, month, PageRequest.of(page, size)));
+    }
+    @GetMapping("/leaderboard")
+    public ResponseEntity<List<LeaderboardEntry>> getLeaderboard(
+            @RequestParam int year,
+            @RequestParam int month,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (month < 1 || month > 12 || limit < 1 || limit > properties.getQuery().getMaxPageSize())
+            return ResponseEntity.badRequest().build();
+        return ResponseEntity.ok(leaderboard.top(year, month, limit));
+    }
     @DeleteMapping
     public  ResponseEntity<Void> deleteWorkload(@RequestBody TrainerWorkloadRequest request){
+        if (ingestor.isEnabled())
+            return enqueue(request);
         service.processWorkload(request);
         return ResponseEntity.ok().build();
     }
+
+    private ResponseEntity<Void> enqueue(TrainerWorkloadRequest request) {
+        if (ingestor.submit(request))
+            return ResponseEntity.accepted().build();
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ingestor.retryAfter().toSeconds())))
+                .build();
+    }
 }
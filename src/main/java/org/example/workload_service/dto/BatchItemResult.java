@@ -0,0 +1,34 @@
+package org.example.workload_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.workload_service.Enum.BatchItemStatus;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResult {
+
+    private int index;
+    private String idempotencyKey;
+    private BatchItemStatus status;
+    private String reason;
+
+    public static BatchItemResult applied(int index, TrainerWorkloadRequest request) {
+        return new BatchItemResult(index, request.getIdempotencyKey(), BatchItemStatus.APPLIED, null);
+    }
+
+    public static BatchItemResult duplicate(int index, TrainerWorkloadRequest request) {
+        return new BatchItemResult(index, request.getIdempotencyKey(), BatchItemStatus.DUPLICATE, null);
+    }
+
+    public static BatchItemResult rejected(int index, TrainerWorkloadRequest request, String reason) {
+        return new BatchItemResult(index, request.getIdempotencyKey(), BatchItemStatus.REJECTED, reason);
+    }
+
+    // the event's shard rolled back while others committed; it can be resent as is
+    public static BatchItemResult failed(int index, TrainerWorkloadRequest request, String reason) {
+        return new BatchItemResult(index, request.getIdempotencyKey(), BatchItemStatus.FAILED, reason);
+    }
+}
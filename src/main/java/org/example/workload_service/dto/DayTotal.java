@@ -0,0 +1,9 @@
+package org.example.workload_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDate;
+
+public record DayTotal(@JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd") LocalDate date,
+                       int totalDuration) {
+}
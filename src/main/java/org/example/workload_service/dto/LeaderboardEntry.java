@@ -0,0 +1,4 @@
+package org.example.workload_service.dto;
+
+public record LeaderboardEntry(int rank, String username, int totalDuration) {
+}
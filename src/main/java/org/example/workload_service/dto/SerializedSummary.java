@@ -0,0 +1,5 @@
+package org.example.workload_service.dto;
+
+// a trainer summary already written as JSON, with a strong ETag hashed from those bytes
+public record SerializedSummary(String etag, byte[] json) {
+}
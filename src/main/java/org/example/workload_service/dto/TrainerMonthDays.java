@@ -0,0 +1,5 @@
+package org.example.workload_service.dto;
+
+// dayTotals is packed by MonthDays and null for a month written before days were kept
+public record TrainerMonthDays(int year, int month, int totalDuration, byte[] dayTotals) {
+}
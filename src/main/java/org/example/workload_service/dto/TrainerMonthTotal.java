@@ -0,0 +1,10 @@
+package org.example.workload_service.dto;
+
+public record TrainerMonthTotal(String username,
+                                String firstName,
+                                String lastName,
+                                Boolean active,
+                                int year,
+                                int month,
+                                int totalDuration) {
+}
@@ -0,0 +1,4 @@
+package org.example.workload_service.dto;
+
+public record TrainerRankingEntry(String username, String firstName, String lastName, int totalDuration) {
+}
@@ -2,7 +2,6 @@ package org.example.workload_service.dto;
 
 import lombok.Data;
 
-import java.util.HashMap;
 import java.util.Map;
 
 @Data
@@ -13,5 +12,5 @@ public class TrainerWorkloadResponse {
     private String lastName;
     private Boolean active;
 
-    Map<Integer,Map<String,Integer>> yearsSummary = new HashMap<>();
+    Map<Integer,Map<String,Integer>> yearsSummary = new YearMonthTotals();
 }
@@ -0,0 +1,12 @@
+package org.example.workload_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDate;
+
+// an ISO week, Monday to Sunday; weekYear is the ISO week-based year, which differs from start's year around New Year
+public record WeekTotal(int weekYear,
+                        int week,
+                        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd") LocalDate start,
+                        int totalDuration) {
+}
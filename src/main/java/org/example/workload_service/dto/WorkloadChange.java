@@ -0,0 +1,5 @@
+package org.example.workload_service.dto;
+
+// version grows with every committed change of the month, a client can ignore a total older than one it has seen
+public record WorkloadChange(String username, int year, int month, int totalDuration, long version) {
+}
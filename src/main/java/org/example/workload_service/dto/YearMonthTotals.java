@@ -0,0 +1,219 @@
+package org.example.workload_service.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+// year -> month name -> total kept in int arrays; the Map view is only materialized for callers that iterate it,
+// the serializer reads the arrays directly
+@JsonSerialize(using = YearMonthTotalsSerializer.class)
+public class YearMonthTotals extends AbstractMap<Integer, Map<String, Integer>> {
+
+    static final String[] MONTHS = {"Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
+
+    private int[] years;
+    private int[] totals;
+    private short[] present;
+    private int size;
+
+    public YearMonthTotals() {
+        this(4);
+    }
+
+    public YearMonthTotals(int expectedYears) {
+        int capacity = Math.max(1, expectedYears);
+        years = new int[capacity];
+        totals = new int[capacity * 12];
+        present = new short[capacity];
+    }
+
+    // month is 1-based; rows usually arrive ordered by year, which keeps this an append
+    public void add(int year, int month, int total) {
+        int slot = slotOf(year);
+        if (slot < 0)
+            slot = insert(-(slot + 1), year);
+        totals[slot * 12 + month - 1] = total;
+        present[slot] |= (short) (1 << (month - 1));
+    }
+
+    public int yearCount() {
+        return size;
+    }
+
+    public int monthCount() {
+        int months = 0;
+        for (int slot = 0; slot < size; slot++)
+            months += Integer.bitCount(present[slot]);
+        return months;
+    }
+
+    public int yearAt(int slot) {
+        return years[slot];
+    }
+
+    public boolean hasMonth(int slot, int month) {
+        return (present[slot] & (1 << (month - 1))) != 0;
+    }
+
+    public int totalAt(int slot, int month) {
+        return totals[slot * 12 + month - 1];
+    }
+
+    public static String monthName(int month) {
+        return MONTHS[month - 1];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer year && slotOf(year) >= 0;
+    }
+
+    @Override
+    public Map<String, Integer> get(Object key) {
+        if (!(key instanceof Integer year))
+            return null;
+        int slot = slotOf(year);
+        return slot < 0 ? null : new Months(slot);
+    }
+
+    // copies the month map in; unknown month names are ignored
+    @Override
+    public Map<String, Integer> put(Integer year, Map<String, Integer> months) {
+        Map<String, Integer> previous = get(year);
+        int slot = slotOf(year);
+        if (slot >= 0) {
+            present[slot] = 0;
+            Arrays.fill(totals, slot * 12, slot * 12 + 12, 0);
+        }
+        months.forEach((name, total) -> {
+            for (int m = 0; m < 12; m++)
+                if (MONTHS[m].equals(name))
+                    add(year, m + 1, total);
+        });
+        return previous;
+    }
+
+    @Override
+    public Set<Entry<Integer, Map<String, Integer>>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Integer, Map<String, Integer>>> iterator() {
+                return new Iterator<>() {
+                    private int slot;
+
+                    @Override
+                    public boolean hasNext() {
+                        return slot < size;
+                    }
+
+                    @Override
+                    public Entry<Integer, Map<String, Integer>> next() {
+                        if (slot >= size)
+                            throw new NoSuchElementException();
+                        int current = slot++;
+                        return new SimpleImmutableEntry<>(years[current], new Months(current));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int slotOf(int year) {
+        if (size > 0 && years[size - 1] == year)
+            return size - 1;
+        return Arrays.binarySearch(years, 0, size, year);
+    }
+
+    private int insert(int slot, int year) {
+        if (size == years.length) {
+            int capacity = size * 2;
+            years = Arrays.copyOf(years, capacity);
+            totals = Arrays.copyOf(totals, capacity * 12);
+            present = Arrays.copyOf(present, capacity);
+        }
+        System.arraycopy(years, slot, years, slot + 1, size - slot);
+        System.arraycopy(totals, slot * 12, totals, (slot + 1) * 12, (size - slot) * 12);
+        System.arraycopy(present, slot, present, slot + 1, size - slot);
+        years[slot] = year;
+        Arrays.fill(totals, slot * 12, slot * 12 + 12, 0);
+        present[slot] = 0;
+        size++;
+        return slot;
+    }
+
+    private final class Months extends AbstractMap<String, Integer> {
+
+        private final int slot;
+
+        private Months(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public Integer get(Object key) {
+            for (int m = 1; m <= 12; m++)
+                if (MONTHS[m - 1].equals(key))
+                    return hasMonth(slot, m) ? totalAt(slot, m) : null;
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Set<Entry<String, Integer>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Integer>> iterator() {
+                    return new Iterator<>() {
+                        private int month = next(0);
+
+                        private int next(int from) {
+                            for (int m = from + 1; m <= 12; m++)
+                                if (hasMonth(slot, m))
+                                    return m;
+                            return 13;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return month <= 12;
+                        }
+
+                        @Override
+                        public Entry<String, Integer> next() {
+                            if (month > 12)
+                                throw new NoSuchElementException();
+                            Entry<String, Integer> entry = new SimpleImmutableEntry<>(MONTHS[month - 1], totalAt(slot, month));
+                            month = next(month);
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return Integer.bitCount(present[slot] & 0xFFFF);
+                }
+            };
+        }
+    }
+}
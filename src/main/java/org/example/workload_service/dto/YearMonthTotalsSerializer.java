@@ -0,0 +1,46 @@
+package org.example.workload_service.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+// writes {"2024":{"Jun":120,"Jul":90}} straight from the arrays, with the month names pre-encoded
+public class YearMonthTotalsSerializer extends StdSerializer<YearMonthTotals> {
+
+    private static final SerializableString[] MONTHS = new SerializableString[12];
+
+    static {
+        for (int m = 0; m < 12; m++)
+            MONTHS[m] = new SerializedString(YearMonthTotals.MONTHS[m]);
+    }
+
+    public YearMonthTotalsSerializer() {
+        super(YearMonthTotals.class);
+    }
+
+    @Override
+    public void serialize(YearMonthTotals totals, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(totals);
+        for (int slot = 0; slot < totals.yearCount(); slot++) {
+            gen.writeFieldId(totals.yearAt(slot));
+            gen.writeStartObject();
+            for (int m = 1; m <= 12; m++) {
+                if (!totals.hasMonth(slot, m))
+                    continue;
+                gen.writeFieldName(MONTHS[m - 1]);
+                gen.writeNumber(totals.totalAt(slot, m));
+            }
+            gen.writeEndObject();
+        }
+        gen.writeEndObject();
+    }
+
+    @Override
+    public boolean isEmpty(SerializerProvider provider, YearMonthTotals totals) {
+        return totals.isEmpty();
+    }
+}
@@ -0,0 +1,4 @@
+package org.example.workload_service.dto;
+
+public record YearTotal(int year, int totalDuration) {
+}
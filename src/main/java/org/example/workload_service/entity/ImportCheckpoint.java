@@ -0,0 +1,65 @@
+package org.example.workload_service.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "import_checkpoint")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ImportCheckpoint {
+
+    @Id
+    @Column(name = "import_id")
+    private String importId;
+
+    @Column(name = "source", nullable = false, length = 1024)
+    private String source;
+
+    @Column(name = "chunk_size", nullable = false)
+    private int chunkSize;
+
+    @Column(name = "chunks_committed", nullable = false)
+    private long chunksCommitted;
+
+    @Column(name = "events_read", nullable = false)
+    private long eventsRead;
+
+    @Column(name = "events_applied", nullable = false)
+    private long eventsApplied;
+
+    @Column(name = "events_duplicate", nullable = false)
+    private long eventsDuplicate;
+
+    @Column(name = "events_rejected", nullable = false)
+    private long eventsRejected;
+
+    @Column(name = "completed", nullable = false)
+    private boolean completed;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public ImportCheckpoint(String importId, String source, int chunkSize) {
+        this.importId = importId;
+        this.source = source;
+        this.chunkSize = chunkSize;
+        this.updatedAt = Instant.now();
+    }
+
+    // a fresh copy, so a chunk transaction that is retried never counts the same events twice
+    public ImportCheckpoint next(long read, long applied, long duplicate, long rejected) {
+        ImportCheckpoint next = new ImportCheckpoint(importId, source, chunkSize);
+        next.chunksCommitted = chunksCommitted + 1;
+        next.eventsRead = eventsRead + read;
+        next.eventsApplied = eventsApplied + applied;
+        next.eventsDuplicate = eventsDuplicate + duplicate;
+        next.eventsRejected = eventsRejected + rejected;
+        return next;
+    }
+}
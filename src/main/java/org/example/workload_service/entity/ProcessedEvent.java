@@ -0,0 +1,52 @@
+package org.example.workload_service.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+@Entity
+@Table(
+        name = "processed_event",
+        indexes = @Index(name = "idx_processed_event_processed_at", columnList = "processed_at")
+)
+@Getter
+@Setter
+@NoArgsConstructor
+public class ProcessedEvent implements Persistable<String> {
+
+    @Id
+    @Column(name = "idempotency_key")
+    private String idempotencyKey;
+
+    @Column(name = "processed_at", nullable = false)
+    private Instant processedAt;
+
+    // keys are assigned by the caller, so tell Spring Data to persist instead of select-then-merge
+    @Transient
+    private boolean newEvent = true;
+
+    public ProcessedEvent(String idempotencyKey, Instant processedAt) {
+        this.idempotencyKey = idempotencyKey;
+        this.processedAt = processedAt;
+    }
+
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEvent;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        newEvent = false;
+    }
+}
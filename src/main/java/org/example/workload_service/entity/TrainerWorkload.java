@@ -5,7 +5,23 @@ import lombok.Getter;
 import lombok.Setter;
 
 @Entity
-@Table(name = "trainer_workload")  // Explicit table name
+@Table(
+        name = "trainer_workload",  // Explicit table name
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_trainer_workload_month",
+                columnNames = {"username", "work_year", "work_month"}
+        ),
+        indexes = {
+                @Index(
+                        name = "idx_trainer_workload_summary",
+                        columnList = "username, work_year, work_month, total_duration"
+                ),
+                @Index(
+                        name = "idx_trainer_workload_ranking",
+                        columnList = "work_year, work_month, total_duration desc, username"
+                )
+        }
+)
 @Getter
 @Setter
 public class TrainerWorkload {
@@ -15,10 +31,7 @@ public class TrainerWorkload {
     @Column(name = "id")
     private Long id;
 
-    @Column(unique = true)
-    private String idempotencyKey;
-
-    @Column(name = "username")
+    @Column(name = "username", nullable = false)
     private String username;
 
     @Column(name = "first_name")
@@ -38,4 +51,12 @@ public class TrainerWorkload {
 
     @Column(name = "total_duration")
     private int totalDuration;
+
+    // the month's days packed by MonthDays, null on months written before days were kept
+    @Column(name = "day_totals", length = 62)
+    private byte[] dayTotals;
+
+    @Version
+    @Column(name = "version")
+    private long version;
 }
@@ -0,0 +1,161 @@
+package org.example.workload_service.ingest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.workload_service.Enum.BatchItemStatus;
+import org.example.workload_service.Enum.IngestMode;
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.dto.BatchItemResult;
+import org.example.workload_service.dto.TrainerWorkloadRequest;
+import org.example.workload_service.service.BatchFailedException;
+import org.example.workload_service.service.TrainerWorkloadBatchService;
+import org.example.workload_service.service.TrainerWorkloadService;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@Slf4j
+public class AsyncWorkloadIngestor {
+
+    private final WorkloadProperties.Ingest properties;
+    private final WorkloadEventChannel channel;
+    private final TrainerWorkloadBatchService batchService;
+    private final TrainerWorkloadService service;
+    private final boolean virtualThreads;
+
+    private final DistributionSummary batchSize;
+    private final Timer lag;
+    private final Counter rejected;
+    private final Counter failed;
+
+    private ExecutorService workers;
+    private volatile boolean running;
+
+    public AsyncWorkloadIngestor(WorkloadProperties properties,
+                                 WorkloadEventChannel channel,
+                                 TrainerWorkloadBatchService batchService,
+                                 TrainerWorkloadService service,
+                                 MeterRegistry meterRegistry,
+                                 Environment environment) {
+        this.properties = properties.getIngest();
+        this.channel = channel;
+        this.batchService = batchService;
+        this.service = service;
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+        Gauge.builder("workload.ingest.queue.depth", channel, WorkloadEventChannel::depth)
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("workload.ingest.batch.size")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.lag = Timer.builder("workload.ingest.lag")
+                .description("time from acceptance to the event being applied")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejected = Counter.builder("workload.ingest.rejected").register(meterRegistry);
+        this.failed = Counter.builder("workload.ingest.failed").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.getMode() == IngestMode.ASYNC;
+    }
+
+    public Duration retryAfter() {
+        return properties.getRetryAfter();
+    }
+
+    // false when the channel is full, the caller is expected to back off and resend
+    public boolean submit(TrainerWorkloadRequest request) {
+        if (channel.offer(QueuedWorkload.of(request)))
+            return true;
+        rejected.increment();
+        return false;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!isEnabled())
+            return;
+        running = true;
+        // workers block on JDBC most of the time, so they follow spring.threads.virtual.enabled like the request threads
+        workers = Executors.newFixedThreadPool(properties.getWorkers(), virtualThreads
+                ? Thread.ofVirtual().name("workload-ingest-", 0).factory()
+                : Thread.ofPlatform().name("workload-ingest-", 0).factory());
+        for (int i = 0; i < properties.getWorkers(); i++)
+            workers.submit(this::drainLoop);
+        log.info("async workload ingestion started with {} {} workers, queue capacity {}",
+                properties.getWorkers(), virtualThreads ? "virtual" : "platform", channel.capacity());
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (workers == null)
+            return;
+        // workers finish what is already queued before they see the flag
+        running = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS))
+            log.warn("async ingest workers did not drain in time, {} events left", channel.depth());
+    }
+
+    private void drainLoop() {
+        while (running || channel.depth() > 0) {
+            try {
+                List<QueuedWorkload> batch = channel.drain(properties.getBatchSize(), properties.getPollTimeout());
+                if (!batch.isEmpty())
+                    apply(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("async ingest worker failed, continuing", e);
+            }
+        }
+    }
+
+    void apply(List<QueuedWorkload> batch) {
+        batchSize.record(batch.size());
+        List<BatchItemResult> results;
+        try {
+            results = batchService.processBatch(batch.stream().map(QueuedWorkload::request).toList());
+        } catch (BatchFailedException e) {
+            log.warn("micro-batch of {} events failed: {}", batch.size(), e.getMessage());
+            results = e.getResults();
+        } catch (RuntimeException e) {
+            // nothing tells which events are stored, and a stored event without a key would be applied twice
+            log.error("micro-batch of {} events failed with an unknown outcome, not replaying it", batch.size(), e);
+            results = List.of();
+        }
+        // FAILED events rolled back with their shard, everything else is stored whatever failed after the commit;
+        // the rolled back ones are replayed one at a time so a single bad event stays isolated
+        List<QueuedWorkload> retry = results.stream()
+                .filter(result -> result.getStatus() == BatchItemStatus.FAILED)
+                .map(result -> batch.get(result.getIndex()))
+                .toList();
+        if (!retry.isEmpty())
+            log.warn("replaying {} of {} micro-batch events one at a time", retry.size(), batch.size());
+        for (QueuedWorkload workload : retry) {
+            try {
+                service.processWorkload(workload.request());
+            } catch (RuntimeException single) {
+                failed.increment();
+                log.error("dropping queued workload event {}", workload.request(), single);
+            }
+        }
+        long now = System.nanoTime();
+        for (QueuedWorkload workload : batch)
+            lag.record(now - workload.enqueuedNanos(), TimeUnit.NANOSECONDS);
+    }
+}
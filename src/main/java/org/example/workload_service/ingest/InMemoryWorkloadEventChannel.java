@@ -0,0 +1,45 @@
+package org.example.workload_service.ingest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class InMemoryWorkloadEventChannel implements WorkloadEventChannel {
+
+    private final BlockingQueue<QueuedWorkload> queue;
+    private final int capacity;
+
+    public InMemoryWorkloadEventChannel(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+    }
+
+    @Override
+    public boolean offer(QueuedWorkload workload) {
+        return queue.offer(workload);
+    }
+
+    @Override
+    public List<QueuedWorkload> drain(int max, Duration timeout) throws InterruptedException {
+        QueuedWorkload first = queue.poll(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        if (first == null)
+            return List.of();
+        List<QueuedWorkload> batch = new ArrayList<>(Math.min(max, queue.size() + 1));
+        batch.add(first);
+        queue.drainTo(batch, max - 1);
+        return batch;
+    }
+
+    @Override
+    public int depth() {
+        return queue.size();
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+}
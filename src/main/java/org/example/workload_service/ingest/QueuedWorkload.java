@@ -0,0 +1,10 @@
+package org.example.workload_service.ingest;
+
+import org.example.workload_service.dto.TrainerWorkloadRequest;
+
+public record QueuedWorkload(TrainerWorkloadRequest request, long enqueuedNanos) {
+
+    public static QueuedWorkload of(TrainerWorkloadRequest request) {
+        return new QueuedWorkload(request, System.nanoTime());
+    }
+}
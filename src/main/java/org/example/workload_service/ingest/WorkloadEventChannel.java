@@ -0,0 +1,18 @@
+package org.example.workload_service.ingest;
+
+import java.time.Duration;
+import java.util.List;
+
+// transport between the accepting controller and the ingest workers; swap the bean for a broker-backed one
+public interface WorkloadEventChannel {
+
+    // never blocks, false means the channel is full
+    boolean offer(QueuedWorkload workload);
+
+    // waits up to timeout for the first event, then takes whatever else is ready up to max
+    List<QueuedWorkload> drain(int max, Duration timeout) throws InterruptedException;
+
+    int depth();
+
+    int capacity();
+}
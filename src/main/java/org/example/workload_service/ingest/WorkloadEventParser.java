@@ -0,0 +1,112 @@
+package org.example.workload_service.ingest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.workload_service.Enum.ActionType;
+import org.example.workload_service.dto.TrainerWorkloadRequest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// turns one line of an import file into a request; stateless once built, so chunks are parsed on any thread
+abstract class WorkloadEventParser {
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("username", "trainingDate", "duration", "actionType");
+
+    // null for a line that does not parse or misses a required field
+    abstract TrainerWorkloadRequest parse(String line);
+
+    static WorkloadEventParser ndjson(ObjectMapper objectMapper) {
+        return new WorkloadEventParser() {
+            @Override
+            TrainerWorkloadRequest parse(String line) {
+                try {
+                    return validated(objectMapper.readValue(line, TrainerWorkloadRequest.class));
+                } catch (JsonProcessingException e) {
+                    return null;
+                }
+            }
+        };
+    }
+
+    // columns are matched by the header, so files may order them freely and carry extra ones
+    static WorkloadEventParser csv(String header) {
+        List<String> names = split(header);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++)
+            columns.put(names.get(i).trim(), i);
+        for (String column : REQUIRED_COLUMNS)
+            if (!columns.containsKey(column))
+                throw new IllegalArgumentException("import header is missing column " + column);
+
+        return new WorkloadEventParser() {
+            @Override
+            TrainerWorkloadRequest parse(String line) {
+                List<String> fields = split(line);
+                try {
+                    TrainerWorkloadRequest request = new TrainerWorkloadRequest();
+                    request.setIdempotencyKey(field(fields, columns, "idempotencyKey"));
+                    request.setUsername(field(fields, columns, "username"));
+                    request.setFirstName(field(fields, columns, "firstName"));
+                    request.setLastName(field(fields, columns, "lastName"));
+                    String active = field(fields, columns, "active");
+                    request.setActive(active == null ? null : Boolean.valueOf(active));
+                    request.setTrainingDate(LocalDate.parse(field(fields, columns, "trainingDate")));
+                    request.setDuration(Integer.parseInt(field(fields, columns, "duration")));
+                    request.setActionType(ActionType.valueOf(field(fields, columns, "actionType")));
+                    return validated(request);
+                } catch (RuntimeException e) {
+                    return null;
+                }
+            }
+        };
+    }
+
+    private static TrainerWorkloadRequest validated(TrainerWorkloadRequest request) {
+        if (request.getUsername() == null || request.getUsername().isBlank()
+                || request.getTrainingDate() == null
+                || request.getActionType() == null
+                || request.getDuration() < 0)
+            return null;
+        return request;
+    }
+
+    // an empty field reads as null
+    private static String field(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= fields.size())
+            return null;
+        String value = fields.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    // RFC 4180 fields within one line; quoted line breaks are not supported
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"')
+                    field.append(c);
+                else if (i + 1 < line.length() && line.charAt(i + 1) == '"')
+                    field.append(line.charAt(++i));
+                else
+                    quoted = false;
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.workload_service.ingest;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.List;
+
+// --import-workloads=<file>[,<file>...] [--import-id=<id>]; start with --spring.main.web-application-type=none
+// to run the import alone, otherwise it runs next to live traffic under the same write guard
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WorkloadImportRunner implements ApplicationRunner {
+
+    static final String IMPORT_OPTION = "import-workloads";
+    static final String IMPORT_ID_OPTION = "import-id";
+
+    private final WorkloadImporter importer;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!args.containsOption(IMPORT_OPTION))
+            return;
+        List<String> files = args.getOptionValues(IMPORT_OPTION).stream()
+                .flatMap(value -> List.of(value.split(",")).stream())
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .toList();
+        List<String> ids = args.getOptionValues(IMPORT_ID_OPTION);
+        if (ids != null && !ids.isEmpty() && files.size() != 1)
+            throw new IllegalArgumentException("--" + IMPORT_ID_OPTION + " needs exactly one import file");
+
+        for (String file : files) {
+            Path path = Path.of(file);
+            String importId = ids == null || ids.isEmpty() ? WorkloadImporter.defaultImportId(path) : ids.getFirst();
+            log.info("importing workloads from {} as {}", path, importId);
+            importer.importFile(path, importId);
+        }
+    }
+}
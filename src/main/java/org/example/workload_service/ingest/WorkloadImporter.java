@@ -0,0 +1,374 @@
+package org.example.workload_service.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.workload_service.Enum.ActionType;
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.dto.TrainerWorkloadRequest;
+import org.example.workload_service.entity.ImportCheckpoint;
+import org.example.workload_service.entity.TrainerWorkload;
+import org.example.workload_service.journal.WorkloadJournal;
+import org.example.workload_service.respository.ImportCheckpointRepository;
+import org.example.workload_service.respository.TrainerWorkloadBatchRepository;
+import org.example.workload_service.service.IdempotencyKeyStore;
+import org.example.workload_service.service.InMemoryWorkloadEngine;
+import org.example.workload_service.service.MonthDays;
+import org.example.workload_service.service.WorkloadMonthKey;
+import org.example.workload_service.service.WorkloadUpdatedEvent;
+import org.example.workload_service.service.WorkloadVersion;
+import org.example.workload_service.service.WorkloadWriteGuard;
+import org.example.workload_service.sharding.WorkloadShards;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+// backfills history from a CSV or NDJSON file of workload events, one transaction and one checkpoint per chunk;
+// a rerun with the same import id skips the chunks its checkpoint has already committed
+@Component
+@Slf4j
+public class WorkloadImporter {
+
+    private final WorkloadProperties.Import properties;
+    private final ImportCheckpointRepository checkpoints;
+    private final TrainerWorkloadBatchRepository batchRepository;
+    private final WorkloadWriteGuard writeGuard;
+    private final IdempotencyKeyStore idempotencyStore;
+    private final InMemoryWorkloadEngine engine;
+    private final WorkloadJournal journal;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final WorkloadShards shards;
+    private final ForkJoinPool pool;
+
+    public WorkloadImporter(WorkloadProperties properties,
+                            ImportCheckpointRepository checkpoints,
+                            TrainerWorkloadBatchRepository batchRepository,
+                            WorkloadWriteGuard writeGuard,
+                            IdempotencyKeyStore idempotencyStore,
+                            InMemoryWorkloadEngine engine,
+                            WorkloadJournal journal,
+                            ApplicationEventPublisher eventPublisher,
+                            ObjectMapper objectMapper,
+                            WorkloadShards shards) {
+        this.properties = properties.getImporter();
+        this.checkpoints = checkpoints;
+        this.batchRepository = batchRepository;
+        this.writeGuard = writeGuard;
+        this.idempotencyStore = idempotencyStore;
+        this.engine = engine;
+        this.journal = journal;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.shards = shards;
+        this.pool = this.properties.getParallelism() > 0
+                ? new ForkJoinPool(this.properties.getParallelism())
+                : ForkJoinPool.commonPool();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (pool != ForkJoinPool.commonPool())
+            pool.shutdown();
+    }
+
+    // the default id ties a checkpoint to one file, so a changed file starts over instead of resuming
+    public static String defaultImportId(Path file) throws IOException {
+        return file.getFileName() + "-" + Files.size(file);
+    }
+
+    // every shard keeps its own checkpoint next to its rows, so a chunk commits on each shard on its own
+    public ImportCheckpoint importFile(Path file, String importId) throws IOException {
+        // a chunk's keys and checkpoint commit with its rows; the engine only writes its cells in a later flush,
+        // so a crash in between would skip the chunk on the rerun and count its keys as duplicates
+        if (engine.isEnabled())
+            throw new IllegalStateException("imports need workload.engine.mode=DATABASE, the in-memory engine "
+                    + "writes behind the checkpoint");
+        List<ImportCheckpoint> progress = new ArrayList<>(shards.collect(shard -> checkpoints.findById(importId)
+                .orElseGet(() -> checkpoints.save(
+                        new ImportCheckpoint(importId, file.toString(), properties.getChunkSize())))));
+        ImportCheckpoint checkpoint = combined(progress);
+        if (checkpoint.isCompleted()) {
+            log.info("import {} already completed with {} events applied", importId, checkpoint.getEventsApplied());
+            return checkpoint;
+        }
+        // chunk boundaries have to match the ones the checkpoint counted
+        int chunkSize = progress.getFirst().getChunkSize();
+        if (checkpoint.getChunksCommitted() > 0)
+            log.info("resuming import {} after {} committed chunks", importId, checkpoint.getChunksCommitted());
+
+        long size = Files.size(file);
+        long started = System.nanoTime();
+        try (CountingInputStream counted = new CountingInputStream(Files.newInputStream(file));
+             BufferedReader reader = new BufferedReader(new InputStreamReader(
+                     isGzip(file) ? new GZIPInputStream(counted, 65536) : counted, StandardCharsets.UTF_8), 65536)) {
+            WorkloadEventParser parser = isCsv(file)
+                    ? WorkloadEventParser.csv(Objects.requireNonNullElse(reader.readLine(), ""))
+                    : WorkloadEventParser.ndjson(objectMapper);
+
+            List<String> lines = new ArrayList<>(chunkSize);
+            long chunk = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank())
+                    continue;
+                lines.add(line);
+                if (lines.size() < chunkSize)
+                    continue;
+                processChunk(progress, chunk++, lines, parser);
+                report(combined(progress), counted.count, size, started);
+                lines = new ArrayList<>(chunkSize);
+            }
+            if (!lines.isEmpty()) {
+                processChunk(progress, chunk, lines, parser);
+                report(combined(progress), counted.count, size, started);
+            }
+        }
+
+        Instant completed = Instant.now();
+        checkpoint = combined(shards.collect(shard -> {
+            ImportCheckpoint done = progress.get(shard);
+            done.setCompleted(true);
+            done.setUpdatedAt(completed);
+            return checkpoints.save(done);
+        }));
+        log.info("import {} completed: {} events read, {} applied, {} duplicates, {} rejected", importId,
+                checkpoint.getEventsRead(), checkpoint.getEventsApplied(),
+                checkpoint.getEventsDuplicate(), checkpoint.getEventsRejected());
+        return checkpoint;
+    }
+
+    private void processChunk(List<ImportCheckpoint> progress, long chunk, List<String> lines,
+                              WorkloadEventParser parser) {
+        if (progress.stream().allMatch(checkpoint -> chunk < checkpoint.getChunksCommitted()))
+            return;
+
+        List<TrainerWorkloadRequest> parsed = pool.submit(() -> lines.parallelStream().map(parser::parse).toList()).join();
+        // lines that do not parse have no trainer and are counted on shard 0
+        SortedMap<Integer, List<TrainerWorkloadRequest>> parts =
+                shards.partition(parsed, event -> event == null ? null : event.getUsername());
+        for (int shard = 0; shard < progress.size(); shard++) {
+            ImportCheckpoint checkpoint = progress.get(shard);
+            if (chunk < checkpoint.getChunksCommitted())
+                continue;
+            List<TrainerWorkloadRequest> events = parts.getOrDefault(shard, List.of());
+            progress.set(shard, shards.on(shard, () -> applyChunk(checkpoint, events)));
+        }
+    }
+
+    private ImportCheckpoint applyChunk(ImportCheckpoint checkpoint, List<TrainerWorkloadRequest> events) {
+        Set<String> usernames = events.stream()
+                .filter(Objects::nonNull)
+                .map(TrainerWorkloadRequest::getUsername)
+                .collect(Collectors.toSet());
+
+        // screening, keys, table and checkpoint commit together; a retried transaction redoes all of it
+        ChunkResult result = writeGuard.executeAll(usernames, () -> {
+            boolean[] accepted = screen(events);
+            Map<WorkloadMonthKey, List<TrainerWorkloadRequest>> months = new LinkedHashMap<>();
+            for (int i = 0; i < events.size(); i++)
+                if (accepted[i])
+                    months.computeIfAbsent(WorkloadMonthKey.of(events.get(i)), k -> new ArrayList<>()).add(events.get(i));
+            Map<WorkloadMonthKey, TrainerWorkload> rows = new HashMap<>();
+            if (!months.isEmpty())
+                for (TrainerWorkload workload : batchRepository.findMonths(months.keySet()))
+                    rows.put(WorkloadMonthKey.of(workload), workload);
+
+            // months are independent, so they fold in parallel; the events of one month fold in file order
+            List<MonthFold> folds = pool.submit(() -> months.entrySet().parallelStream()
+                    .map(month -> MonthFold.of(month.getKey(), rows.get(month.getKey()), month.getValue()))
+                    .toList()).join();
+
+            // like the live paths, only an applied event uses up its key
+            List<TrainerWorkloadRequest> applied = folds.stream().flatMap(fold -> fold.applied.stream()).toList();
+            idempotencyStore.recordAll(applied.stream()
+                    .map(TrainerWorkloadRequest::getIdempotencyKey)
+                    .filter(Objects::nonNull)
+                    .toList());
+            List<WorkloadUpdatedEvent> updates = applyToTable(folds);
+
+            int rejected = (int) events.stream().filter(Objects::isNull).count()
+                    + folds.stream().mapToInt(fold -> fold.rejected).sum();
+            ImportCheckpoint next = checkpoint.next(events.size(), applied.size(),
+                    events.size() - applied.size() - rejected, rejected);
+            return new ChunkResult(checkpoints.save(next), applied, updates);
+        });
+
+        journal.append(result.applied().stream().filter(event -> event.getDuration() != 0).toList());
+        result.updates().forEach(eventPublisher::publishEvent);
+        return result.checkpoint();
+    }
+
+    private ImportCheckpoint combined(List<ImportCheckpoint> progress) {
+        if (progress.size() == 1)
+            return progress.getFirst();
+        ImportCheckpoint first = progress.getFirst();
+        ImportCheckpoint combined = new ImportCheckpoint(first.getImportId(), first.getSource(), first.getChunkSize());
+        combined.setChunksCommitted(progress.stream().mapToLong(ImportCheckpoint::getChunksCommitted).min().orElse(0));
+        combined.setEventsRead(progress.stream().mapToLong(ImportCheckpoint::getEventsRead).sum());
+        combined.setEventsApplied(progress.stream().mapToLong(ImportCheckpoint::getEventsApplied).sum());
+        combined.setEventsDuplicate(progress.stream().mapToLong(ImportCheckpoint::getEventsDuplicate).sum());
+        combined.setEventsRejected(progress.stream().mapToLong(ImportCheckpoint::getEventsRejected).sum());
+        combined.setCompleted(progress.stream().allMatch(ImportCheckpoint::isCompleted));
+        return combined;
+    }
+
+    // keys already stored or repeated earlier in the chunk are dropped, like a replayed POST
+    private boolean[] screen(List<TrainerWorkloadRequest> events) {
+        Set<String> keys = events.stream()
+                .filter(Objects::nonNull)
+                .map(TrainerWorkloadRequest::getIdempotencyKey)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> seen = keys.isEmpty() ? new HashSet<>() : new HashSet<>(idempotencyStore.findDuplicates(keys));
+        boolean[] accepted = new boolean[events.size()];
+        for (int i = 0; i < events.size(); i++) {
+            TrainerWorkloadRequest event = events.get(i);
+            accepted[i] = event != null && (event.getIdempotencyKey() == null || seen.add(event.getIdempotencyKey()));
+        }
+        return accepted;
+    }
+
+    private List<WorkloadUpdatedEvent> applyToTable(List<MonthFold> folds) {
+        List<TrainerWorkload> updates = new ArrayList<>();
+        List<TrainerWorkload> inserts = new ArrayList<>();
+        List<WorkloadUpdatedEvent> events = new ArrayList<>();
+        // like a batch, the rows were read in this transaction and are written with a version check
+        long version = WorkloadVersion.next();
+        for (MonthFold fold : folds) {
+            if (fold.applied.isEmpty())
+                continue;
+            (fold.existing ? updates : inserts).add(fold.row);
+            events.add(new WorkloadUpdatedEvent(fold.key.username(), fold.key.year(), fold.key.month(),
+                    fold.row.getTotalDuration(), fold.row.getTotalDuration() - fold.before, version));
+        }
+        batchRepository.updateTotals(updates);
+        batchRepository.insert(inserts);
+        return events;
+    }
+
+    private static void report(ImportCheckpoint checkpoint, long bytesRead, long size, long started) {
+        double seconds = Math.max(1e-3, (System.nanoTime() - started) / 1e9);
+        log.info("import {}: chunk {} committed, {}% of file, {} events read ({} applied, {} duplicates, {} rejected), {} events/s",
+                checkpoint.getImportId(), checkpoint.getChunksCommitted(),
+                size == 0 ? 100 : Math.min(100, bytesRead * 100 / size),
+                checkpoint.getEventsRead(), checkpoint.getEventsApplied(),
+                checkpoint.getEventsDuplicate(), checkpoint.getEventsRejected(),
+                Math.round(checkpoint.getEventsRead() / seconds));
+    }
+
+    private static boolean isGzip(Path file) {
+        return file.getFileName().toString().endsWith(".gz");
+    }
+
+    private static boolean isCsv(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(".csv") || name.endsWith(".csv.gz");
+    }
+
+    private record ChunkResult(ImportCheckpoint checkpoint, List<TrainerWorkloadRequest> applied,
+                               List<WorkloadUpdatedEvent> updates) {
+    }
+
+    // one trainer month folded event by event from its stored total, with the reject rule of processWorkload:
+    // a DELETE larger than the month total at that point is rejected and leaves the month as it was
+    private static final class MonthFold {
+
+        private final WorkloadMonthKey key;
+        private final TrainerWorkload row;
+        private final boolean existing;
+        private final int before;
+        private final List<TrainerWorkloadRequest> applied = new ArrayList<>();
+        private int rejected;
+
+        private MonthFold(WorkloadMonthKey key, TrainerWorkload row, boolean existing) {
+            this.key = key;
+            this.row = row;
+            this.existing = existing;
+            this.before = row.getTotalDuration();
+        }
+
+        // a new month takes its names from its first event, like the row processWorkload would create
+        static MonthFold of(WorkloadMonthKey key, TrainerWorkload row, List<TrainerWorkloadRequest> events) {
+            MonthFold fold;
+            if (row != null) {
+                fold = new MonthFold(key, row, true);
+            } else {
+                TrainerWorkloadRequest first = events.getFirst();
+                TrainerWorkload created = new TrainerWorkload();
+                created.setUsername(key.username());
+                created.setFirstName(first.getFirstName());
+                created.setLastName(first.getLastName());
+                created.setActive(first.getActive());
+                created.setYear(key.year());
+                created.setMonth(key.month());
+                created.setTotalDuration(0);
+                fold = new MonthFold(key, created, false);
+            }
+            events.forEach(fold::apply);
+            return fold;
+        }
+
+        private void apply(TrainerWorkloadRequest event) {
+            int duration = event.getDuration();
+            if (event.getActionType() == ActionType.ADD) {
+                row.setTotalDuration(row.getTotalDuration() + duration);
+            } else {
+                if (row.getTotalDuration() < duration) {
+                    rejected++;
+                    return;
+                }
+                row.setTotalDuration(row.getTotalDuration() - duration);
+            }
+            row.setDayTotals(MonthDays.add(row.getDayTotals(), event.getTrainingDate().getDayOfMonth(),
+                    event.getActionType() == ActionType.ADD ? duration : -duration));
+            applied.add(event);
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0)
+                count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0)
+                count += n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.workload_service.journal;
+
+import org.example.workload_service.Enum.ActionType;
+import org.example.workload_service.dto.TrainerWorkloadRequest;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.CRC32C;
+
+// frame layout: [int payload length][int crc32c of payload][payload], a zero length marks the end of a segment
+public record JournalRecord(long timestamp,
+                            String idempotencyKey,
+                            String username,
+                            String firstName,
+                            String lastName,
+                            Boolean active,
+                            LocalDate trainingDate,
+                            ActionType actionType,
+                            int duration) {
+
+    static final int HEADER = 8;
+
+    private static final int NULL_STRING = 0xFFFF;
+    private static final ActionType[] ACTIONS = ActionType.values();
+
+    public static JournalRecord of(TrainerWorkloadRequest request, long timestamp) {
+        return new JournalRecord(
+                timestamp,
+                request.getIdempotencyKey(),
+                request.getUsername(),
+                request.getFirstName(),
+                request.getLastName(),
+                request.getActive(),
+                request.getTrainingDate(),
+                request.getActionType(),
+                request.getDuration()
+        );
+    }
+
+    public int signedDuration() {
+        return actionType == ActionType.ADD ? duration : -duration;
+    }
+
+    public byte[] encode() {
+        byte[] key = bytes(idempotencyKey);
+        byte[] user = bytes(username);
+        byte[] first = bytes(firstName);
+        byte[] last = bytes(lastName);
+        int payload = 8 + 1 + 4 + 4 + 1 + size(key) + size(user) + size(first) + size(last);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER + payload);
+        buffer.putInt(payload).putInt(0);
+        buffer.putLong(timestamp);
+        buffer.put((byte) actionType.ordinal());
+        buffer.putInt((int) trainingDate.toEpochDay());
+        buffer.putInt(duration);
+        buffer.put(active == null ? 2 : (byte) (active ? 1 : 0));
+        put(buffer, key);
+        put(buffer, user);
+        put(buffer, first);
+        put(buffer, last);
+
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), HEADER, payload);
+        buffer.putInt(4, (int) crc.getValue());
+        return buffer.array();
+    }
+
+    // reads the frame at the buffer position; a missing, torn or corrupt frame returns null and leaves the position alone
+    static JournalRecord read(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < HEADER)
+            return null;
+        int payload = buffer.getInt(start);
+        if (payload <= 0 || payload > buffer.remaining() - HEADER)
+            return null;
+
+        CRC32C crc = new CRC32C();
+        ByteBuffer body = buffer.slice(start + HEADER, payload);
+        crc.update(body.duplicate());
+        if ((int) crc.getValue() != buffer.getInt(start + 4))
+            return null;
+
+        long timestamp = body.getLong();
+        ActionType actionType = ACTIONS[body.get()];
+        LocalDate trainingDate = LocalDate.ofEpochDay(body.getInt());
+        int duration = body.getInt();
+        byte active = body.get();
+        String key = string(body);
+        String username = string(body);
+        String firstName = string(body);
+        String lastName = string(body);
+        buffer.position(start + HEADER + payload);
+        return new JournalRecord(timestamp, key, username, firstName, lastName,
+                active == 2 ? null : active == 1, trainingDate, actionType, duration);
+    }
+
+    private static byte[] bytes(String value) {
+        if (value == null)
+            return null;
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= NULL_STRING)
+            throw new IllegalArgumentException("journal field longer than " + (NULL_STRING - 1) + " bytes");
+        return bytes;
+    }
+
+    private static int size(byte[] value) {
+        return 2 + (value == null ? 0 : value.length);
+    }
+
+    private static void put(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putShort((short) NULL_STRING);
+            return;
+        }
+        buffer.putShort((short) value.length);
+        buffer.put(value);
+    }
+
+    private static String string(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        if (length == NULL_STRING)
+            return null;
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
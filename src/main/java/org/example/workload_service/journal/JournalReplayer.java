@@ -0,0 +1,67 @@
+package org.example.workload_service.journal;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.workload_service.entity.TrainerWorkload;
+import org.example.workload_service.respository.TrainerWorkloadBatchRepository;
+import org.example.workload_service.service.InMemoryWorkloadEngine;
+import org.example.workload_service.service.WorkloadLeaderboard;
+import org.example.workload_service.sharding.WorkloadShards;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// runs before the web server starts, so no request can land between the fold and the table rewrite
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JournalReplayer implements SmartInitializingSingleton {
+
+    static final String REPLAY_OPTION = "replay-journal";
+    private static final int CHUNK = 1000;
+
+    private final WorkloadJournal journal;
+    private final JournalSnapshotter snapshotter;
+    private final TrainerWorkloadBatchRepository batchRepository;
+    private final WorkloadShards shards;
+    private final TransactionTemplate transactionTemplate;
+    private final InMemoryWorkloadEngine engine;
+    private final WorkloadLeaderboard leaderboard;
+    private final ObjectProvider<ApplicationArguments> arguments;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!journal.isEnabled())
+            return;
+        ApplicationArguments args = arguments.getIfAvailable();
+        if (args != null && args.containsOption(REPLAY_OPTION))
+            replay();
+        else
+            snapshotter.seedIfMissing();
+    }
+
+    // rebuilds trainer_workload from the latest snapshot plus the journal tail
+    public int replay() {
+        JournalSnapshot snapshot = snapshotter.fold();
+        List<TrainerWorkload> rows = new ArrayList<>(snapshot.rows());
+        Map<Integer, List<TrainerWorkload>> parts = shards.partition(rows, TrainerWorkload::getUsername);
+        // each shard is rewritten in its own transaction
+        shards.forEachShard(shard -> transactionTemplate.executeWithoutResult(status -> {
+            List<TrainerWorkload> part = parts.getOrDefault(shard, List.of());
+            batchRepository.deleteAll();
+            for (int i = 0; i < part.size(); i += CHUNK)
+                batchRepository.upsertTotals(part.subList(i, Math.min(i + CHUNK, part.size())));
+        }));
+        engine.reload();
+        leaderboard.rebuild();
+        snapshotter.snapshot();
+        log.info("trainer_workload rebuilt from journal position {} with {} rows", snapshot.getPosition(), rows.size());
+        return rows.size();
+    }
+}
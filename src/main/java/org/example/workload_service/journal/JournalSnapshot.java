@@ -0,0 +1,151 @@
+package org.example.workload_service.journal;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.example.workload_service.entity.TrainerWorkload;
+import org.example.workload_service.service.MonthDays;
+import org.example.workload_service.service.WorkloadMonthKey;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+// month and day totals folded from the journal up to position
+public class JournalSnapshot {
+
+    // snapshots written before day totals were kept carry month totals only
+    private static final int MAGIC_MONTHS = 0x574B534E;
+    private static final int MAGIC = 0x574B5344;
+
+    private final Map<WorkloadMonthKey, TrainerWorkload> rows = new HashMap<>();
+    // signed day sums not yet folded into rows; journal order need not be commit order, so a DELETE can come
+    // ahead of the ADD it raced with and a day is only clamped once the whole tail is summed
+    private final Map<WorkloadMonthKey, long[]> pendingDays = new HashMap<>();
+
+    @Getter
+    @Setter
+    private long position;
+
+    public void apply(JournalRecord record) {
+        WorkloadMonthKey key = new WorkloadMonthKey(record.username(),
+                record.trainingDate().getYear(), record.trainingDate().getMonthValue());
+        TrainerWorkload row = rows.computeIfAbsent(key, k -> {
+            TrainerWorkload workload = new TrainerWorkload();
+            workload.setUsername(k.username());
+            workload.setFirstName(record.firstName());
+            workload.setLastName(record.lastName());
+            workload.setActive(record.active());
+            workload.setYear(k.year());
+            workload.setMonth(k.month());
+            workload.setTotalDuration(0);
+            return workload;
+        });
+        // only accepted events are journaled, so the signed sum is exact whatever order concurrent commits landed in
+        row.setTotalDuration(row.getTotalDuration() + record.signedDuration());
+        pendingDays.computeIfAbsent(key, k -> new long[MonthDays.DAYS])
+                [record.trainingDate().getDayOfMonth() - 1] += record.signedDuration();
+    }
+
+    public void add(TrainerWorkload workload) {
+        settleDays();
+        rows.put(WorkloadMonthKey.of(workload), workload);
+    }
+
+    public Collection<TrainerWorkload> rows() {
+        settleDays();
+        return rows.values();
+    }
+
+    private void settleDays() {
+        pendingDays.forEach((key, deltas) -> {
+            TrainerWorkload row = rows.get(key);
+            row.setDayTotals(MonthDays.add(row.getDayTotals(), deltas));
+        });
+        pendingDays.clear();
+    }
+
+    public void write(Path file) throws IOException {
+        settleDays();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+            out.writeInt(MAGIC);
+            out.writeLong(position);
+            out.writeInt(rows.size());
+            for (TrainerWorkload row : rows.values()) {
+                out.writeUTF(row.getUsername());
+                writeNullable(out, row.getFirstName());
+                writeNullable(out, row.getLastName());
+                out.writeByte(row.getActive() == null ? 2 : row.getActive() ? 1 : 0);
+                out.writeInt(row.getYear());
+                out.writeInt(row.getMonth());
+                out.writeInt(row.getTotalDuration());
+                out.writeBoolean(row.getDayTotals() != null);
+                if (row.getDayTotals() != null)
+                    out.write(row.getDayTotals());
+            }
+            // the journal behind this snapshot may be dropped once it is in place, so its bytes go to disk first
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory(file.getParent());
+    }
+
+    // makes the rename itself durable; Windows cannot open a directory as a channel and orders the rename on its own
+    private static void syncDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (AccessDeniedException ignored) {
+        }
+    }
+
+    public static JournalSnapshot read(Path file) throws IOException {
+        JournalSnapshot snapshot = new JournalSnapshot();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            int magic = in.readInt();
+            if (magic != MAGIC && magic != MAGIC_MONTHS)
+                throw new IOException("not a workload snapshot: " + file);
+            snapshot.position = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                TrainerWorkload row = new TrainerWorkload();
+                row.setUsername(in.readUTF());
+                row.setFirstName(readNullable(in));
+                row.setLastName(readNullable(in));
+                byte active = in.readByte();
+                row.setActive(active == 2 ? null : active == 1);
+                row.setYear(in.readInt());
+                row.setMonth(in.readInt());
+                row.setTotalDuration(in.readInt());
+                if (magic == MAGIC && in.readBoolean())
+                    row.setDayTotals(in.readNBytes(MonthDays.BYTES));
+                snapshot.add(row);
+            }
+        }
+        return snapshot;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null)
+            out.writeUTF(value);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.workload_service.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.respository.TrainerWorkloadBatchRepository;
+import org.example.workload_service.sharding.WorkloadShards;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+@Component
+@Slf4j
+public class JournalSnapshotter {
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    private final WorkloadJournal journal;
+    private final WorkloadProperties.Journal properties;
+    private final TrainerWorkloadBatchRepository batchRepository;
+    private final WorkloadShards shards;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public JournalSnapshotter(WorkloadJournal journal,
+                              WorkloadProperties properties,
+                              TrainerWorkloadBatchRepository batchRepository,
+                              WorkloadShards shards) {
+        this.journal = journal;
+        this.properties = properties.getJournal();
+        this.batchRepository = batchRepository;
+        this.shards = shards;
+    }
+
+    @Scheduled(fixedDelayString = "${workload.journal.snapshot-interval:PT5M}")
+    public void snapshot() {
+        if (!journal.isEnabled())
+            return;
+        lock.lock();
+        try {
+            long previous = latest().map(this::positionOf).orElse(-1L);
+            JournalSnapshot snapshot = fold();
+            if (snapshot.getPosition() == previous)
+                return;
+            write(snapshot);
+            log.info("journal snapshot written at position {} with {} rows",
+                    snapshot.getPosition(), snapshot.rows().size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // latest snapshot plus every frame appended after it
+    public JournalSnapshot fold() {
+        try {
+            Optional<Path> latest = latest();
+            JournalSnapshot snapshot = latest.isPresent() ? JournalSnapshot.read(latest.get()) : new JournalSnapshot();
+            long end = journal.position();
+            journal.read(snapshot.getPosition(), end, snapshot::apply);
+            snapshot.setPosition(end);
+            return snapshot;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // rows written before the journal was switched on only exist in the table, so they become the base snapshot
+    public void seedIfMissing() {
+        if (!journal.isEnabled() || latest().isPresent() || journal.position() > 0)
+            return;
+        JournalSnapshot snapshot = new JournalSnapshot();
+        shards.forEachShard(shard -> batchRepository.forEachRow(snapshot::add));
+        write(snapshot);
+        log.info("journal seeded with a base snapshot of {} rows", snapshot.rows().size());
+    }
+
+    private void write(JournalSnapshot snapshot) {
+        try {
+            snapshot.write(journal.directory().resolve(
+                    String.format("%s%020d%s", SNAPSHOT_PREFIX, snapshot.getPosition(), SNAPSHOT_SUFFIX)));
+            List<Path> snapshots = snapshots();
+            int stale = Math.max(0, snapshots.size() - Math.max(1, properties.getRetainedSnapshots()));
+            for (int i = 0; i < stale; i++)
+                Files.deleteIfExists(snapshots.get(i));
+            // every snapshot still kept must be able to fold forward, so the oldest one bounds what goes
+            journal.dropSegmentsBefore(positionOf(snapshots.get(stale)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Optional<Path> latest() {
+        List<Path> snapshots = snapshots();
+        return snapshots.isEmpty() ? Optional.empty() : Optional.of(snapshots.getLast());
+    }
+
+    private List<Path> snapshots() {
+        try (Stream<Path> files = Files.list(journal.directory())) {
+            return files
+                    .filter(p -> p.getFileName().toString().startsWith(SNAPSHOT_PREFIX))
+                    .filter(p -> p.getFileName().toString().endsWith(SNAPSHOT_SUFFIX))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long positionOf(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,240 @@
+package org.example.workload_service.journal;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.dto.TrainerWorkloadRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Component
+@Slf4j
+public class WorkloadJournal {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final WorkloadProperties.Journal properties;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final AtomicLong durable = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+
+    private volatile Segment current;
+    // global offset just past the last appended frame; segments are numbered by the offset of their first frame
+    private volatile long written;
+
+    public WorkloadJournal(WorkloadProperties properties) {
+        this.properties = properties.getJournal();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public Path directory() {
+        return Path.of(properties.getDirectory());
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!isEnabled())
+            return;
+        Files.createDirectories(directory());
+        List<Path> segments = segments();
+        if (segments.isEmpty()) {
+            current = Segment.create(segmentPath(0), 0, segmentSize());
+        } else {
+            Path last = segments.getLast();
+            current = Segment.create(last, baseOf(last), segmentSize());
+            // a crash can leave a torn frame at the tail, scanning stops on it and the next append overwrites it
+            while (JournalRecord.read(current.buffer) != null) {
+                log.trace("journal frame recovered at {}", current.base + current.buffer.position());
+            }
+        }
+        written = current.base + current.buffer.position();
+        durable.set(written);
+        log.info("workload journal opened at {} in {} segments, position {}",
+                directory(), Math.max(segments.size(), 1), written);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (current == null)
+            return;
+        appendLock.lock();
+        try {
+            current.buffer.force();
+            current.channel.close();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public long position() {
+        return written;
+    }
+
+    public long syncCount() {
+        return syncs.get();
+    }
+
+    public long append(TrainerWorkloadRequest request) {
+        return append(List.of(request));
+    }
+
+    // returns once every frame is written and, with sync on, forced to disk together with any concurrent appends
+    public long append(Collection<TrainerWorkloadRequest> requests) {
+        if (!isEnabled() || requests.isEmpty())
+            return written;
+        long now = System.currentTimeMillis();
+        List<byte[]> frames = new ArrayList<>(requests.size());
+        for (TrainerWorkloadRequest request : requests)
+            frames.add(JournalRecord.of(request, now).encode());
+
+        long end;
+        appendLock.lock();
+        try {
+            for (byte[] frame : frames) {
+                if (frame.length > segmentSize())
+                    throw new IllegalArgumentException("journal record larger than a segment");
+                if (current.buffer.remaining() < frame.length)
+                    roll();
+                current.buffer.put(frame);
+            }
+            end = current.base + current.buffer.position();
+            written = end;
+        } finally {
+            appendLock.unlock();
+        }
+        if (properties.isSync())
+            sync(end);
+        return end;
+    }
+
+    // delivers the frames that start in [from, to)
+    public void read(long from, long to, Consumer<JournalRecord> consumer) {
+        if (!isEnabled() || from >= to)
+            return;
+        try {
+            List<Path> segments = segments();
+            for (int i = 0; i < segments.size(); i++) {
+                long base = baseOf(segments.get(i));
+                if (base >= to)
+                    return;
+                if (i + 1 < segments.size() && baseOf(segments.get(i + 1)) <= from)
+                    continue;
+                try (FileChannel channel = FileChannel.open(segments.get(i), StandardOpenOption.READ)) {
+                    ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    JournalRecord record;
+                    long offset = base;
+                    while (offset < to && (record = JournalRecord.read(buffer)) != null) {
+                        if (offset >= from)
+                            consumer.accept(record);
+                        offset = base + buffer.position();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // deletes the segments that end at or before position; the segment being written is never one of them
+    public int dropSegmentsBefore(long position) {
+        if (!isEnabled())
+            return 0;
+        try {
+            List<Path> segments = segments();
+            int dropped = 0;
+            for (int i = 0; i + 1 < segments.size() && baseOf(segments.get(i + 1)) <= position; i++) {
+                Files.deleteIfExists(segments.get(i));
+                dropped++;
+            }
+            if (dropped > 0)
+                log.info("workload journal dropped {} segments before position {}", dropped, position);
+            return dropped;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void sync(long position) {
+        if (durable.get() >= position)
+            return;
+        syncLock.lock();
+        try {
+            // the writer ahead of us may already have forced our frames
+            if (durable.get() >= position)
+                return;
+            long target = written;
+            current.buffer.force();
+            durable.accumulateAndGet(target, Math::max);
+            syncs.incrementAndGet();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void roll() {
+        Segment full = current;
+        long base = full.base + full.buffer.position();
+        try {
+            full.buffer.force();
+            durable.accumulateAndGet(base, Math::max);
+            current = Segment.create(segmentPath(base), base, segmentSize());
+            full.channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("workload journal rolled to segment at position {}", base);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory())) {
+            return files
+                    .filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long base) {
+        return directory().resolve(String.format("%s%020d%s", SEGMENT_PREFIX, base, SEGMENT_SUFFIX));
+    }
+
+    private static long baseOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private int segmentSize() {
+        return (int) properties.getSegmentSize().toBytes();
+    }
+
+    private record Segment(long base, FileChannel channel, MappedByteBuffer buffer) {
+
+        static Segment create(Path path, long base, int size) throws IOException {
+            FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long length = Math.max(size, channel.size());
+            return new Segment(base, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, length));
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.workload_service.overload;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.pool.HikariPool;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// a Hikari pool whose connection wait is cut to RepositoryTimeLimiter's on a limited call and left at the pool's
+// connection-timeout everywhere else; a wait that runs out surfaces as CannotCreateTransactionException, a 503
+public class ConnectionWaitDataSource extends DelegatingDataSource {
+
+    private final HikariDataSource pool;
+
+    public ConnectionWaitDataSource(HikariDataSource pool) {
+        super(pool);
+        this.pool = pool;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Long wait = RepositoryTimeLimiter.connectionWait();
+        // the pool starts on its first connection, which takes the ordinary path
+        if (wait != null && pool.getHikariPoolMXBean() instanceof HikariPool started)
+            return started.getConnection(wait);
+        return super.getConnection();
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.workload_service.overload;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "workload.overload.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class OverloadConfig implements WebMvcConfigurer {
+
+    private final WorkloadAdmissionInterceptor admissionInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(admissionInterceptor).addPathPatterns("/api/workloads", "/api/workloads/**");
+    }
+
+    // the single spring.datasource pool; ShardingConfig wraps each shard's pool itself
+    @Bean
+    static BeanPostProcessor connectionWaitDataSource() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof HikariDataSource pool ? new ConnectionWaitDataSource(pool) : bean;
+            }
+        };
+    }
+}
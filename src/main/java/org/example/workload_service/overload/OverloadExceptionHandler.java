@@ -0,0 +1,40 @@
+package org.example.workload_service.overload;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+// a repository call past its deadline, or one that found no free connection in time, is load to shed as well
+@RestControllerAdvice
+@Slf4j
+public class OverloadExceptionHandler {
+
+    private final Counter timedOut;
+
+    public OverloadExceptionHandler(MeterRegistry meterRegistry) {
+        this.timedOut = Counter.builder("workload.overload.rejected")
+                .description("Workload requests shed under overload")
+                .tag("endpoint", "*")
+                .tag("reason", "timed-out")
+                .register(meterRegistry);
+    }
+
+    @ExceptionHandler({TransactionTimedOutException.class, QueryTimeoutException.class,
+            CannotCreateTransactionException.class, CannotGetJdbcConnectionException.class})
+    public ResponseEntity<Void> timedOut(RuntimeException e) {
+        timedOut.increment();
+        log.debug("repository call shed: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
+    }
+}
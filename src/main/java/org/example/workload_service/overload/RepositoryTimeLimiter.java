@@ -0,0 +1,83 @@
+package org.example.workload_service.overload;
+
+import org.example.workload_service.config.WorkloadProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+// bounds the repository calls of a request with a transaction deadline: Spring hands what is left of it to every JPA
+// query and JdbcTemplate statement as their query timeout and refuses to run one past it. The call stays on the
+// request thread, where its transaction and shard binding live, which a resilience4j TimeLimiter would move off.
+// The wait for a pooled connection is bounded the same way, through ConnectionWaitDataSource, so only these calls
+// are shed when the pool is busy and batches, imports and background jobs wait as long as the pool allows
+@Component
+public class RepositoryTimeLimiter {
+
+    private static final ThreadLocal<Long> CONNECTION_WAIT = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final int timeoutSeconds;
+    private final long connectionWaitMillis;
+    private final TransactionTemplate reads;
+
+    public RepositoryTimeLimiter(PlatformTransactionManager transactionManager, WorkloadProperties properties) {
+        WorkloadProperties.Overload overload = properties.getOverload();
+        Duration timeout = overload.getRepositoryTimeout();
+        this.enabled = overload.isEnabled() && timeout != null && timeout.isPositive();
+        // transaction timeouts count whole seconds
+        this.timeoutSeconds = enabled ? (int) Math.max(1, (timeout.toMillis() + 999) / 1000)
+                : TransactionDefinition.TIMEOUT_DEFAULT;
+        Duration connectionTimeout = overload.getConnectionTimeout();
+        this.connectionWaitMillis = connectionTimeout != null && connectionTimeout.isPositive()
+                ? connectionTimeout.toMillis() : 0;
+        this.reads = limit(new TransactionTemplate(transactionManager));
+        this.reads.setReadOnly(true);
+    }
+
+    // the pool wait of the limited call running on this thread, or null outside one
+    static Long connectionWait() {
+        return CONNECTION_WAIT.get();
+    }
+
+    // a copy of template that times out, or template itself when the limiter is off
+    public TransactionTemplate limit(TransactionTemplate template) {
+        if (!enabled)
+            return template;
+        TransactionTemplate limited = new TransactionTemplate(template.getTransactionManager(), template) {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) throws TransactionException {
+                return withConnectionWait(() -> super.execute(action));
+            }
+        };
+        limited.setTimeout(timeoutSeconds);
+        return limited;
+    }
+
+    // runs work in a read-only transaction that times out; with the limiter off work runs as it would without it
+    public <T> T read(Supplier<T> work) {
+        if (!enabled)
+            return work.get();
+        return reads.execute(status -> work.get());
+    }
+
+    private <T> T withConnectionWait(Supplier<T> work) {
+        if (connectionWaitMillis == 0)
+            return work.get();
+        Long outer = CONNECTION_WAIT.get();
+        CONNECTION_WAIT.set(connectionWaitMillis);
+        try {
+            return work.get();
+        } finally {
+            if (outer == null)
+                CONNECTION_WAIT.remove();
+            else
+                CONNECTION_WAIT.set(outer);
+        }
+    }
+}
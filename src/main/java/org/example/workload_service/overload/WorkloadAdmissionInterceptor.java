@@ -0,0 +1,134 @@
+package org.example.workload_service.overload;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.security.GatewayAuthFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Admits a workload request only while its caller is within its rate and its endpoint's bulkhead has room.
+// Everything past that is answered at once, 429 for a caller over its rate and 503 for a full bulkhead,
+// so excess load is shed before it queues for a connection instead of slowing down the requests let in.
+@Component
+@Slf4j
+public class WorkloadAdmissionInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT = WorkloadAdmissionInterceptor.class.getName() + ".permit";
+
+    private final WorkloadProperties.Overload properties;
+    private final BulkheadRegistry bulkheads;
+    private final RateLimiterRegistry rateLimiters;
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, Admission> admissions = new ConcurrentHashMap<>();
+    private final Cache<String, RateLimiter> callers;
+
+    public WorkloadAdmissionInterceptor(WorkloadProperties properties, BulkheadRegistry bulkheads,
+                                        RateLimiterRegistry rateLimiters, MeterRegistry meterRegistry) {
+        this.properties = properties.getOverload();
+        this.bulkheads = bulkheads;
+        this.rateLimiters = rateLimiters;
+        this.meterRegistry = meterRegistry;
+        this.callers = Caffeine.newBuilder()
+                .maximumSize(this.properties.getMaxCallers())
+                .build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // the dispatch that finishes an async request was admitted together with the one that started it
+        if (request.getDispatcherType() != DispatcherType.REQUEST || !(handler instanceof HandlerMethod method))
+            return true;
+        Admission admission = admissions.computeIfAbsent(method.getMethod(), m -> admissionOf(method));
+
+        String caller = request.getHeader(GatewayAuthFilter.USERNAME_HEADER);
+        if (caller != null && !callerLimiter(admission, caller).acquirePermission()) {
+            admission.rateLimited.increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, admission.retryAfterSeconds);
+            return false;
+        }
+        if (!admission.bulkhead.tryAcquirePermission()) {
+            admission.bulkheadFull.increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1);
+            return false;
+        }
+        request.setAttribute(PERMIT, admission.bulkhead);
+        return true;
+    }
+
+    // a stream handed to another thread gives its permit back once the handler has returned
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        release(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        release(request);
+    }
+
+    private static void release(HttpServletRequest request) {
+        if (request.getAttribute(PERMIT) instanceof Bulkhead bulkhead) {
+            request.removeAttribute(PERMIT);
+            bulkhead.onComplete();
+        }
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds) {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+    }
+
+    // callers share one limiter across every endpoint on the same rate limiter config
+    private RateLimiter callerLimiter(Admission admission, String caller) {
+        return callers.get(admission.rateLimiterName + '|' + caller,
+                key -> RateLimiter.of(key, admission.rateLimiterConfig));
+    }
+
+    private Admission admissionOf(HandlerMethod method) {
+        String endpoint = method.getMethod().getName();
+        WorkloadProperties.Overload.Endpoint override = properties.getEndpoints().get(endpoint);
+        String bulkhead = override != null && override.getBulkhead() != null ? override.getBulkhead()
+                : method.hasMethodAnnotation(GetMapping.class) ? properties.getReadBulkhead()
+                : properties.getWriteBulkhead();
+        String rateLimiter = override != null && override.getRateLimiter() != null ? override.getRateLimiter()
+                : properties.getCallerRateLimiter();
+        RateLimiterConfig config = rateLimiters.getConfiguration(rateLimiter)
+                .orElseGet(rateLimiters::getDefaultConfig);
+        log.debug("endpoint {} admitted through bulkhead {} and rate limiter {}", endpoint, bulkhead, rateLimiter);
+        return new Admission(bulkheads.bulkhead(bulkhead), rateLimiter, config,
+                Math.max(1, (config.getLimitRefreshPeriod().toMillis() + 999) / 1000),
+                rejectedCounter(endpoint, "rate-limited"), rejectedCounter(endpoint, "bulkhead-full"));
+    }
+
+    private Counter rejectedCounter(String endpoint, String reason) {
+        return Counter.builder("workload.overload.rejected")
+                .description("Workload requests shed under overload")
+                .tag("endpoint", endpoint)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private record Admission(Bulkhead bulkhead, String rateLimiterName, RateLimiterConfig rateLimiterConfig,
+                             long retryAfterSeconds, Counter rateLimited, Counter bulkheadFull) {
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.workload_service.respository;
+
+import org.example.workload_service.entity.ProcessedEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface ProcessedEventRepository extends JpaRepository<ProcessedEvent, String> {
+
+    @Query("select e.idempotencyKey from ProcessedEvent e where e.idempotencyKey in :keys")
+    List<String> findExistingKeys(@Param("keys") Collection<String> keys);
+
+    @Query("select e.idempotencyKey from ProcessedEvent e where e.processedAt >= :since")
+    Stream<String> streamKeysProcessedSince(@Param("since") Instant since);
+
+    @Query("select e from ProcessedEvent e where e.idempotencyKey > :after order by e.idempotencyKey")
+    List<ProcessedEvent> findPageAfter(@Param("after") String after, Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ProcessedEvent e where e.processedAt < :cutoff")
+    int deleteProcessedBefore(@Param("cutoff") Instant cutoff);
+}
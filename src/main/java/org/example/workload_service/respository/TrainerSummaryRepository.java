@@ -0,0 +1,60 @@
+package org.example.workload_service.respository;
+
+import lombok.RequiredArgsConstructor;
+import org.example.workload_service.dto.TrainerMonthDays;
+import org.example.workload_service.dto.YearMonthTotals;
+import org.example.workload_service.entity.TrainerWorkload;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class TrainerSummaryRepository {
+
+    // answered from idx_trainer_workload_summary alone, already in year/month order
+    private static final String SELECT_MONTH_TOTALS =
+            "SELECT work_year, work_month, total_duration FROM trainer_workload " +
+            "WHERE username = ? ORDER BY work_year, work_month";
+
+    // the only read that visits the table rows for day_totals, the month reads above stay on the index
+    private static final String SELECT_MONTH_DAYS =
+            "SELECT work_year, work_month, total_duration, day_totals FROM trainer_workload " +
+            "WHERE username = ? AND work_year BETWEEN ? AND ? AND work_year * 12 + work_month - 1 BETWEEN ? AND ? " +
+            "ORDER BY work_year, work_month";
+
+    private static final String SELECT_TRAINER =
+            "SELECT first_name, last_name, is_active FROM trainer_workload WHERE username = ? LIMIT 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public YearMonthTotals findMonthTotals(String username) {
+        YearMonthTotals totals = new YearMonthTotals();
+        RowCallbackHandler handler = rs -> totals.add(rs.getInt(1), rs.getInt(2), rs.getInt(3));
+        jdbcTemplate.query(SELECT_MONTH_TOTALS, handler, username);
+        return totals;
+    }
+
+    // the year bounds keep the range on the index, the key bounds trim the edge months
+    public List<TrainerMonthDays> findMonthDays(String username, int fromYear, int toYear, int fromKey, int toKey) {
+        return jdbcTemplate.query(SELECT_MONTH_DAYS, (rs, n) -> new TrainerMonthDays(
+                rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getBytes(4)),
+                username, fromYear, toYear, fromKey, toKey);
+    }
+
+    // only the name and status columns are filled in
+    public Optional<TrainerWorkload> findTrainer(String username) {
+        List<TrainerWorkload> trainers = jdbcTemplate.query(SELECT_TRAINER, (rs, n) -> {
+            TrainerWorkload trainer = new TrainerWorkload();
+            trainer.setUsername(username);
+            trainer.setFirstName(rs.getString(1));
+            trainer.setLastName(rs.getString(2));
+            trainer.setActive(rs.getObject(3, Boolean.class));
+            return trainer;
+        }, username);
+        return trainers.stream().findFirst();
+    }
+}
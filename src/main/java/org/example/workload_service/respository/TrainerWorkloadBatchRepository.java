@@ -0,0 +1,162 @@
+package org.example.workload_service.respository;
+
+import lombok.RequiredArgsConstructor;
+import org.example.workload_service.entity.TrainerWorkload;
+import org.example.workload_service.service.WorkloadMonthKey;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+@Repository
+@RequiredArgsConstructor
+public class TrainerWorkloadBatchRepository {
+
+    private static final String UPDATE_TOTAL =
+            "UPDATE trainer_workload SET total_duration = ?, day_totals = ?, version = version + 1 " +
+            "WHERE id = ? AND version = ?";
+
+    private static final String INSERT =
+            "INSERT INTO trainer_workload " +
+            "(username, first_name, last_name, is_active, work_year, work_month, total_duration, day_totals, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private static final String UPSERT =
+            "MERGE INTO trainer_workload t " +
+            "USING (VALUES (?, ?, ?, ?, ?, ?, ?, CAST(? AS VARBINARY(62)))) " +
+            "s(username, first_name, last_name, is_active, work_year, work_month, total_duration, day_totals) " +
+            "ON t.username = s.username AND t.work_year = s.work_year AND t.work_month = s.work_month " +
+            "WHEN MATCHED THEN UPDATE SET total_duration = s.total_duration, day_totals = s.day_totals, " +
+            "version = t.version + 1 " +
+            "WHEN NOT MATCHED THEN INSERT " +
+            "(username, first_name, last_name, is_active, work_year, work_month, total_duration, day_totals, version) " +
+            "VALUES (s.username, s.first_name, s.last_name, s.is_active, s.work_year, s.work_month, s.total_duration, " +
+            "s.day_totals, 0)";
+
+    private static final String SELECT_ALL =
+            "SELECT username, first_name, last_name, is_active, work_year, work_month, total_duration, day_totals " +
+            "FROM trainer_workload";
+
+    // joined from a VALUES list so each key is one lookup on uk_trainer_workload_month
+    private static final String SELECT_MONTHS =
+            "SELECT t.id, t.username, t.first_name, t.last_name, t.is_active, t.work_year, t.work_month, " +
+            "t.total_duration, t.day_totals, t.version " +
+            "FROM (VALUES %s) k(username, work_year, work_month) " +
+            "JOIN trainer_workload t ON t.username = k.username AND t.work_year = k.work_year " +
+            "AND t.work_month = k.work_month";
+
+    private static final int MONTHS_PER_SELECT = 500;
+
+    private static final String DELETE_ALL = "DELETE FROM trainer_workload";
+
+    private static final String DELETE_TRAINER = "DELETE FROM trainer_workload WHERE username = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void updateTotals(List<TrainerWorkload> workloads) {
+        if (workloads.isEmpty())
+            return;
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_TOTAL, workloads, workloads.size(), (ps, w) -> {
+            ps.setInt(1, w.getTotalDuration());
+            ps.setBytes(2, w.getDayTotals());
+            ps.setLong(3, w.getId());
+            ps.setLong(4, w.getVersion());
+        });
+        for (int[] batch : counts)
+            for (int count : batch)
+                if (count == 0)
+                    throw new OptimisticLockingFailureException("trainer_workload row changed during batch update");
+    }
+
+    public void insert(List<TrainerWorkload> workloads) {
+        if (workloads.isEmpty())
+            return;
+        jdbcTemplate.batchUpdate(INSERT, workloads, workloads.size(), (ps, w) -> {
+            ps.setString(1, w.getUsername());
+            ps.setString(2, w.getFirstName());
+            ps.setString(3, w.getLastName());
+            ps.setObject(4, w.getActive());
+            ps.setInt(5, w.getYear());
+            ps.setInt(6, w.getMonth());
+            ps.setInt(7, w.getTotalDuration());
+            ps.setBytes(8, w.getDayTotals());
+        });
+    }
+
+    public void upsertTotals(List<TrainerWorkload> workloads) {
+        if (workloads.isEmpty())
+            return;
+        jdbcTemplate.batchUpdate(UPSERT, workloads, workloads.size(), (ps, w) -> {
+            ps.setString(1, w.getUsername());
+            ps.setString(2, w.getFirstName());
+            ps.setString(3, w.getLastName());
+            ps.setObject(4, w.getActive());
+            ps.setInt(5, w.getYear());
+            ps.setInt(6, w.getMonth());
+            ps.setInt(7, w.getTotalDuration());
+            ps.setBytes(8, w.getDayTotals());
+        });
+    }
+
+    // only the given trainer months, none of the trainers' other months or their day totals
+    public List<TrainerWorkload> findMonths(Collection<WorkloadMonthKey> keys) {
+        List<WorkloadMonthKey> all = List.copyOf(keys);
+        List<TrainerWorkload> rows = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += MONTHS_PER_SELECT) {
+            List<WorkloadMonthKey> part = all.subList(from, Math.min(all.size(), from + MONTHS_PER_SELECT));
+            String sql = SELECT_MONTHS.formatted(String.join(", ", Collections.nCopies(part.size(), "(?, ?, ?)")));
+            Object[] args = new Object[part.size() * 3];
+            for (int i = 0; i < part.size(); i++) {
+                args[3 * i] = part.get(i).username();
+                args[3 * i + 1] = part.get(i).year();
+                args[3 * i + 2] = part.get(i).month();
+            }
+            rows.addAll(jdbcTemplate.query(sql, (rs, n) -> {
+                TrainerWorkload w = new TrainerWorkload();
+                w.setId(rs.getLong(1));
+                w.setUsername(rs.getString(2));
+                w.setFirstName(rs.getString(3));
+                w.setLastName(rs.getString(4));
+                w.setActive(rs.getObject(5, Boolean.class));
+                w.setYear(rs.getInt(6));
+                w.setMonth(rs.getInt(7));
+                w.setTotalDuration(rs.getInt(8));
+                w.setDayTotals(rs.getBytes(9));
+                w.setVersion(rs.getLong(10));
+                return w;
+            }, args));
+        }
+        return rows;
+    }
+
+    public void deleteAll() {
+        jdbcTemplate.update(DELETE_ALL);
+    }
+
+    public void deleteTrainers(Collection<String> usernames) {
+        if (usernames.isEmpty())
+            return;
+        jdbcTemplate.batchUpdate(DELETE_TRAINER, usernames, usernames.size(),
+                (ps, username) -> ps.setString(1, username));
+    }
+
+    public void forEachRow(Consumer<TrainerWorkload> consumer) {
+        jdbcTemplate.query(SELECT_ALL, rs -> {
+            TrainerWorkload w = new TrainerWorkload();
+            w.setUsername(rs.getString(1));
+            w.setFirstName(rs.getString(2));
+            w.setLastName(rs.getString(3));
+            w.setActive(rs.getObject(4, Boolean.class));
+            w.setYear(rs.getInt(5));
+            w.setMonth(rs.getInt(6));
+            w.setTotalDuration(rs.getInt(7));
+            w.setDayTotals(rs.getBytes(8));
+            consumer.accept(w);
+        });
+    }
+}
@@ -0,0 +1,162 @@
+package org.example.workload_service.respository;
+
+import lombok.RequiredArgsConstructor;
+import org.example.workload_service.dto.TrainerMonthTotal;
+import org.example.workload_service.sharding.WorkloadShards;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+@Repository
+@RequiredArgsConstructor
+public class TrainerWorkloadExportRepository {
+
+    // walks uk_trainer_workload_month, so the order costs no sort
+    private static final String SELECT_ALL =
+            "SELECT username, first_name, last_name, is_active, work_year, work_month, total_duration " +
+            "FROM trainer_workload ORDER BY username, work_year, work_month";
+
+    private static final Comparator<TrainerMonthTotal> ORDER = Comparator.comparing(TrainerMonthTotal::username)
+            .thenComparingInt(TrainerMonthTotal::year)
+            .thenComparingInt(TrainerMonthTotal::month);
+
+    // marks the end of a shard's rows in its feed
+    private static final TrainerMonthTotal END = new TrainerMonthTotal(null, null, null, null, 0, 0, 0);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final WorkloadShards shards;
+
+    // forward-only cursor; the consumer sees each row once and nothing is kept, so memory does not grow with the table
+    public long forEachMonthTotal(int fetchSize, Consumer<TrainerMonthTotal> consumer) {
+        return shards.count() == 1 ? cursor(fetchSize, consumer) : merge(fetchSize, consumer);
+    }
+
+    // one cursor per shard, each read on its own thread into a queue of one fetch; the consumer takes the lowest head,
+    // so rows come out in the same order as from a single table and memory stays at one fetch per shard
+    private long merge(int fetchSize, Consumer<TrainerMonthTotal> consumer) {
+        List<Feed> feeds = new ArrayList<>(shards.count());
+        for (int shard = 0; shard < shards.count(); shard++) {
+            Feed feed = new Feed(fetchSize);
+            shards.async(shard, () -> feed.fill(fetchSize));
+            feeds.add(feed);
+        }
+        PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparing(Head::row, ORDER));
+        long count = 0;
+        try {
+            for (Feed feed : feeds)
+                feed.next().ifPresent(row -> heads.add(new Head(row, feed)));
+            while (!heads.isEmpty()) {
+                Head head = heads.poll();
+                consumer.accept(head.row());
+                count++;
+                head.feed().next().ifPresent(row -> heads.add(new Head(row, head.feed())));
+            }
+            return count;
+        } finally {
+            // a consumer that stops early, like a disconnected download, releases the cursors still open
+            feeds.forEach(Feed::cancel);
+        }
+    }
+
+    private long cursor(int fetchSize, Consumer<TrainerMonthTotal> consumer) {
+        Long rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            // without lazy execution H2 materialises the whole result before the first next()
+            boolean h2 = "H2".equals(connection.getMetaData().getDatabaseProductName());
+            if (h2)
+                setLazy(connection, true);
+            try (PreparedStatement ps = connection.prepareStatement(SELECT_ALL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(fetchSize);
+                long count = 0;
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        consumer.accept(new TrainerMonthTotal(rs.getString(1), rs.getString(2), rs.getString(3),
+                                rs.getObject(4, Boolean.class), rs.getInt(5), rs.getInt(6), rs.getInt(7)));
+                        count++;
+                    }
+                }
+                return count;
+            } finally {
+                if (h2)
+                    setLazy(connection, false);
+            }
+        });
+        return rows == null ? 0 : rows;
+    }
+
+    private static void setLazy(Connection connection, boolean lazy) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET LAZY_QUERY_EXECUTION " + (lazy ? "TRUE" : "FALSE"));
+        }
+    }
+
+    private record Head(TrainerMonthTotal row, Feed feed) {
+    }
+
+    private final class Feed {
+
+        private final BlockingQueue<TrainerMonthTotal> rows;
+        private volatile boolean cancelled;
+        private volatile RuntimeException failure;
+
+        Feed(int capacity) {
+            this.rows = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        }
+
+        void fill(int fetchSize) {
+            try {
+                cursor(fetchSize, this::put);
+            } catch (RuntimeException e) {
+                failure = e;
+            } finally {
+                put(END);
+            }
+        }
+
+        private void put(TrainerMonthTotal row) {
+            try {
+                while (!rows.offer(row, 100, TimeUnit.MILLISECONDS))
+                    if (cancelled)
+                        throw new CancellationException("export consumer stopped");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("export cursor interrupted");
+            }
+        }
+
+        Optional<TrainerMonthTotal> next() {
+            TrainerMonthTotal row;
+            try {
+                row = rows.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while merging shard exports", e);
+            }
+            if (row != END)
+                return Optional.of(row);
+            if (failure != null)
+                throw failure;
+            return Optional.empty();
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -1,9 +1,17 @@
 package org.example.workload_service.respository;
 
+import org.example.workload_service.dto.TrainerMonthTotal;
+import org.example.workload_service.dto.TrainerRankingEntry;
 import org.example.workload_service.entity.TrainerWorkload;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,7 +25,56 @@ public interface TrainerWorkloadRepository extends JpaRepository<TrainerWorkload
     );
     List<TrainerWorkload> findByUsername(String username);
 
+    @Query("select w.totalDuration from TrainerWorkload w " +
+            "where w.username = :username and w.year = :year and w.month = :month")
+    Optional<Integer> findTotalDuration(@Param("username") String username,
+                                        @Param("year") int year,
+                                        @Param("month") int month);
+
     Boolean existsTrainerWorkloadByUsername(String username);
 
-    Boolean existsByIdempotencyKey(String idempotencyKey);
+    // the 16-bit slot of :day in day_totals (see MonthDays) with :delta added and clamped to 0..65535, the other 60
+    // bytes copied around it, so the day moves in the same statement and under the same row lock as the month total
+    String DAYS = "COALESCE(day_totals, CAST(X'' AS BINARY(62)))";
+    String ADD_TO_DAY = "SUBSTRING(" + DAYS + " FROM 1 FOR 2 * (:day - 1)) || " +
+            "SUBSTRING(CAST(CAST(LEAST(65535, GREATEST(0, " +
+            "CAST(X'0000' || SUBSTRING(" + DAYS + " FROM 2 * :day - 1 FOR 2) AS INT) + :delta)) AS INT) AS BINARY(4)) " +
+            "FROM 3 FOR 2) || " +
+            "SUBSTRING(" + DAYS + " FROM 2 * :day + 1)";
+
+    // delta is negative for a DELETE, which only applies while the month holds at least that much
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(nativeQuery = true, value = "update trainer_workload set total_duration = total_duration + :delta, " +
+            "day_totals = " + ADD_TO_DAY + ", version = version + 1 " +
+            "where username = :username and work_year = :year and work_month = :month " +
+            "and total_duration + :delta >= 0")
+    int addDuration(@Param("username") String username,
+                    @Param("year") int year,
+                    @Param("month") int month,
+                    @Param("day") int day,
+                    @Param("delta") int delta);
+
+    // the year bounds keep the range on the (username, work_year, work_month) index, the key bounds trim the edge months
+    @Query("select new org.example.workload_service.dto.TrainerMonthTotal(" +
+            "w.username, w.firstName, w.lastName, w.active, w.year, w.month, w.totalDuration) " +
+            "from TrainerWorkload w " +
+            "where w.username in :usernames " +
+            "and w.year between :fromYear and :toYear " +
+            "and w.year * 12 + w.month - 1 between :fromKey and :toKey " +
+            "order by w.username, w.year, w.month")
+    List<TrainerMonthTotal> findMonthTotals(@Param("usernames") Collection<String> usernames,
+                                            @Param("fromYear") int fromYear,
+                                            @Param("toYear") int toYear,
+                                            @Param("fromKey") int fromKey,
+                                            @Param("toKey") int toKey);
+
+    @Query(value = "select new org.example.workload_service.dto.TrainerRankingEntry(" +
+            "w.username, w.firstName, w.lastName, w.totalDuration) " +
+            "from TrainerWorkload w " +
+            "where w.year = :year and w.month = :month " +
+            "order by w.totalDuration desc, w.username",
+            countQuery = "select count(w) from TrainerWorkload w where w.year = :year and w.month = :month")
+    Page<TrainerRankingEntry> findRanking(@Param("year") int year,
+                                          @Param("month") int month,
+                                          Pageable pageable);
 }
@@ -4,7 +4,7 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import org.example.workload_service.config.WorkloadProperties;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -14,37 +14,84 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
-@RequiredArgsConstructor
 public class GatewayAuthFilter extends OncePerRequestFilter {
 
+    public static final String USERNAME_HEADER = "X-Auth-Username";
+    static final String ROLES_HEADER = "X-Auth-Roles";
+
+    private final int rolesCacheSize;
+    private final boolean authenticationDetails;
+    private final WebAuthenticationDetailsSource detailsSource = new WebAuthenticationDetailsSource();
+
+    // the gateway sends a handful of distinct role sets, so a full cache just stops admitting
+    // new values instead of evicting; anything past the bound is parsed per request
+    private final Map<String, List<GrantedAuthority>> rolesCache = new ConcurrentHashMap<>();
+
+    public GatewayAuthFilter(WorkloadProperties properties) {
+        this.rolesCacheSize = properties.getGateway().getRolesCacheSize();
+        this.authenticationDetails = properties.getGateway().isAuthenticationDetails();
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
 
-        String username = request.getHeader("X-Auth-Username");
-        String rolesHeader = request.getHeader("X-Auth-Roles");
+        String username = request.getHeader(USERNAME_HEADER);
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            List<GrantedAuthority> authorities = List.of();
-
-            if (rolesHeader != null && !rolesHeader.isBlank()) {
-                authorities = Arrays.stream(rolesHeader.split(","))
-                        .map(SimpleGrantedAuthority::new)
-                        .collect(Collectors.toList());
-            }
-
-            UsernamePasswordAuthenticationToken auth =
-                    new UsernamePasswordAuthenticationToken(username, null, authorities);
-            auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
+                    username, null, authorities(request.getHeader(ROLES_HEADER)));
+            if (authenticationDetails)
+                auth.setDetails(detailsSource.buildDetails(request));
             SecurityContextHolder.getContext().setAuthentication(auth);
         }
 
         filterChain.doFilter(request, response);
     }
+
+    List<GrantedAuthority> authorities(String rolesHeader) {
+        if (rolesHeader == null || rolesHeader.isEmpty())
+            return List.of();
+        List<GrantedAuthority> authorities = rolesCache.get(rolesHeader);
+        if (authorities != null)
+            return authorities;
+        authorities = parseRoles(rolesHeader);
+        if (rolesCache.size() < rolesCacheSize)
+            rolesCache.putIfAbsent(rolesHeader, authorities);
+        return authorities;
+    }
+
+    int cachedRoleSets() {
+        return rolesCache.size();
+    }
+
+    // walks the header once instead of a regex split; blank entries are skipped rather than
+    // turned into an empty authority, which SimpleGrantedAuthority rejects
+    static List<GrantedAuthority> parseRoles(String header) {
+        List<GrantedAuthority> authorities = new ArrayList<>(4);
+        int length = header.length();
+        int start = 0;
+        while (start <= length) {
+            int end = header.indexOf(',', start);
+            if (end < 0)
+                end = length;
+            int from = start;
+            int to = end;
+            while (from < to && Character.isWhitespace(header.charAt(from)))
+                from++;
+            while (to > from && Character.isWhitespace(header.charAt(to - 1)))
+                to--;
+            if (from < to)
+                authorities.add(new SimpleGrantedAuthority(header.substring(from, to)));
+            start = end + 1;
+        }
+        return List.copyOf(authorities);
+    }
 }
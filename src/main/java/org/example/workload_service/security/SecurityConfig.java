@@ -3,6 +3,7 @@ package org.example.workload_service.security;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -17,6 +18,9 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @RequiredArgsConstructor
 public class SecurityConfig {
 
+    // granted through the gateway's X-Auth-Roles header as ROLE_ADMIN
+    static final String ADMIN_ROLE = "ADMIN";
+
     private final GatewayAuthFilter gatewayAuthFilter;
 
     @Bean
@@ -33,6 +37,8 @@ public class SecurityConfig {
                                 "/swagger-ui.html",
                                 "/error"
                         ).permitAll()
+                        // changing the trace sampling rate is an operator action, reading it is not
+                        .requestMatchers(HttpMethod.POST, "/actuator/tracesampling").hasRole(ADMIN_ROLE)
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(s ->
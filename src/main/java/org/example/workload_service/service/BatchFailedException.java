@@ -0,0 +1,19 @@
+package org.example.workload_service.service;
+
+import lombok.Getter;
+import org.example.workload_service.dto.BatchItemResult;
+
+import java.util.List;
+
+// a batch that threw part way: FAILED results rolled back and may be resent, every other result is stored even though
+// something after its commit (the journal or a listener) failed
+@Getter
+public class BatchFailedException extends RuntimeException {
+
+    private final List<BatchItemResult> results;
+
+    public BatchFailedException(List<BatchItemResult> results, RuntimeException cause) {
+        super(cause.getMessage(), cause);
+        this.results = results;
+    }
+}
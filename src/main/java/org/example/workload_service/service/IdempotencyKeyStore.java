@@ -0,0 +1,187 @@
+package org.example.workload_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.entity.ProcessedEvent;
+import org.example.workload_service.respository.ProcessedEventRepository;
+import org.example.workload_service.sharding.WorkloadShards;
+import org.example.workload_service.support.BloomFilter;
+import org.example.workload_service.support.RecentKeyCache;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@Component
+@Slf4j
+public class IdempotencyKeyStore {
+
+    private final ProcessedEventRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final WorkloadProperties.Idempotency properties;
+    private final RecentKeyCache recentKeys;
+    private final WorkloadShards shards;
+
+    // keys are only ever added; rotating once per TTL drops bits for keys the purge job has expired
+    private volatile BloomFilter current;
+    private volatile BloomFilter previous;
+
+    private final Counter recentHits;
+    private final Counter storeHits;
+    private final Counter bloomMisses;
+    private final Counter falsePositives;
+
+    public IdempotencyKeyStore(ProcessedEventRepository repository,
+                               TransactionTemplate transactionTemplate,
+                               WorkloadProperties properties,
+                               WorkloadShards shards,
+                               MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.shards = shards;
+        this.properties = properties.getIdempotency();
+        this.recentKeys = new RecentKeyCache(this.properties.getRecentKeys());
+        this.current = newFilter();
+        this.previous = newFilter();
+
+        this.recentHits = lookupCounter(meterRegistry, "recent_hit");
+        this.storeHits = lookupCounter(meterRegistry, "store_hit");
+        this.bloomMisses = lookupCounter(meterRegistry, "bloom_miss");
+        this.falsePositives = lookupCounter(meterRegistry, "false_positive");
+        Gauge.builder("workload.idempotency.recent.size", recentKeys, RecentKeyCache::size)
+                .description("Idempotency keys held in the recent-keys cache")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void warmUp() {
+        Instant since = Instant.now().minus(properties.getTtl());
+        // the filter is lock-free, so every shard streams its keys into it at once
+        long loaded = shards.collect(shard -> transactionTemplate.execute(status -> {
+            try (Stream<String> keys = repository.streamKeysProcessedSince(since)) {
+                return keys.mapToLong(key -> {
+                    current.put(key);
+                    return 1;
+                }).sum();
+            }
+        })).stream().mapToLong(Long::longValue).sum();
+        log.info("idempotency bloom filter warmed with {} keys", loaded);
+    }
+
+    public boolean isDuplicate(String key) {
+        if (recentKeys.contains(key)) {
+            recentHits.increment();
+            return true;
+        }
+        if (!mightContain(key)) {
+            bloomMisses.increment();
+            return false;
+        }
+        if (repository.existsById(key)) {
+            storeHits.increment();
+            recentKeys.add(key);
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+
+    public Set<String> findDuplicates(Collection<String> keys) {
+        Set<String> duplicates = new HashSet<>();
+        List<String> candidates = new ArrayList<>();
+        for (String key : keys) {
+            if (recentKeys.contains(key)) {
+                recentHits.increment();
+                duplicates.add(key);
+            } else if (mightContain(key)) {
+                candidates.add(key);
+            } else {
+                bloomMisses.increment();
+            }
+        }
+        if (candidates.isEmpty())
+            return duplicates;
+
+        List<String> stored = repository.findExistingKeys(candidates);
+        storeHits.increment(stored.size());
+        falsePositives.increment(candidates.size() - stored.size());
+        duplicates.addAll(stored);
+        return duplicates;
+    }
+
+    // must run inside the writing transaction so the key and the workload change commit together
+    public void record(String key) {
+        repository.saveAndFlush(new ProcessedEvent(key, Instant.now()));
+        current.put(key);
+        afterCommit(List.of(key));
+    }
+
+    public void recordAll(Collection<String> keys) {
+        if (keys.isEmpty())
+            return;
+        Instant now = Instant.now();
+        repository.saveAllAndFlush(keys.stream().map(key -> new ProcessedEvent(key, now)).toList());
+        keys.forEach(current::put);
+        afterCommit(keys);
+    }
+
+    @Scheduled(fixedDelayString = "${workload.idempotency.purge-interval:PT10M}")
+    public void purgeExpired() {
+        Instant cutoff = Instant.now().minus(properties.getTtl());
+        int purged = shards.collect(shard -> repository.deleteProcessedBefore(cutoff)).stream()
+                .mapToInt(Integer::intValue).sum();
+        if (purged > 0)
+            log.info("purged {} expired idempotency keys", purged);
+    }
+
+    @Scheduled(
+            initialDelayString = "${workload.idempotency.ttl:P7D}",
+            fixedRateString = "${workload.idempotency.ttl:P7D}"
+    )
+    public void rotateFilter() {
+        previous = current;
+        current = newFilter();
+    }
+
+    private boolean mightContain(String key) {
+        return current.mightContain(key) || previous.mightContain(key);
+    }
+
+    // only committed keys go into the recent cache, a rolled back event must still be retryable
+    private void afterCommit(Collection<String> keys) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            keys.forEach(recentKeys::add);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                keys.forEach(recentKeys::add);
+            }
+        });
+    }
+
+    private BloomFilter newFilter() {
+        return new BloomFilter(properties.getExpectedKeys(), properties.getFalsePositiveRate());
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("workload.idempotency.lookups")
+                .description("Idempotency key lookups by where they were answered")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
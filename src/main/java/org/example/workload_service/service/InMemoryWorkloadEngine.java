@@ -0,0 +1,350 @@
+package org.example.workload_service.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.workload_service.Enum.ActionType;
+import org.example.workload_service.Enum.EngineMode;
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.dto.TrainerMonthDays;
+import org.example.workload_service.dto.TrainerWorkloadRequest;
+import org.example.workload_service.dto.TrainerWorkloadResponse;
+import org.example.workload_service.dto.YearMonthTotals;
+import org.example.workload_service.entity.TrainerWorkload;
+import org.example.workload_service.respository.TrainerWorkloadBatchRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+@Slf4j
+public class InMemoryWorkloadEngine {
+
+    // slot 12 of every year array is a bitmask of the months that have a row; the month slots hold the total in
+    // the low 32 bits and the WorkloadVersion of its last change in the high 32, so one CAS moves both
+    private static final int PRESENT = 12;
+    private static final long TOTAL_BITS = 0xFFFFFFFFL;
+
+    public static final int REJECTED = -1;
+
+    private final WorkloadProperties.Engine properties;
+    private final TrainerWorkloadBatchRepository batchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final IdempotencyKeyStore idempotencyStore;
+
+    private final ConcurrentHashMap<String, TrainerTotals> trainers = new ConcurrentHashMap<>();
+    private final Set<WorkloadMonthKey> dirty = ConcurrentHashMap.newKeySet();
+    // idempotency keys of events applied to a cell but not flushed yet; they are stored in the flush that writes the
+    // cell, so a crash loses both or neither
+    private final ConcurrentHashMap<WorkloadMonthKey, Set<String>> pendingKeys = new ConcurrentHashMap<>();
+    // keys from claim() until their flush has committed them, when the store starts answering for them
+    private final Set<String> claimedKeys = ConcurrentHashMap.newKeySet();
+    // writers share it, a flush takes it alone so each cell and its keys are read at the same point
+    private final ReentrantReadWriteLock cutLock = new ReentrantReadWriteLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicLong flushedCells = new AtomicLong();
+
+    public InMemoryWorkloadEngine(WorkloadProperties properties,
+                                  TrainerWorkloadBatchRepository batchRepository,
+                                  TransactionTemplate transactionTemplate,
+                                  IdempotencyKeyStore idempotencyStore) {
+        this.properties = properties.getEngine();
+        this.batchRepository = batchRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.idempotencyStore = idempotencyStore;
+    }
+
+    public boolean isEnabled() {
+        return properties.getMode() == EngineMode.MEMORY;
+    }
+
+    @PostConstruct
+    void warmUp() {
+        if (!isEnabled())
+            return;
+        batchRepository.forEachRow(row -> {
+            TrainerTotals totals = trainers.computeIfAbsent(row.getUsername(), u -> new TrainerTotals());
+            totals.describe(row.getFirstName(), row.getLastName(), row.getActive());
+            AtomicLongArray year = totals.year(row.getYear());
+            year.set(row.getMonth() - 1, row.getTotalDuration());
+            markPresent(year, row.getMonth());
+            if (row.getDayTotals() != null) {
+                AtomicIntegerArray days = totals.days(row.getYear(), row.getMonth());
+                for (int day = 1; day <= MonthDays.DAYS; day++)
+                    days.set(day - 1, MonthDays.get(row.getDayTotals(), day));
+            }
+        });
+        log.info("in-memory workload engine warmed with {} trainers", trainers.size());
+    }
+
+    // drops every cell and reads the table again, used after the table is rebuilt underneath the engine
+    public void reload() {
+        if (!isEnabled())
+            return;
+        flushLock.lock();
+        try {
+            trainers.clear();
+            dirty.clear();
+            pendingKeys.clear();
+            claimedKeys.clear();
+            warmUp();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // false while another event holds the key; a claimed key still has to be checked against the store
+    public boolean claim(String key) {
+        return claimedKeys.add(key);
+    }
+
+    // gives back a key whose event was not applied
+    public void release(String key) {
+        claimedKeys.remove(key);
+    }
+
+    // returns the month total after the event and its version, or REJECTED when a DELETE is larger than the total;
+    // an applied event's idempotency key is stored with the cell, a rejected one's claim is given back
+    public Applied apply(TrainerWorkloadRequest request) {
+        cutLock.readLock().lock();
+        try {
+            return applyToCell(request);
+        } finally {
+            cutLock.readLock().unlock();
+        }
+    }
+
+    private Applied applyToCell(TrainerWorkloadRequest request) {
+        int year = request.getTrainingDate().getYear();
+        int month = request.getTrainingDate().getMonthValue();
+        TrainerTotals totals = trainers.computeIfAbsent(request.getUsername(), u -> new TrainerTotals());
+        totals.describeIfUnknown(request.getFirstName(), request.getLastName(), request.getActive());
+        AtomicLongArray cells = totals.year(year);
+
+        int slot = month - 1;
+        int signed = request.getActionType() == ActionType.ADD ? request.getDuration() : -request.getDuration();
+        int total;
+        long version = 0;
+        long current;
+        do {
+            current = cells.get(slot);
+            if ((int) current + signed < 0) {
+                total = REJECTED;
+                version = 0;
+                break;
+            }
+            total = (int) current + signed;
+            // taken after the read, so a CAS that succeeds has seen every earlier winner and outnumbers their versions
+            version = WorkloadVersion.next();
+        } while (!cells.compareAndSet(slot, current, version << 32 | (total & TOTAL_BITS)));
+        if (total != REJECTED)
+            addToDay(totals.days(year, month), request.getTrainingDate().getDayOfMonth(), signed);
+        markPresent(cells, month);
+        WorkloadMonthKey key = new WorkloadMonthKey(request.getUsername(), year, month);
+        if (request.getIdempotencyKey() != null && total == REJECTED)
+            release(request.getIdempotencyKey());
+        else if (request.getIdempotencyKey() != null)
+            pendingKeys.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(request.getIdempotencyKey());
+        dirty.add(key);
+        return new Applied(total, version);
+    }
+
+    public int total(String username, int year, int month) {
+        TrainerTotals totals = trainers.get(username);
+        AtomicLongArray cells = totals == null ? null : totals.years.get(year);
+        return cells == null ? 0 : (int) cells.get(month - 1);
+    }
+
+    public TrainerWorkloadResponse summary(String username) {
+        return summary(username, MonthRange.ALL);
+    }
+
+    public TrainerWorkloadResponse summary(String username, MonthRange range) {
+        TrainerTotals totals = trainers.get(username);
+        if (totals == null)
+            return null;
+        TrainerWorkloadResponse response = new TrainerWorkloadResponse();
+        response.setUsername(username);
+        response.setFirstName(totals.firstName);
+        response.setLastName(totals.lastName);
+        response.setActive(totals.active);
+
+        YearMonthTotals summary = new YearMonthTotals(totals.years.size());
+        totals.years.forEach((year, cells) -> {
+            int present = (int) cells.get(PRESENT);
+            for (int m = 0; m < 12; m++)
+                if ((present & (1 << m)) != 0 && range.contains(year, m + 1))
+                    summary.add(year, m + 1, (int) cells.get(m));
+        });
+        response.setYearsSummary(summary);
+        return response;
+    }
+
+    // one entry per month of the range that has a row, in year and month order
+    public List<TrainerMonthDays> monthDays(String username, MonthRange range) {
+        TrainerTotals totals = trainers.get(username);
+        if (totals == null)
+            return List.of();
+        List<TrainerMonthDays> months = new ArrayList<>();
+        totals.years.forEach((year, cells) -> {
+            int present = (int) cells.get(PRESENT);
+            for (int m = 1; m <= 12; m++) {
+                if ((present & (1 << (m - 1))) == 0 || !range.contains(year, m))
+                    continue;
+                AtomicIntegerArray days = totals.days.get(dayKey(year, m));
+                months.add(new TrainerMonthDays(year, m, (int) cells.get(m - 1), days == null ? null : encode(days)));
+            }
+        });
+        months.sort(Comparator.comparingInt(TrainerMonthDays::year).thenComparingInt(TrainerMonthDays::month));
+        return months;
+    }
+
+    public int dirtyCells() {
+        return dirty.size();
+    }
+
+    @Scheduled(fixedDelayString = "${workload.engine.flush-interval:PT1S}")
+    public void flush() {
+        if (!isEnabled() || dirty.isEmpty())
+            return;
+        flushLock.lock();
+        try {
+            List<PendingCell> cells = new ArrayList<>();
+            cutLock.writeLock().lock();
+            try {
+                Iterator<WorkloadMonthKey> iterator = dirty.iterator();
+                while (iterator.hasNext()) {
+                    WorkloadMonthKey key = iterator.next();
+                    iterator.remove();
+                    Set<String> keys = pendingKeys.remove(key);
+                    cells.add(new PendingCell(key, snapshot(key), keys == null ? Set.of() : keys));
+                }
+            } finally {
+                cutLock.writeLock().unlock();
+            }
+            for (int from = 0; from < cells.size(); from += properties.getFlushBatchSize())
+                write(cells.subList(from, Math.min(cells.size(), from + properties.getFlushBatchSize())));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void drain() {
+        if (!isEnabled())
+            return;
+        flush();
+        log.info("in-memory workload engine drained, {} cells written in total", flushedCells.get());
+    }
+
+    private void write(List<PendingCell> cells) {
+        List<TrainerWorkload> rows = cells.stream().map(PendingCell::row).toList();
+        List<String> keys = cells.stream().flatMap(cell -> cell.keys().stream()).toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                batchRepository.upsertTotals(rows);
+                idempotencyStore.recordAll(keys);
+            });
+            flushedCells.addAndGet(rows.size());
+            claimedKeys.removeAll(keys);
+        } catch (RuntimeException e) {
+            for (PendingCell cell : cells) {
+                if (!cell.keys().isEmpty())
+                    pendingKeys.computeIfAbsent(cell.key(), k -> ConcurrentHashMap.newKeySet()).addAll(cell.keys());
+                dirty.add(cell.key());
+            }
+            log.warn("write-behind flush of {} cells failed, will retry: {}", rows.size(), e.getMessage());
+        }
+    }
+
+    private TrainerWorkload snapshot(WorkloadMonthKey key) {
+        TrainerTotals totals = trainers.get(key.username());
+        TrainerWorkload row = new TrainerWorkload();
+        row.setUsername(key.username());
+        row.setFirstName(totals.firstName);
+        row.setLastName(totals.lastName);
+        row.setActive(totals.active);
+        row.setYear(key.year());
+        row.setMonth(key.month());
+        row.setTotalDuration((int) totals.year(key.year()).get(key.month() - 1));
+        AtomicIntegerArray days = totals.days.get(dayKey(key.year(), key.month()));
+        row.setDayTotals(days == null ? null : encode(days));
+        return row;
+    }
+
+    private static byte[] encode(AtomicIntegerArray days) {
+        int[] totals = new int[MonthDays.DAYS];
+        for (int day = 0; day < MonthDays.DAYS; day++)
+            totals[day] = days.get(day);
+        return MonthDays.of(totals);
+    }
+
+    private static void addToDay(AtomicIntegerArray days, int day, long delta) {
+        days.updateAndGet(day - 1, current -> MonthDays.saturate(current + delta));
+    }
+
+    private static int dayKey(int year, int month) {
+        return year * 12 + month - 1;
+    }
+
+    private static void markPresent(AtomicLongArray cells, int month) {
+        long bit = 1L << (month - 1);
+        long mask;
+        do {
+            mask = cells.get(PRESENT);
+            if ((mask & bit) != 0)
+                return;
+        } while (!cells.compareAndSet(PRESENT, mask, mask | bit));
+    }
+
+    public record Applied(int total, long version) {
+    }
+
+    private record PendingCell(WorkloadMonthKey key, TrainerWorkload row, Collection<String> keys) {
+    }
+
+    private static final class TrainerTotals {
+
+        private final ConcurrentHashMap<Integer, AtomicLongArray> years = new ConcurrentHashMap<>();
+        // one array of day totals per month, keyed by year * 12 + month - 1
+        private final ConcurrentHashMap<Integer, AtomicIntegerArray> days = new ConcurrentHashMap<>();
+        private volatile String firstName;
+        private volatile String lastName;
+        private volatile Boolean active;
+        private volatile boolean described;
+
+        AtomicLongArray year(int year) {
+            return years.computeIfAbsent(year, y -> new AtomicLongArray(13));
+        }
+
+        AtomicIntegerArray days(int year, int month) {
+            return days.computeIfAbsent(dayKey(year, month), k -> new AtomicIntegerArray(MonthDays.DAYS));
+        }
+
+        void describe(String firstName, String lastName, Boolean active) {
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.active = active;
+            this.described = true;
+        }
+
+        // names come from the first event, matching the database path where only createNew sets them
+        void describeIfUnknown(String firstName, String lastName, Boolean active) {
+            if (!described)
+                describe(firstName, lastName, active);
+        }
+    }
+}
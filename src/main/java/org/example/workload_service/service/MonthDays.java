@@ -0,0 +1,68 @@
+package org.example.workload_service.service;
+
+// the days of one trainer month packed as 31 unsigned 16-bit big-endian totals, 62 bytes a row. The month total
+// stays the authoritative rollup: a day saturates at 65535, a DELETE larger than its day empties the day, and
+// months written before days were kept have no days at all (null)
+public final class MonthDays {
+
+    public static final int DAYS = 31;
+    public static final int BYTES = DAYS * 2;
+
+    private static final int MAX = 0xFFFF;
+
+    private MonthDays() {
+    }
+
+    // day is 1-based; a month without days reads as zero
+    public static int get(byte[] days, int day) {
+        if (days == null)
+            return 0;
+        int i = (day - 1) * 2;
+        return (days[i] & 0xFF) << 8 | days[i + 1] & 0xFF;
+    }
+
+    // returns a copy, so a row Hibernate loaded is never changed in place
+    public static byte[] add(byte[] days, int day, long delta) {
+        byte[] copy = days == null ? new byte[BYTES] : days.clone();
+        set(copy, day, saturate(get(days, day) + delta));
+        return copy;
+    }
+
+    // deltas[day - 1] is added to each day; returns days itself when every delta is zero
+    public static byte[] add(byte[] days, long[] deltas) {
+        byte[] copy = null;
+        for (int day = 1; day <= DAYS; day++) {
+            if (deltas[day - 1] == 0)
+                continue;
+            if (copy == null)
+                copy = days == null ? new byte[BYTES] : days.clone();
+            set(copy, day, saturate(get(days, day) + deltas[day - 1]));
+        }
+        return copy == null ? days : copy;
+    }
+
+    public static byte[] of(int[] totals) {
+        byte[] days = new byte[BYTES];
+        for (int day = 1; day <= DAYS; day++)
+            set(days, day, saturate(totals[day - 1]));
+        return days;
+    }
+
+    public static int[] toArray(byte[] days) {
+        int[] totals = new int[DAYS];
+        for (int day = 1; day <= DAYS; day++)
+            totals[day - 1] = get(days, day);
+        return totals;
+    }
+
+    // the value a day can hold
+    public static int saturate(long total) {
+        return Math.clamp(total, 0, MAX);
+    }
+
+    private static void set(byte[] days, int day, int value) {
+        int i = (day - 1) * 2;
+        days[i] = (byte) (value >>> 8);
+        days[i + 1] = (byte) value;
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.workload_service.service;
+
+import java.time.YearMonth;
+
+// inclusive month range, either end may be open; months are compared as year * 12 + (month - 1)
+public record MonthRange(YearMonth from, YearMonth to) {
+
+    public static final MonthRange ALL = new MonthRange(null, null);
+
+    private static final int MIN_YEAR = 0;
+    private static final int MAX_YEAR = 9999;
+
+    public boolean isAll() {
+        return from == null && to == null;
+    }
+
+    public boolean isValid() {
+        return from == null || to == null || !from.isAfter(to);
+    }
+
+    public int fromYear() {
+        return from == null ? MIN_YEAR : from.getYear();
+    }
+
+    public int toYear() {
+        return to == null ? MAX_YEAR : to.getYear();
+    }
+
+    public int fromKey() {
+        return from == null ? key(MIN_YEAR, 1) : key(from.getYear(), from.getMonthValue());
+    }
+
+    public int toKey() {
+        return to == null ? key(MAX_YEAR, 12) : key(to.getYear(), to.getMonthValue());
+    }
+
+    public boolean contains(int year, int month) {
+        int key = key(year, month);
+        return key >= fromKey() && key <= toKey();
+    }
+
+    private static int key(int year, int month) {
+        return year * 12 + month - 1;
+    }
+}
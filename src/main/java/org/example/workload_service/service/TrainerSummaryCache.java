@@ -0,0 +1,86 @@
+package org.example.workload_service.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.dto.SerializedSummary;
+import org.example.workload_service.dto.TrainerWorkloadResponse;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+@Component
+public class TrainerSummaryCache {
+
+    private final AsyncCache<String, TrainerWorkloadResponse> cache;
+    private final AsyncCache<String, SerializedSummary> jsonCache;
+
+    public TrainerSummaryCache(WorkloadProperties properties, MeterRegistry meterRegistry) {
+        WorkloadProperties.SummaryCache config = properties.getSummaryCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .buildAsync();
+        this.jsonCache = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "trainerSummary");
+        CaffeineCacheMetrics.monitor(meterRegistry, jsonCache.synchronous(), "trainerSummaryJson");
+    }
+
+    // a null from the loader (unknown trainer) is returned but never cached
+    // the loader runs on the caller after the map entry is claimed, never inside the map's bin lock,
+    // so a JDBC load does not pin a virtual thread's carrier; concurrent callers wait on the same future
+    public TrainerWorkloadResponse get(String username, Function<String, TrainerWorkloadResponse> loader) {
+        return load(cache, username, loader);
+    }
+
+    // the serialized summary with its tag, so a 200 is written without touching Jackson again and a tag lives
+    // and expires with the bytes it was taken from
+    public SerializedSummary getSerialized(String username, Function<String, SerializedSummary> loader) {
+        return load(jsonCache, username, loader);
+    }
+
+    public void invalidate(String username) {
+        cache.synchronous().invalidate(username);
+        jsonCache.synchronous().invalidate(username);
+    }
+
+    // invalidation does not wait for an in-flight load; it removes the pending future from the map, so the load
+    // completes for its own callers but is never stored. A loader only reads after it has claimed the entry, so any
+    // load that can have missed the commit holds a future this removes
+    @EventListener
+    public void onWorkloadUpdated(WorkloadUpdatedEvent event) {
+        if (!event.accepted())
+            return;
+        invalidate(event.username());
+    }
+
+    private static <T> T load(AsyncCache<String, T> cache, String username, Function<String, T> loader) {
+        CompletableFuture<T> claimed = new CompletableFuture<>();
+        CompletableFuture<T> future = cache.get(username, (key, executor) -> claimed);
+        if (future == claimed) {
+            try {
+                claimed.complete(loader.apply(username));
+            } catch (RuntimeException e) {
+                claimed.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package org.example.workload_service.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.workload_service.Enum.ActionType;
+import org.example.workload_service.Enum.BatchItemStatus;
+import org.example.workload_service.dto.BatchItemResult;
+import org.example.workload_service.dto.TrainerWorkloadRequest;
+import org.example.workload_service.entity.TrainerWorkload;
+import org.example.workload_service.journal.WorkloadJournal;
+import org.example.workload_service.respository.TrainerWorkloadBatchRepository;
+import org.example.workload_service.sharding.WorkloadShards;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TrainerWorkloadBatchService {
+
+    private final TrainerWorkloadBatchRepository batchRepository;
+    private final WorkloadWriteGuard writeGuard;
+    private final IdempotencyKeyStore idempotencyStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InMemoryWorkloadEngine engine;
+    private final WorkloadJournal journal;
+    private final WorkloadShards shards;
+
+    // throws BatchFailedException once the batch has been tried, which tells the stored events from the rolled back
+    public List<BatchItemResult> processBatch(List<TrainerWorkloadRequest> requests) {
+        if (engine.isEnabled())
+            return settleOrThrow(requests, applyInMemory(requests));
+        return applyToShards(requests);
+    }
+
+    // journals and publishes what one transaction has committed
+    private void settle(List<TrainerWorkloadRequest> requests, BatchOutcome outcome) {
+        journal.append(appliedRequests(requests, outcome.results()));
+        outcome.events().forEach(eventPublisher::publishEvent);
+    }
+
+    private List<BatchItemResult> settleOrThrow(List<TrainerWorkloadRequest> requests, BatchOutcome outcome) {
+        try {
+            settle(requests, outcome);
+        } catch (RuntimeException e) {
+            throw new BatchFailedException(outcome.results(), e);
+        }
+        return outcome.results();
+    }
+
+    private static List<BatchItemResult> rolledBack(List<TrainerWorkloadRequest> requests) {
+        return IntStream.range(0, requests.size())
+                .mapToObj(i -> BatchItemResult.failed(i, requests.get(i), "write rolled back"))
+                .toList();
+    }
+
+    // one transaction per shard, so a batch is all-or-nothing within a shard; the results keep the request positions.
+    // A shard that rolls back marks its events FAILED. Journal and listeners only run for committed shards, and a
+    // failure there is thrown once every shard has had its turn, never turned into FAILED events that are stored
+    private List<BatchItemResult> applyToShards(List<TrainerWorkloadRequest> requests) {
+        List<Integer> positions = IntStream.range(0, requests.size()).boxed().toList();
+        SortedMap<Integer, List<Integer>> parts = shards.partition(positions, i -> requests.get(i).getUsername());
+        if (parts.size() <= 1) {
+            BatchOutcome outcome;
+            try {
+                outcome = applyOnShard(parts.isEmpty() ? 0 : parts.firstKey(), requests);
+            } catch (RuntimeException e) {
+                throw new BatchFailedException(rolledBack(requests), e);
+            }
+            return settleOrThrow(requests, outcome);
+        }
+
+        BatchItemResult[] results = new BatchItemResult[requests.size()];
+        RuntimeException rollback = null;
+        RuntimeException settleFailure = null;
+        int committed = 0;
+        for (Map.Entry<Integer, List<Integer>> entry : parts.entrySet()) {
+            List<Integer> part = entry.getValue();
+            List<TrainerWorkloadRequest> shardRequests = part.stream().map(requests::get).toList();
+            BatchOutcome outcome;
+            try {
+                outcome = applyOnShard(entry.getKey(), shardRequests);
+            } catch (RuntimeException e) {
+                log.warn("batch part of {} events on shard {} rolled back: {}", part.size(), entry.getKey(), e.getMessage());
+                if (rollback == null)
+                    rollback = e;
+                place(rolledBack(shardRequests), part, results);
+                continue;
+            }
+            committed++;
+            try {
+                settle(shardRequests, outcome);
+            } catch (RuntimeException e) {
+                if (settleFailure == null)
+                    settleFailure = e;
+                else
+                    settleFailure.addSuppressed(e);
+            }
+            place(outcome.results(), part, results);
+        }
+        if (committed == 0)
+            throw new BatchFailedException(Arrays.asList(results), rollback);
+        if (settleFailure != null)
+            throw new BatchFailedException(Arrays.asList(results), settleFailure);
+        return Arrays.asList(results);
+    }
+
+    private static void place(List<BatchItemResult> shardResults, List<Integer> part, BatchItemResult[] results) {
+        for (BatchItemResult result : shardResults) {
+            result.setIndex(part.get(result.getIndex()));
+            results[result.getIndex()] = result;
+        }
+    }
+
+    private BatchOutcome applyOnShard(int shard, List<TrainerWorkloadRequest> requests) {
+        Set<String> usernames = usernames(requests);
+        // rows are written with a version check, a conflicting writer makes the guard replay the whole batch
+        return shards.on(shard, () -> writeGuard.executeAll(usernames, () -> applyBatch(requests, usernames)));
+    }
+
+    private BatchOutcome applyBatch(List<TrainerWorkloadRequest> requests, Set<String> usernames) {
+        List<BatchItemResult> results = new ArrayList<>(requests.size());
+        Set<String> seenKeys = loadDuplicateKeys(requests);
+        List<String> appliedKeys = new ArrayList<>();
+        Map<WorkloadMonthKey, MonthTotal> totals = loadTotals(requests);
+
+        for (int i = 0; i < requests.size(); i++) {
+            TrainerWorkloadRequest request = requests.get(i);
+            String rejection = validate(request);
+            if (rejection != null) {
+                results.add(BatchItemResult.rejected(i, request, rejection));
+                continue;
+            }
+            String key = request.getIdempotencyKey();
+            if (key != null && !seenKeys.add(key)) {
+                results.add(BatchItemResult.duplicate(i, request));
+                continue;
+            }
+            MonthTotal total = totals.computeIfAbsent(WorkloadMonthKey.of(request), k -> MonthTotal.create(request, k));
+            if (!total.apply(request.getActionType(), request.getDuration(), request.getTrainingDate().getDayOfMonth())) {
+                results.add(BatchItemResult.rejected(i, request, "duration exceeds month total"));
+                continue;
+            }
+            if (key != null)
+                appliedKeys.add(key);
+            results.add(BatchItemResult.applied(i, request));
+        }
+        idempotencyStore.recordAll(appliedKeys);
+
+        List<TrainerWorkload> updates = new ArrayList<>();
+        List<TrainerWorkload> inserts = new ArrayList<>();
+        List<WorkloadUpdatedEvent> events = new ArrayList<>();
+        // rows were read above and are written with a version check, so no later commit of theirs can be earlier
+        long version = WorkloadVersion.next();
+        for (MonthTotal total : totals.values()) {
+            if (!total.dirty)
+                continue;
+            TrainerWorkload row = total.row;
+            events.add(new WorkloadUpdatedEvent(row.getUsername(), row.getYear(), row.getMonth(),
+                    row.getTotalDuration(), row.getTotalDuration() - total.original, version));
+            if (total.row.getId() == null)
+                inserts.add(total.row);
+            else
+                updates.add(total.row);
+        }
+        batchRepository.updateTotals(updates);
+        batchRepository.insert(inserts);
+
+        log.info("batch of {} events applied: {} rows updated, {} rows created",
+                requests.size(), updates.size(), inserts.size());
+        return new BatchOutcome(results, events);
+    }
+
+    private BatchOutcome applyInMemory(List<TrainerWorkloadRequest> requests) {
+        // keys are claimed in the engine and only looked up here; the engine stores them with the cells they cover
+        List<BatchItemResult> results = new ArrayList<>(requests.size());
+        List<String> claimed = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            TrainerWorkloadRequest request = requests.get(i);
+            String key = request.getIdempotencyKey();
+            String rejection = validate(request);
+            if (rejection != null) {
+                results.add(BatchItemResult.rejected(i, request, rejection));
+            } else if (key != null && !engine.claim(key)) {
+                results.add(BatchItemResult.duplicate(i, request));
+            } else {
+                if (key != null)
+                    claimed.add(key);
+                results.add(null);
+            }
+        }
+        Set<String> stored;
+        try {
+            stored = claimed.isEmpty() ? Set.of() : idempotencyStore.findDuplicates(claimed);
+        } catch (RuntimeException e) {
+            claimed.forEach(engine::release);
+            throw new BatchFailedException(rolledBack(requests), e);
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            TrainerWorkloadRequest request = requests.get(i);
+            if (results.get(i) == null && stored.contains(request.getIdempotencyKey())) {
+                engine.release(request.getIdempotencyKey());
+                results.set(i, BatchItemResult.duplicate(i, request));
+            }
+        }
+
+        List<WorkloadUpdatedEvent> events = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (results.get(i) != null)
+                continue;
+            TrainerWorkloadRequest request = requests.get(i);
+            InMemoryWorkloadEngine.Applied applied = engine.apply(request);
+            if (applied.total() == InMemoryWorkloadEngine.REJECTED) {
+                results.set(i, BatchItemResult.rejected(i, request, "duration exceeds month total"));
+                continue;
+            }
+            WorkloadMonthKey key = WorkloadMonthKey.of(request);
+            int delta = request.getActionType() == ActionType.ADD ? request.getDuration() : -request.getDuration();
+            events.add(new WorkloadUpdatedEvent(key.username(), key.year(), key.month(), applied.total(), delta,
+                    applied.version()));
+            results.set(i, BatchItemResult.applied(i, request));
+        }
+        return new BatchOutcome(results, events);
+    }
+
+    // the whole batch goes to the journal in one group commit
+    private List<TrainerWorkloadRequest> appliedRequests(List<TrainerWorkloadRequest> requests,
+                                                         List<BatchItemResult> results) {
+        List<TrainerWorkloadRequest> applied = new ArrayList<>();
+        for (BatchItemResult result : results)
+            if (result.getStatus() == BatchItemStatus.APPLIED && requests.get(result.getIndex()).getDuration() != 0)
+                applied.add(requests.get(result.getIndex()));
+        return applied;
+    }
+
+    private static Set<String> usernames(List<TrainerWorkloadRequest> requests) {
+        return requests.stream()
+                .map(TrainerWorkloadRequest::getUsername)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    private Set<String> loadDuplicateKeys(List<TrainerWorkloadRequest> requests) {
+        Set<String> keys = requests.stream()
+                .map(TrainerWorkloadRequest::getIdempotencyKey)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (keys.isEmpty())
+            return new HashSet<>();
+        return new HashSet<>(idempotencyStore.findDuplicates(keys));
+    }
+
+    // only the months the batch writes to
+    private Map<WorkloadMonthKey, MonthTotal> loadTotals(List<TrainerWorkloadRequest> requests) {
+        Set<WorkloadMonthKey> keys = requests.stream()
+                .filter(request -> validate(request) == null)
+                .map(WorkloadMonthKey::of)
+                .collect(Collectors.toSet());
+        Map<WorkloadMonthKey, MonthTotal> totals = new HashMap<>();
+        if (keys.isEmpty())
+            return totals;
+        for (TrainerWorkload workload : batchRepository.findMonths(keys))
+            totals.put(WorkloadMonthKey.of(workload), new MonthTotal(workload));
+        return totals;
+    }
+
+    private String validate(TrainerWorkloadRequest request) {
+        if (request.getUsername() == null || request.getUsername().isBlank())
+            return "username is required";
+        if (request.getTrainingDate() == null)
+            return "trainingDate is required";
+        if (request.getActionType() == null)
+            return "actionType is required";
+        if (request.getDuration() < 0)
+            return "duration must not be negative";
+        return null;
+    }
+
+    private record BatchOutcome(List<BatchItemResult> results, List<WorkloadUpdatedEvent> events) {
+    }
+
+    // a row read over JDBC, so no persistence context ever flushes it on its own
+    private static final class MonthTotal {
+
+        private final TrainerWorkload row;
+        private final int original;
+        private boolean dirty;
+
+        private MonthTotal(TrainerWorkload row) {
+            this.row = row;
+            this.original = row.getTotalDuration();
+        }
+
+        static MonthTotal create(TrainerWorkloadRequest request, WorkloadMonthKey key) {
+            TrainerWorkload row = new TrainerWorkload();
+            row.setUsername(key.username());
+            row.setFirstName(request.getFirstName());
+            row.setLastName(request.getLastName());
+            row.setActive(request.getActive());
+            row.setYear(key.year());
+            row.setMonth(key.month());
+            row.setTotalDuration(0);
+            return new MonthTotal(row);
+        }
+
+        boolean apply(ActionType actionType, int duration, int day) {
+            if (actionType == ActionType.ADD) {
+                row.setTotalDuration(row.getTotalDuration() + duration);
+            } else {
+                if (row.getTotalDuration() < duration)
+                    return false;
+                row.setTotalDuration(row.getTotalDuration() - duration);
+            }
+            row.setDayTotals(MonthDays.add(row.getDayTotals(), day, actionType == ActionType.ADD ? duration : -duration));
+            dirty = true;
+            return true;
+        }
+    }
+}
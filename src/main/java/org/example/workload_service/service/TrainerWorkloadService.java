@@ -1,51 +1,213 @@
 package org.example.workload_service.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.workload_service.Enum.ActionType;
+import org.example.workload_service.Enum.WorkloadOperation;
+import org.example.workload_service.dto.SerializedSummary;
+import org.example.workload_service.dto.TrainerMonthTotal;
+import org.example.workload_service.dto.TrainerRankingEntry;
 import org.example.workload_service.dto.TrainerWorkloadRequest;
 import org.example.workload_service.dto.TrainerWorkloadResponse;
+import org.example.workload_service.dto.YearMonthTotals;
 import org.example.workload_service.entity.TrainerWorkload;
+import org.example.workload_service.journal.WorkloadJournal;
+import org.example.workload_service.respository.TrainerSummaryRepository;
 import org.example.workload_service.respository.TrainerWorkloadRepository;
+import org.example.workload_service.overload.RepositoryTimeLimiter;
+import org.example.workload_service.sharding.WorkloadShards;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.SortedMap;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TrainerWorkloadService {
 
+    private static final Comparator<TrainerMonthTotal> MONTH_ORDER = Comparator.comparing(TrainerMonthTotal::username)
+            .thenComparingInt(TrainerMonthTotal::year)
+            .thenComparingInt(TrainerMonthTotal::month);
+
+    // same order as the ranking query
+    private static final Comparator<TrainerRankingEntry> RANKING_ORDER =
+            Comparator.comparingInt(TrainerRankingEntry::totalDuration).reversed()
+                    .thenComparing(TrainerRankingEntry::username);
+
     private final TrainerWorkloadRepository repository;
+    private final TrainerSummaryRepository summaryRepository;
+    private final WorkloadWriteGuard writeGuard;
+    private final IdempotencyKeyStore idempotencyStore;
+    private final TrainerSummaryCache summaryCache;
+    private final InMemoryWorkloadEngine engine;
+    private final WorkloadJournal journal;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final WorkloadMetrics metrics;
+    private final WorkloadShards shards;
+    private final RepositoryTimeLimiter timeLimiter;
 
     public void processWorkload(TrainerWorkloadRequest request) {
 
-        if(request.getIdempotencyKey() != null &&
-            repository.existsByIdempotencyKey(request.getIdempotencyKey())){
-            log.info("duplicate key is identified key: {}", request.getIdempotencyKey());
-            return;
-        }
+        String key = request.getIdempotencyKey();
         int year = request.getTrainingDate().getYear();
         int month = request.getTrainingDate().getMonthValue();
 
-        TrainerWorkload workload = repository
+        WorkloadUpdatedEvent event = engine.isEnabled()
+                ? applyInMemory(request, key, year, month)
+                : applyInDatabase(request, key, year, month);
+        if (event == null) {
+            metrics.duplicateDropped();
+            log.info("duplicate key is identified key: {}", key);
+            return;
+        }
+        // the append comes after the commit and outside the guard: a retried transaction never journals twice, but
+        // a crash between the two keeps the event in the table and not in the journal, and concurrent writers may
+        // journal in another order than they committed (snapshots sum signed durations, so order does not matter).
+        // A --replay-journal rebuild therefore only replaces a table that is lost, never one that is still there
+        if (event.accepted())
+            journal.append(request);
+        else
+            metrics.deleteRejected();
+        eventPublisher.publishEvent(event);
+    }
+
+    private WorkloadUpdatedEvent applyInDatabase(TrainerWorkloadRequest request, String key, int year, int month) {
+        // the key check runs inside the guarded transaction so a retry after a racing insert sees the winner's key;
+        // the key is recorded after the write, in the same transaction, and only when the event was applied
+        return writeGuard.execute(request.getUsername(), () -> {
+            if (key != null && isDuplicateKey(key))
+                return null;
+            WorkloadUpdatedEvent event = writeGuard.isAtomic()
+                    ? applyAtomic(request, year, month)
+                    : applyReadModifyWrite(request, year, month);
+            if (key != null && applied(event, request))
+                metrics.time(WorkloadOperation.IDEMPOTENCY_RECORD, () -> idempotencyStore.record(key));
+            return event;
+        });
+    }
+
+    private WorkloadUpdatedEvent applyInMemory(TrainerWorkloadRequest request, String key, int year, int month) {
+        // the key is only looked up here, the engine stores it in the flush that writes the month total
+        if (key != null && !claimInMemory(key))
+            return null;
+        InMemoryWorkloadEngine.Applied applied = engine.apply(request);
+        if (applied.total() == InMemoryWorkloadEngine.REJECTED)
+            return updated(request, year, month, engine.total(request.getUsername(), year, month), false, 0);
+        return updated(request, year, month, applied.total(), true, applied.version());
+    }
+
+    private boolean isDuplicateKey(String key) {
+        return metrics.time(WorkloadOperation.IDEMPOTENCY_CHECK, () -> idempotencyStore.isDuplicate(key));
+    }
+
+    // a DELETE larger than the month total changes nothing and, as in a batch, leaves its key free for a retry
+    private static boolean applied(WorkloadUpdatedEvent event, TrainerWorkloadRequest request) {
+        return event.accepted() || request.getDuration() == 0;
+    }
+
+    // the engine's claim comes first: a key it has let go of is already committed and the store sees it
+    private boolean claimInMemory(String key) {
+        if (!engine.claim(key))
+            return false;
+        boolean claimed = false;
+        try {
+            claimed = !metrics.time(WorkloadOperation.IDEMPOTENCY_CHECK, () -> idempotencyStore.isDuplicate(key));
+            return claimed;
+        } finally {
+            if (!claimed)
+                engine.release(key);
+        }
+    }
+
+    private WorkloadUpdatedEvent applyReadModifyWrite(TrainerWorkloadRequest request, int year, int month) {
+        TrainerWorkload workload = metrics.time(WorkloadOperation.FIND_MONTH, () -> repository
                 .findByUsernameAndYearAndMonth(
                         request.getUsername(),
                         year,
                         month
-                )
+                ))
                 .orElseGet(() -> createNew(request, year, month));
 
+        boolean accepted = true;
         if (request.getActionType() == ActionType.ADD) {
             workload.setTotalDuration(workload.getTotalDuration() + request.getDuration());
         } else {
             if(workload.getTotalDuration() >= request.getDuration())
                  workload.setTotalDuration(workload.getTotalDuration() - request.getDuration());
+            else
+                accepted = false;
+        }
+        if (accepted)
+            workload.setDayTotals(MonthDays.add(workload.getDayTotals(),
+                    request.getTrainingDate().getDayOfMonth(), signedDuration(request)));
+
+        boolean created = workload.getId() == null;
+        metrics.time(WorkloadOperation.SAVE_MONTH, () -> repository.save(workload));
+        if (created)
+            metrics.rowCreated();
+        return updated(request, year, month, workload.getTotalDuration(), accepted, WorkloadVersion.next());
+    }
+
+    private WorkloadUpdatedEvent applyAtomic(TrainerWorkloadRequest request, int year, int month) {
+        String username = request.getUsername();
+        int day = request.getTrainingDate().getDayOfMonth();
+        WorkloadOperation operation = request.getActionType() == ActionType.ADD
+                ? WorkloadOperation.ADD_DURATION : WorkloadOperation.SUBTRACT_DURATION;
+        int updated = metrics.time(operation,
+                () -> repository.addDuration(username, year, month, day, signedDuration(request)));
+        if (updated > 0)
+            return updated(request, year, month, findTotal(username, year, month).orElse(0), true,
+                    WorkloadVersion.next());
+
+        // a DELETE that finds the month but not enough duration is dropped, same as the read-modify-write path
+        if (request.getActionType() != ActionType.ADD) {
+            Optional<Integer> total = findTotal(username, year, month);
+            if (total.isPresent())
+                return updated(request, year, month, total.get(), false, 0);
+        }
+
+        // a concurrent insert of the same month hits the unique key and the write guard retries as an update
+        TrainerWorkload workload = createNew(request, year, month);
+        boolean accepted = request.getActionType() == ActionType.ADD;
+        if (accepted) {
+            workload.setTotalDuration(request.getDuration());
+            workload.setDayTotals(MonthDays.add(null, request.getTrainingDate().getDayOfMonth(), request.getDuration()));
         }
+        metrics.time(WorkloadOperation.INSERT_MONTH, () -> repository.saveAndFlush(workload));
+        metrics.rowCreated();
+        return updated(request, year, month, workload.getTotalDuration(), accepted, WorkloadVersion.next());
+    }
+
+    private static int signedDuration(TrainerWorkloadRequest request) {
+        return request.getActionType() == ActionType.ADD ? request.getDuration() : -request.getDuration();
+    }
+
+    private Optional<Integer> findTotal(String username, int year, int month) {
+        return metrics.time(WorkloadOperation.FIND_TOTAL, () -> repository.findTotalDuration(username, year, month));
+    }
 
-        repository.save(workload);
+    private static WorkloadUpdatedEvent updated(TrainerWorkloadRequest request, int year, int month,
+                                                int total, boolean accepted, long version) {
+        int delta = !accepted ? 0
+                : request.getActionType() == ActionType.ADD ? request.getDuration() : -request.getDuration();
+        return new WorkloadUpdatedEvent(request.getUsername(), year, month, total, delta, version);
     }
 
     private TrainerWorkload createNew(
@@ -68,22 +230,149 @@ public class TrainerWorkloadService {
         return workload;
     }
     public TrainerWorkloadResponse getSummary(String username){
-        String[] months = new String[]{"Jan","Feb","Mar","Apr","May","Jun","Jul","Aug","Sep","Oct","Nov","Dec"};
-        List<TrainerWorkload> workloads = repository.findByUsername(username);
-        TrainerWorkloadResponse response = new TrainerWorkloadResponse();
-        if(!repository.existsTrainerWorkloadByUsername(username))
+        TrainerWorkloadResponse summary = engine.isEnabled()
+                ? engine.summary(username)
+                : summaryCache.get(username, name -> shards.onShardOf(name, () -> timeLimiter.read(() -> loadSummary(name))));
+        if (summary != null)
+            metrics.summaryServed(summary.getYearsSummary());
+        return summary;
+    }
+
+    // the tag is a hash of the JSON, so every replica holding the same totals hands out the same tag and one that
+    // missed a write stops matching once its cached bytes are replaced
+    public SerializedSummary getSerializedSummary(String username){
+        return summaryCache.getSerialized(username, this::serialize);
+    }
+
+    private SerializedSummary serialize(String username){
+        TrainerWorkloadResponse summary = getSummary(username);
+        if (summary == null)
             return null;
-        response.setFirstName(workloads.getFirst().getFirstName());
-        response.setLastName(workloads.getFirst().getLastName());
-        response.setActive(workloads.getFirst().getActive());
-        response.setUsername(username);
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(summary);
+            return new SerializedSummary(etagOf(json), json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("could not serialize summary of " + username, e);
+        }
+    }
 
-        Map<Integer, Map<String,Integer>> map = response.getYearsSummary();
-        workloads.forEach(trainerWorkload -> {
-            map.putIfAbsent(trainerWorkload.getYear(),new HashMap<>());
-            map.get(trainerWorkload.getYear()).put(months[trainerWorkload.getMonth() - 1],trainerWorkload.getTotalDuration());
-        });
+    private static String etagOf(byte[] json){
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 12) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required of every JVM", e);
+        }
+    }
+
+    // ranged reads skip the cache, which only holds whole histories
+    public TrainerWorkloadResponse getSummary(String username, MonthRange range){
+        if (range.isAll())
+            return getSummary(username);
+        if (engine.isEnabled())
+            return engine.summary(username, range);
+        return shards.onShardOf(username, () -> timeLimiter.read(() -> loadSummary(username, range)));
+    }
+
+    private TrainerWorkloadResponse loadSummary(String username, MonthRange range){
+        List<TrainerWorkloadResponse> found = summarize(findMonthTotals(List.of(username), range));
+        if (!found.isEmpty())
+            return found.getFirst();
+        // a known trainer with nothing in the range gets an empty summary rather than a 404
+        return summaryRepository.findTrainer(username).map(trainer -> {
+            TrainerWorkloadResponse response = new TrainerWorkloadResponse();
+            response.setUsername(username);
+            response.setFirstName(trainer.getFirstName());
+            response.setLastName(trainer.getLastName());
+            response.setActive(trainer.getActive());
+            return response;
+        }).orElse(null);
+    }
 
+    // trainers without a month in the range are left out
+    public List<TrainerWorkloadResponse> getSummaries(Collection<String> usernames, MonthRange range){
+        if (engine.isEnabled())
+            return usernames.stream()
+                    .map(username -> engine.summary(username, range))
+                    .filter(Objects::nonNull)
+                    .filter(response -> !response.getYearsSummary().isEmpty())
+                    .toList();
+        SortedMap<Integer, List<String>> parts = shards.partition(usernames, username -> username);
+        if (parts.size() <= 1) {
+            int shard = parts.isEmpty() ? 0 : parts.firstKey();
+            return summarize(shards.on(shard, () -> timeLimiter.read(() -> findMonthTotals(usernames, range))));
+        }
+        // each shard answers for its own trainers in parallel, the merged rows are put back in username order
+        List<TrainerMonthTotal> rows = new ArrayList<>();
+        shards.collect(shard -> parts.containsKey(shard)
+                        ? timeLimiter.read(() -> findMonthTotals(parts.get(shard), range))
+                        : List.<TrainerMonthTotal>of())
+                .forEach(rows::addAll);
+        rows.sort(MONTH_ORDER);
+        return summarize(rows);
+    }
+
+    private List<TrainerMonthTotal> findMonthTotals(Collection<String> usernames, MonthRange range){
+        return repository.findMonthTotals(usernames, range.fromYear(), range.toYear(), range.fromKey(), range.toKey());
+    }
+
+    // with the in-memory engine this reads the write-behind table, so it trails writes by up to one flush interval
+    public Page<TrainerRankingEntry> getRanking(int year, int month, Pageable pageable){
+        if (shards.count() == 1)
+            return timeLimiter.read(() -> repository.findRanking(year, month, pageable));
+        // the page can only hold entries of each shard's own first offset + size, so that is all a shard is asked for
+        Pageable head = PageRequest.of(0, (int) Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize()));
+        List<Page<TrainerRankingEntry>> pages = shards.collect(
+                shard -> timeLimiter.read(() -> repository.findRanking(year, month, head)));
+        List<TrainerRankingEntry> merged = new ArrayList<>();
+        long total = 0;
+        for (Page<TrainerRankingEntry> page : pages) {
+            merged.addAll(page.getContent());
+            total += page.getTotalElements();
+        }
+        merged.sort(RANKING_ORDER);
+        int from = (int) Math.min(pageable.getOffset(), merged.size());
+        int to = Math.min(from + pageable.getPageSize(), merged.size());
+        return new PageImpl<>(new ArrayList<>(merged.subList(from, to)), pageable, total);
+    }
+
+    // rows arrive ordered by username, year and month, so each trainer is one run of rows
+    private List<TrainerWorkloadResponse> summarize(List<TrainerMonthTotal> rows){
+        List<TrainerWorkloadResponse> responses = new ArrayList<>();
+        TrainerWorkloadResponse current = null;
+        YearMonthTotals totals = null;
+        for (TrainerMonthTotal row : rows) {
+            if (current == null || !current.getUsername().equals(row.username())) {
+                current = new TrainerWorkloadResponse();
+                current.setUsername(row.username());
+                current.setFirstName(row.firstName());
+                current.setLastName(row.lastName());
+                current.setActive(row.active());
+                totals = new YearMonthTotals();
+                current.setYearsSummary(totals);
+                responses.add(current);
+            }
+            totals.add(row.year(), row.month(), row.totalDuration());
+        }
+        return responses;
+    }
+
+    private TrainerWorkloadResponse loadSummary(String username){
+        YearMonthTotals totals = metrics.time(WorkloadOperation.SUMMARY_TOTALS,
+                () -> summaryRepository.findMonthTotals(username));
+        if (totals.isEmpty())
+            return null;
+        Optional<TrainerWorkload> trainer = metrics.time(WorkloadOperation.SUMMARY_TRAINER,
+                () -> summaryRepository.findTrainer(username));
+        if (trainer.isEmpty())
+            return null;
+
+        TrainerWorkloadResponse response = new TrainerWorkloadResponse();
+        response.setUsername(username);
+        response.setFirstName(trainer.get().getFirstName());
+        response.setLastName(trainer.get().getLastName());
+        response.setActive(trainer.get().getActive());
+        response.setYearsSummary(totals);
         return response;
     }
 
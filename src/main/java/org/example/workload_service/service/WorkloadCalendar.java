@@ -0,0 +1,104 @@
+package org.example.workload_service.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.workload_service.dto.DayTotal;
+import org.example.workload_service.dto.TrainerMonthDays;
+import org.example.workload_service.dto.TrainerWorkloadResponse;
+import org.example.workload_service.dto.WeekTotal;
+import org.example.workload_service.dto.YearTotal;
+import org.example.workload_service.overload.RepositoryTimeLimiter;
+import org.example.workload_service.respository.TrainerSummaryRepository;
+import org.example.workload_service.sharding.WorkloadShards;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.List;
+
+// day and week views of one trainer read from the day totals packed into each month row, and the year rollup
+// summed from the cached month summary; months written before days were kept count towards their year only
+@Service
+@RequiredArgsConstructor
+public class WorkloadCalendar {
+
+    private final TrainerWorkloadService service;
+    private final TrainerSummaryRepository summaryRepository;
+    private final InMemoryWorkloadEngine engine;
+    private final WorkloadShards shards;
+    private final RepositoryTimeLimiter timeLimiter;
+
+    // every day from from to to inclusive, or null for an unknown trainer
+    public List<DayTotal> getDays(String username, LocalDate from, LocalDate to) {
+        int[] totals = dayTotals(username, from, to);
+        if (totals == null)
+            return null;
+        List<DayTotal> days = new ArrayList<>(totals.length);
+        for (int i = 0; i < totals.length; i++)
+            days.add(new DayTotal(from.plusDays(i), totals[i]));
+        return days;
+    }
+
+    // every ISO week the range touches, whole weeks from Monday to Sunday
+    public List<WeekTotal> getWeeks(String username, LocalDate from, LocalDate to) {
+        LocalDate start = from.with(DayOfWeek.MONDAY);
+        int[] totals = dayTotals(username, start, to.with(DayOfWeek.SUNDAY));
+        if (totals == null)
+            return null;
+        List<WeekTotal> weeks = new ArrayList<>(totals.length / 7);
+        for (int i = 0; i < totals.length; i += 7) {
+            LocalDate monday = start.plusDays(i);
+            int total = 0;
+            for (int day = i; day < i + 7; day++)
+                total += totals[day];
+            weeks.add(new WeekTotal(monday.get(IsoFields.WEEK_BASED_YEAR),
+                    monday.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR), monday, total));
+        }
+        return weeks;
+    }
+
+    // years in order, or null for an unknown trainer
+    public List<YearTotal> getYears(String username) {
+        TrainerWorkloadResponse summary = service.getSummary(username);
+        if (summary == null)
+            return null;
+        List<YearTotal> years = new ArrayList<>(summary.getYearsSummary().size());
+        summary.getYearsSummary().forEach((year, months) -> years.add(new YearTotal(year,
+                months.values().stream().mapToInt(Integer::intValue).sum())));
+        return years;
+    }
+
+    private int[] dayTotals(String username, LocalDate from, LocalDate to) {
+        List<TrainerMonthDays> months = findMonthDays(username,
+                new MonthRange(YearMonth.from(from), YearMonth.from(to)));
+        if (months == null)
+            return null;
+        int[] totals = new int[(int) (to.toEpochDay() - from.toEpochDay()) + 1];
+        for (TrainerMonthDays month : months) {
+            if (month.dayTotals() == null)
+                continue;
+            LocalDate first = LocalDate.of(month.year(), month.month(), 1);
+            for (int day = 1; day <= first.lengthOfMonth(); day++) {
+                long offset = first.toEpochDay() + day - 1 - from.toEpochDay();
+                if (offset >= 0 && offset < totals.length)
+                    totals[(int) offset] = MonthDays.get(month.dayTotals(), day);
+            }
+        }
+        return totals;
+    }
+
+    private List<TrainerMonthDays> findMonthDays(String username, MonthRange range) {
+        if (engine.isEnabled())
+            return engine.summary(username) == null ? null : engine.monthDays(username, range);
+        return shards.onShardOf(username, () -> timeLimiter.read(() -> {
+            List<TrainerMonthDays> months = summaryRepository.findMonthDays(username,
+                    range.fromYear(), range.toYear(), range.fromKey(), range.toKey());
+            // a known trainer with nothing in the range gets zeros rather than a 404
+            if (months.isEmpty() && summaryRepository.findTrainer(username).isEmpty())
+                return null;
+            return months;
+        }));
+    }
+}
@@ -0,0 +1,195 @@
+package org.example.workload_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.dto.WorkloadChange;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// SSE fan-out of committed month totals; the write path only drops the change into each subscriber's buffer,
+// a tick every coalesce window hands non-empty buffers to a sender so one slow socket never holds up another
+@Component
+@Slf4j
+public class WorkloadChangeStream {
+
+    static final String EVENT_NAME = "workload";
+
+    private final WorkloadProperties.Stream properties;
+    private final Executor sender;
+    private final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+    private final Counter overflows;
+
+    private ScheduledExecutorService ticker;
+    private long lastHeartbeat = System.nanoTime();
+
+    @Autowired
+    public WorkloadChangeStream(WorkloadProperties properties, MeterRegistry meterRegistry) {
+        // each send may block on a slow client, a virtual thread per send keeps that cheap
+        this(properties, meterRegistry, Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    WorkloadChangeStream(WorkloadProperties properties, MeterRegistry meterRegistry, Executor sender) {
+        this.properties = properties.getStream();
+        this.sender = sender;
+        Gauge.builder("workload.stream.subscribers", subscribers, Set::size)
+                .description("Open workload change streams")
+                .register(meterRegistry);
+        this.overflows = Counter.builder("workload.stream.overflows")
+                .description("Change streams closed because their buffer filled up")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("workload-stream").daemon().factory());
+        long window = properties.getCoalesceWindow().toMillis();
+        ticker.scheduleWithFixedDelay(this::flush, window, window, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (ticker != null)
+            ticker.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        if (sender instanceof ExecutorService executor)
+            executor.shutdownNow();
+    }
+
+    // an empty filter follows every trainer; null once the subscriber limit is reached
+    public SseEmitter subscribe(Collection<String> usernames) {
+        return subscribe(usernames, new SseEmitter(properties.getTimeout().toMillis()));
+    }
+
+    SseEmitter subscribe(Collection<String> usernames, SseEmitter emitter) {
+        if (subscribers.size() >= properties.getMaxSubscribers())
+            return null;
+        Subscriber subscriber = new Subscriber(emitter, Set.copyOf(usernames), properties.getBufferSize());
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    @EventListener
+    public void onWorkloadUpdated(WorkloadUpdatedEvent event) {
+        if (!event.accepted() || subscribers.isEmpty())
+            return;
+        WorkloadChange change = new WorkloadChange(event.username(), event.year(), event.month(), event.totalDuration(),
+                event.version());
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.follows(change.username()) || subscriber.offer(change))
+                continue;
+            // a full buffer means the client fell behind; it reconnects and rereads the summaries it cares about
+            // closing takes the emitter's lock, which a blocked send may hold, so it happens off the write path
+            overflows.increment();
+            subscribers.remove(subscriber);
+            sender.execute(() -> subscriber.emitter.completeWithError(
+                    new IllegalStateException("workload change stream buffer overflow")));
+            log.warn("closed a workload change stream after {} undelivered changes", properties.getBufferSize());
+        }
+    }
+
+    void flush() {
+        boolean heartbeat = System.nanoTime() - lastHeartbeat >= properties.getHeartbeat().toNanos();
+        if (heartbeat)
+            lastHeartbeat = System.nanoTime();
+        for (Subscriber subscriber : subscribers)
+            if ((heartbeat || subscriber.hasPending()) && subscriber.sending.compareAndSet(false, true))
+                sender.execute(() -> send(subscriber, heartbeat));
+    }
+
+    private void send(Subscriber subscriber, boolean heartbeat) {
+        try {
+            List<WorkloadChange> changes = subscriber.drain();
+            for (WorkloadChange change : changes)
+                subscriber.emitter.send(SseEmitter.event().name(EVENT_NAME).data(change, MediaType.APPLICATION_JSON));
+            if (changes.isEmpty() && heartbeat)
+                subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+        } catch (IOException | IllegalStateException e) {
+            // the client went away; the emitter callbacks remove it, this covers a send that raced the close
+            subscribers.remove(subscriber);
+        } finally {
+            subscriber.sending.set(false);
+        }
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Set<String> usernames;
+        private final int capacity;
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        // one slot per trainer month, a newer total replaces the pending one in place
+        private Map<WorkloadMonthKey, WorkloadChange> pending = new LinkedHashMap<>();
+        // the slots of the last drain; a change published just before the one already sent can still arrive after it
+        private Map<WorkloadMonthKey, WorkloadChange> sent = Map.of();
+
+        Subscriber(SseEmitter emitter, Set<String> usernames, int capacity) {
+            this.emitter = emitter;
+            this.usernames = usernames;
+            this.capacity = capacity;
+        }
+
+        boolean follows(String username) {
+            return usernames.isEmpty() || usernames.contains(username);
+        }
+
+        synchronized boolean offer(WorkloadChange change) {
+            WorkloadMonthKey key = new WorkloadMonthKey(change.username(), change.year(), change.month());
+            // an older total is dropped rather than put over a newer one
+            if (isOlder(change, pending.get(key)) || isOlder(change, sent.get(key)))
+                return true;
+            if (pending.size() >= capacity && !pending.containsKey(key))
+                return false;
+            pending.put(key, change);
+            return true;
+        }
+
+        synchronized boolean hasPending() {
+            return !pending.isEmpty();
+        }
+
+        synchronized List<WorkloadChange> drain() {
+            if (pending.isEmpty())
+                return List.of();
+            List<WorkloadChange> changes = new ArrayList<>(pending.values());
+            sent = pending;
+            pending = new LinkedHashMap<>();
+            return changes;
+        }
+
+        private static boolean isOlder(WorkloadChange change, WorkloadChange other) {
+            return other != null && other.version() > change.version();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.example.workload_service.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import lombok.extern.slf4j.Slf4j;
+import org.example.workload_service.Enum.ExportFormat;
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.dto.TrainerMonthTotal;
+import org.example.workload_service.respository.TrainerWorkloadExportRepository;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+@Service
+@Slf4j
+public class WorkloadExporter {
+
+    static final String CSV_HEADER = "username,firstName,lastName,active,year,month,totalDuration\n";
+
+    private final TrainerWorkloadExportRepository exportRepository;
+    private final WorkloadProperties.Export properties;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public WorkloadExporter(TrainerWorkloadExportRepository exportRepository, WorkloadProperties properties) {
+        this.exportRepository = exportRepository;
+        this.properties = properties.getExport();
+    }
+
+    // every row goes straight from the cursor into the stream; the caller owns and closes out
+    public long export(ExportFormat format, OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        long rows;
+        try {
+            rows = format == ExportFormat.CSV ? exportCsv(out) : exportNdjson(out);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        log.info("exported {} workload rows as {} in {} ms", rows, format, (System.nanoTime() - started) / 1_000_000);
+        return rows;
+    }
+
+    private long exportNdjson(OutputStream out) throws IOException {
+        try (JsonGenerator json = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+            long rows = exportRepository.forEachMonthTotal(properties.getFetchSize(), row -> {
+                try {
+                    json.writeStartObject();
+                    json.writeStringField("username", row.username());
+                    json.writeStringField("firstName", row.firstName());
+                    json.writeStringField("lastName", row.lastName());
+                    if (row.active() == null)
+                        json.writeNullField("active");
+                    else
+                        json.writeBooleanField("active", row.active());
+                    json.writeNumberField("year", row.year());
+                    json.writeNumberField("month", row.month());
+                    json.writeNumberField("totalDuration", row.totalDuration());
+                    json.writeEndObject();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (rows > 0)
+                json.writeRaw('\n');
+            return rows;
+        }
+    }
+
+    private long exportCsv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192);
+        writer.write(CSV_HEADER);
+        long rows = exportRepository.forEachMonthTotal(properties.getFetchSize(), row -> {
+            try {
+                writeCsv(writer, row);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+        return rows;
+    }
+
+    private static void writeCsv(Writer writer, TrainerMonthTotal row) throws IOException {
+        writeCsvField(writer, row.username());
+        writer.write(',');
+        writeCsvField(writer, row.firstName());
+        writer.write(',');
+        writeCsvField(writer, row.lastName());
+        writer.write(',');
+        if (row.active() != null)
+            writer.write(row.active() ? "true" : "false");
+        writer.write(',');
+        writer.write(Integer.toString(row.year()));
+        writer.write(',');
+        writer.write(Integer.toString(row.month()));
+        writer.write(',');
+        writer.write(Integer.toString(row.totalDuration()));
+        writer.write('\n');
+    }
+
+    // RFC 4180: quote only fields holding a separator, quote or line break, doubling inner quotes
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null)
+            return;
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,114 @@
+package org.example.workload_service.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.workload_service.dto.LeaderboardEntry;
+import org.example.workload_service.respository.TrainerWorkloadBatchRepository;
+import org.example.workload_service.sharding.WorkloadShards;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+// per-month ranking of every trainer with a positive total, kept in step with the table by applying event deltas;
+// deltas commute, so events published out of order by concurrent writers still land on the right totals.
+// Only this replica's events arrive here, so the boards are also rebuilt from the shards every
+// workload.leaderboard.refresh-interval: with several replicas a ranking is at most one interval behind the table
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WorkloadLeaderboard {
+
+    private static final Comparator<Standing> ORDER = Comparator.comparingInt(Standing::total).reversed()
+            .thenComparing(Standing::username);
+
+    private final TrainerWorkloadBatchRepository batchRepository;
+    private final WorkloadShards shards;
+
+    private volatile ConcurrentHashMap<Integer, Board> boards = new ConcurrentHashMap<>();
+
+    // runs before the web server starts and again after a journal replay rewrites the table
+    @PostConstruct
+    public void rebuild() {
+        boards = load();
+        log.info("workload leaderboard rebuilt for {} months", boards.size());
+    }
+
+    // deltas applied to the old boards while the table is read are dropped with them; the next refresh has them
+    @Scheduled(fixedDelayString = "${workload.leaderboard.refresh-interval:PT1M}",
+            initialDelayString = "${workload.leaderboard.refresh-interval:PT1M}")
+    public void refresh() {
+        boards = load();
+        log.debug("workload leaderboard refreshed for {} months", boards.size());
+    }
+
+    // queries keep reading the current boards until the new ones are complete
+    private ConcurrentHashMap<Integer, Board> load() {
+        ConcurrentHashMap<Integer, Board> loaded = new ConcurrentHashMap<>();
+        // boards are synchronized, so the shards load in parallel
+        shards.fanOut(shard -> batchRepository.forEachRow(row ->
+                board(loaded, row.getYear(), row.getMonth()).add(row.getUsername(), row.getTotalDuration())));
+        return loaded;
+    }
+
+    @EventListener
+    public void onWorkloadUpdated(WorkloadUpdatedEvent event) {
+        if (event.accepted())
+            board(boards, event.year(), event.month()).add(event.username(), event.delta());
+    }
+
+    public List<LeaderboardEntry> top(int year, int month, int limit) {
+        Board board = boards.get(key(year, month));
+        return board == null ? List.of() : board.top(limit);
+    }
+
+    private static Board board(Map<Integer, Board> boards, int year, int month) {
+        return boards.computeIfAbsent(key(year, month), k -> new Board());
+    }
+
+    private static int key(int year, int month) {
+        return year * 12 + month - 1;
+    }
+
+    private record Standing(String username, int total) {
+    }
+
+    // reads walk at most limit nodes of the tree, so a query costs O(log n + limit) however many trainers the month has
+    private static final class Board {
+
+        private final Map<String, Integer> totals = new HashMap<>();
+        private final TreeSet<Standing> ranking = new TreeSet<>(ORDER);
+
+        synchronized void add(String username, int delta) {
+            Integer previous = totals.get(username);
+            if (previous != null)
+                ranking.remove(new Standing(username, previous));
+            int total = (previous == null ? 0 : previous) + delta;
+            if (total > 0) {
+                totals.put(username, total);
+                ranking.add(new Standing(username, total));
+            } else {
+                totals.remove(username);
+            }
+        }
+
+        synchronized List<LeaderboardEntry> top(int limit) {
+            List<LeaderboardEntry> entries = new ArrayList<>(Math.min(limit, ranking.size()));
+            Iterator<Standing> it = ranking.iterator();
+            while (it.hasNext() && entries.size() < limit) {
+                Standing standing = it.next();
+                entries.add(new LeaderboardEntry(entries.size() + 1, standing.username(), standing.total()));
+            }
+            return entries;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.workload_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.workload_service.Enum.WorkloadOperation;
+import org.example.workload_service.dto.YearMonthTotals;
+import org.example.workload_service.support.SlowOperationEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// every meter is registered up front and tagged only by operation or outcome, never by trainer
+@Component
+public class WorkloadMetrics {
+
+    private final Map<WorkloadOperation, Timer> timers = new EnumMap<>(WorkloadOperation.class);
+    private final Counter duplicates;
+    private final Counter rejected;
+    private final Counter created;
+    private final DistributionSummary summaryYears;
+    private final DistributionSummary summaryMonths;
+
+    public WorkloadMetrics(MeterRegistry meterRegistry) {
+        for (WorkloadOperation operation : WorkloadOperation.values())
+            timers.put(operation, Timer.builder("workload.repository.calls")
+                    .description("Storage calls made while processing workloads and building summaries")
+                    .tag("operation", operation.tag())
+                    .register(meterRegistry));
+        this.duplicates = outcomeCounter(meterRegistry, "duplicate");
+        this.rejected = outcomeCounter(meterRegistry, "rejected");
+        this.created = outcomeCounter(meterRegistry, "created");
+        this.summaryYears = DistributionSummary.builder("workload.summary.years")
+                .description("Years in each summary served")
+                .register(meterRegistry);
+        this.summaryMonths = DistributionSummary.builder("workload.summary.months")
+                .description("Months in each summary served")
+                .register(meterRegistry);
+    }
+
+    public <T> T time(WorkloadOperation operation, Supplier<T> call) {
+        SlowOperationEvent event = new SlowOperationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            timers.get(operation).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation.tag();
+                event.commit();
+            }
+        }
+    }
+
+    public void time(WorkloadOperation operation, Runnable call) {
+        time(operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    public void duplicateDropped() {
+        duplicates.increment();
+    }
+
+    public void deleteRejected() {
+        rejected.increment();
+    }
+
+    public void rowCreated() {
+        created.increment();
+    }
+
+    public void summaryServed(Map<Integer, Map<String, Integer>> yearsSummary) {
+        summaryYears.record(yearsSummary.size());
+        if (yearsSummary instanceof YearMonthTotals totals) {
+            summaryMonths.record(totals.monthCount());
+            return;
+        }
+        int months = 0;
+        for (Map<String, Integer> year : yearsSummary.values())
+            months += year.size();
+        summaryMonths.record(months);
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("workload.writes")
+                .description("Workload events by what they did to the month table")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.workload_service.service;
+
+import org.example.workload_service.dto.TrainerWorkloadRequest;
+import org.example.workload_service.entity.TrainerWorkload;
+
+public record WorkloadMonthKey(String username, int year, int month) {
+
+    public static WorkloadMonthKey of(TrainerWorkloadRequest request) {
+        return new WorkloadMonthKey(
+                request.getUsername(),
+                request.getTrainingDate().getYear(),
+                request.getTrainingDate().getMonthValue()
+        );
+    }
+
+    public static WorkloadMonthKey of(TrainerWorkload workload) {
+        return new WorkloadMonthKey(workload.getUsername(), workload.getYear(), workload.getMonth());
+    }
+}
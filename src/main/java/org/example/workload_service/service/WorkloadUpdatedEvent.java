@@ -0,0 +1,11 @@
+package org.example.workload_service.service;
+
+// published once the change is committed; totalDuration is the month total after it, delta is 0 for a dropped DELETE.
+// Events are published after the write guard is released, so two of one month can arrive in either order; the one
+// with the higher version (see WorkloadVersion) carries the later total
+public record WorkloadUpdatedEvent(String username, int year, int month, int totalDuration, int delta, long version) {
+
+    public boolean accepted() {
+        return delta != 0;
+    }
+}
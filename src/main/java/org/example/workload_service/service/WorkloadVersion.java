@@ -0,0 +1,18 @@
+package org.example.workload_service.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// orders the changes of a trainer month as this process committed them. A writer takes its version while it still
+// holds what serializes the month (the stripe lock, the row lock of its UPDATE, the version check of its commit or
+// the engine's cell), so of two changes to one month the one committed later always carries the higher version
+public final class WorkloadVersion {
+
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private WorkloadVersion() {
+    }
+
+    public static long next() {
+        return LAST.incrementAndGet();
+    }
+}
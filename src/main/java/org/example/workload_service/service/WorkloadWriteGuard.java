@@ -0,0 +1,121 @@
+package org.example.workload_service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.workload_service.Enum.ConcurrencyMode;
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.overload.RepositoryTimeLimiter;
+import org.example.workload_service.sharding.WorkloadShards;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+@Component
+@Slf4j
+public class WorkloadWriteGuard {
+
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate requestTransactions;
+    private final WorkloadProperties.Concurrency properties;
+    private final ReentrantLock[] stripes;
+    private final WorkloadShards shards;
+
+    public WorkloadWriteGuard(TransactionTemplate transactionTemplate, WorkloadProperties properties,
+                              WorkloadShards shards, RepositoryTimeLimiter timeLimiter) {
+        this.transactionTemplate = transactionTemplate;
+        this.requestTransactions = timeLimiter.limit(transactionTemplate);
+        this.shards = shards;
+        this.properties = properties.getConcurrency();
+        this.stripes = new ReentrantLock[this.properties.getStripes()];
+        for (int i = 0; i < stripes.length; i++)
+            stripes[i] = new ReentrantLock();
+    }
+
+    public boolean isAtomic() {
+        return properties.getMode() == ConcurrencyMode.ATOMIC;
+    }
+
+    // the shard is bound before the transaction starts, so every statement of it runs on the trainer's shard;
+    // single writes come from a request and time out with the repository time limit
+    public <T> T execute(String username, Supplier<T> work) {
+        return shards.onShardOf(username, () -> lockAndRun(username, work));
+    }
+
+    // all usernames have to share a shard unless the caller has bound one, see WorkloadShards.partition;
+    // batches and import chunks are bounded by the write bulkhead rather than a deadline
+    public <T> T executeAll(Collection<String> usernames, Supplier<T> work) {
+        return shards.onShardOfAll(usernames, () -> lockAllAndRun(usernames, work));
+    }
+
+    private <T> T lockAndRun(String username, Supplier<T> work) {
+        if (properties.getMode() != ConcurrencyMode.STRIPED)
+            return withRetry(requestTransactions, work);
+
+        // the lock is held until the transaction has committed, otherwise the next writer reads a stale total
+        ReentrantLock lock = stripes[stripeOf(username)];
+        lock.lock();
+        try {
+            return withRetry(requestTransactions, work);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <T> T lockAllAndRun(Collection<String> usernames, Supplier<T> work) {
+        if (properties.getMode() != ConcurrencyMode.STRIPED)
+            return withRetry(transactionTemplate, work);
+
+        // stripes are always taken in ascending order so two batches can never deadlock each other
+        int[] indexes = usernames.stream().mapToInt(this::stripeOf).distinct().sorted().toArray();
+        int locked = 0;
+        try {
+            for (int index : indexes) {
+                stripes[index].lock();
+                locked++;
+            }
+            return withRetry(transactionTemplate, work);
+        } finally {
+            for (int i = locked - 1; i >= 0; i--)
+                stripes[indexes[i]].unlock();
+        }
+    }
+
+    private <T> T withRetry(TransactionTemplate transactions, Supplier<T> work) {
+        int maxAttempts = Math.max(1, properties.getMaxAttempts());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactions.execute(status -> work.get());
+            } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+                if (attempt >= maxAttempts)
+                    throw e;
+                log.debug("concurrent workload update detected, retrying attempt {}: {}", attempt, e.getMessage());
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void backoff(int attempt) {
+        long maxNanos = properties.getRetryBackoff().toNanos() * attempt;
+        if (maxNanos <= 0)
+            return;
+        try {
+            Thread.sleep(Duration.ofNanos(ThreadLocalRandom.current().nextLong(maxNanos)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while retrying workload update", e);
+        }
+    }
+
+    private int stripeOf(String username) {
+        int h = Objects.hashCode(username);
+        h ^= (h >>> 16);
+        return (h & 0x7fffffff) % stripes.length;
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.workload_service.sharding;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+// --rebalance-shards with workload.sharding.previous-shards set to the old count and workload.sharding.shards to the new
+// one, started with --spring.main.web-application-type=none; afterwards drop previous-shards from the configuration
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ShardRebalanceRunner implements ApplicationRunner {
+
+    static final String REBALANCE_OPTION = "rebalance-shards";
+
+    private final ShardRebalancer rebalancer;
+    private final WorkloadShards shards;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption(REBALANCE_OPTION))
+            return;
+        log.info("rebalancing trainer workloads from {} open shards onto {}", shards.targets(), shards.count());
+        rebalancer.rebalance();
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.workload_service.sharding;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.workload_service.entity.ProcessedEvent;
+import org.example.workload_service.entity.TrainerWorkload;
+import org.example.workload_service.respository.ProcessedEventRepository;
+import org.example.workload_service.respository.TrainerWorkloadBatchRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// moves every trainer that sits on a shard other than its own under the current shard count; meant to run with the
+// web server off. Each step copies before it deletes and the copies overwrite, so a rerun after a crash finishes the job
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ShardRebalancer {
+
+    private static final int CHUNK = 1000;
+
+    private final WorkloadShards shards;
+    private final TrainerWorkloadBatchRepository batchRepository;
+    private final ProcessedEventRepository processedEvents;
+    private final TransactionTemplate transactionTemplate;
+
+    // returns the number of trainers moved
+    public int rebalance() {
+        int moved = 0;
+        for (int source = 0; source < shards.targets(); source++)
+            moved += drain(source);
+        log.info("rebalance to {} shards finished, {} trainers moved", shards.count(), moved);
+        return moved;
+    }
+
+    private int drain(int source) {
+        Map<Integer, List<TrainerWorkload>> leaving = new TreeMap<>();
+        Set<String> usernames = new LinkedHashSet<>();
+        shards.on(source, () -> batchRepository.forEachRow(row -> {
+            int target = shards.shardOf(row.getUsername());
+            if (target == source)
+                return;
+            leaving.computeIfAbsent(target, k -> new ArrayList<>()).add(row);
+            usernames.add(row.getUsername());
+        }));
+        if (usernames.isEmpty())
+            return 0;
+
+        // processed_event does not record the trainer, so every receiving shard gets all of the source's keys
+        leaving.keySet().forEach(target -> copyKeys(source, target));
+        leaving.forEach((target, rows) -> {
+            for (int i = 0; i < rows.size(); i += CHUNK) {
+                List<TrainerWorkload> chunk = rows.subList(i, Math.min(i + CHUNK, rows.size()));
+                shards.on(target, () -> transactionTemplate.executeWithoutResult(
+                        status -> batchRepository.upsertTotals(chunk)));
+            }
+        });
+        List<String> moved = List.copyOf(usernames);
+        for (int i = 0; i < moved.size(); i += CHUNK) {
+            List<String> chunk = moved.subList(i, Math.min(i + CHUNK, moved.size()));
+            shards.on(source, () -> transactionTemplate.executeWithoutResult(
+                    status -> batchRepository.deleteTrainers(chunk)));
+        }
+        log.info("shard {}: {} trainers moved to shards {}", source, moved.size(), leaving.keySet());
+        return moved.size();
+    }
+
+    private void copyKeys(int source, int target) {
+        String after = "";
+        long copied = 0;
+        while (true) {
+            String from = after;
+            List<ProcessedEvent> page = shards.on(source, () -> processedEvents.findPageAfter(from, Limit.of(CHUNK)));
+            if (page.isEmpty())
+                break;
+            // loaded rows are not new, so saveAll merges and a key the target already holds is left alone
+            shards.on(target, () -> transactionTemplate.executeWithoutResult(status -> processedEvents.saveAll(page)));
+            copied += page.size();
+            after = page.getLast().getIdempotencyKey();
+        }
+        log.debug("copied {} idempotency keys from shard {} to shard {}", copied, source, target);
+    }
+}
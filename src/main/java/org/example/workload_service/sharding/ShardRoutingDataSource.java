@@ -0,0 +1,37 @@
+package org.example.workload_service.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.workload_service.overload.ConnectionWaitDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// hands out a connection of the shard bound by WorkloadShards; a thread without one gets shard 0, which is where
+// Hibernate's boot-time metadata lookup and the health check land; each pool keeps RepositoryTimeLimiter's wait
+class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private final List<HikariDataSource> shards;
+
+    ShardRoutingDataSource(List<HikariDataSource> shards) {
+        this.shards = List.copyOf(shards);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++)
+            targets.put(i, new ConnectionWaitDataSource(shards.get(i)));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(targets.get(0));
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return WorkloadShards.current();
+    }
+
+    @Override
+    public void close() {
+        shards.forEach(HikariDataSource::close);
+    }
+}
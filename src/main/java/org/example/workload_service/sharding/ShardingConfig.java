@@ -0,0 +1,59 @@
+package org.example.workload_service.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.workload_service.Enum.EngineMode;
+import org.example.workload_service.config.WorkloadProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// replaces the single spring.datasource pool with one pool per shard behind a routing datasource;
+// url, username and password of each shard come from workload.sharding.url-template and spring.datasource
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnExpression("${workload.sharding.shards:1} > 1 or ${workload.sharding.previous-shards:0} > 1")
+@Slf4j
+public class ShardingConfig {
+
+    @Bean
+    DataSource shardedDataSource(DataSourceProperties dataSourceProperties, WorkloadProperties properties,
+                                 WorkloadShards shards, MeterRegistry meterRegistry) {
+        // the in-memory engine holds every trainer in this process and flushes them through the one datasource,
+        // with no shard routing; the guard keeps it from running behind the routing datasource
+        if (properties.getEngine().getMode() == EngineMode.MEMORY)
+            throw new IllegalStateException("workload.engine.mode=MEMORY is a single-replica engine and cannot be sharded");
+
+        String template = properties.getSharding().getUrlTemplate();
+        if (!template.contains("{shard}"))
+            throw new IllegalStateException("workload.sharding.url-template needs a {shard} placeholder: " + template);
+
+        List<HikariDataSource> pools = new ArrayList<>(shards.targets());
+        for (int shard = 0; shard < shards.targets(); shard++) {
+            HikariDataSource pool = dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(template.replace("{shard}", Integer.toString(shard)))
+                    .build();
+            pool.setPoolName("workload-shard-" + shard);
+            pool.setMetricRegistry(meterRegistry);
+            pools.add(pool);
+        }
+        log.info("trainer workloads routed over {} shards ({} open)", shards.count(), shards.targets());
+        return new ShardRoutingDataSource(pools);
+    }
+
+    // Flyway only sees the routing datasource, so it runs once per shard with that shard bound
+    @Bean
+    FlywayMigrationStrategy shardedMigration(WorkloadShards shards) {
+        return flyway -> {
+            for (int shard = 0; shard < shards.targets(); shard++)
+                shards.on(shard, flyway::migrate);
+        };
+    }
+}
@@ -0,0 +1,188 @@
+package org.example.workload_service.sharding;
+
+import jakarta.annotation.PreDestroy;
+import org.example.workload_service.config.WorkloadProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+// binds the current thread to one shard for the connections ShardRoutingDataSource hands out; with a single shard
+// nothing is bound and every call runs straight through on the caller's thread
+@Component
+public class WorkloadShards {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private final int count;
+    private final int targets;
+    private final ExecutorService fanOut;
+
+    public WorkloadShards(WorkloadProperties properties) {
+        WorkloadProperties.Sharding sharding = properties.getSharding();
+        if (sharding.getShards() < 1)
+            throw new IllegalArgumentException("workload.sharding.shards must be at least 1");
+        this.count = sharding.getShards();
+        this.targets = Math.max(count, sharding.getPreviousShards());
+        this.fanOut = isRouted() ? Executors.newVirtualThreadPerTaskExecutor() : null;
+    }
+
+    @PreDestroy
+    void stop() {
+        if (fanOut != null)
+            fanOut.shutdown();
+    }
+
+    static Integer current() {
+        return CURRENT.get();
+    }
+
+    // shards trainers are routed to
+    public int count() {
+        return count;
+    }
+
+    // shards the datasource opens, previous-shards included while a resize is pending
+    public int targets() {
+        return targets;
+    }
+
+    public boolean isRouted() {
+        return targets > 1;
+    }
+
+    public int shardOf(String username) {
+        return shardOf(username, count);
+    }
+
+    // jump consistent hash: growing from n to n + 1 shards moves 1/(n + 1) of the trainers, all of them onto the new one
+    public static int shardOf(String username, int shards) {
+        if (username == null || shards <= 1)
+            return 0;
+        long key = hash(username);
+        long bucket = -1;
+        long next = 0;
+        while (next < shards) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+
+    // FNV-1a over the UTF-8 bytes, stable across JVMs and releases unlike anything seeded
+    static long hash(String username) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : username.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    public <T> T on(int shard, Supplier<T> work) {
+        if (!isRouted())
+            return work.get();
+        if (shard < 0 || shard >= targets)
+            throw new IllegalArgumentException("no shard " + shard + " among " + targets);
+        Integer outer = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (outer == null)
+                CURRENT.remove();
+            else
+                CURRENT.set(outer);
+        }
+    }
+
+    public void on(int shard, Runnable work) {
+        on(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public <T> T onShardOf(String username, Supplier<T> work) {
+        return on(shardOf(username), work);
+    }
+
+    // a caller that already bound a shard keeps it; otherwise every username has to live on the same shard
+    public <T> T onShardOfAll(Collection<String> usernames, Supplier<T> work) {
+        if (!isRouted() || CURRENT.get() != null)
+            return work.get();
+        int shard = -1;
+        for (String username : usernames) {
+            int next = shardOf(username);
+            if (shard >= 0 && next != shard)
+                throw new IllegalArgumentException("usernames span shards " + shard + " and " + next
+                        + ", split the work with partition() first");
+            shard = next;
+        }
+        return on(Math.max(shard, 0), work);
+    }
+
+    // keeps the order of items within each shard; a null username goes to shard 0
+    public <T> SortedMap<Integer, List<T>> partition(Collection<T> items, Function<T, String> username) {
+        SortedMap<Integer, List<T>> parts = new TreeMap<>();
+        for (T item : items)
+            parts.computeIfAbsent(shardOf(username.apply(item)), k -> new ArrayList<>()).add(item);
+        return parts;
+    }
+
+    // runs work on every routed shard in turn on the caller's thread, for consumers that are not thread safe
+    public void forEachShard(IntConsumer work) {
+        for (int shard = 0; shard < count; shard++) {
+            int bound = shard;
+            on(shard, () -> work.accept(bound));
+        }
+    }
+
+    // runs work on every routed shard in parallel and returns the results in shard order
+    public <T> List<T> collect(IntFunction<T> work) {
+        if (!isRouted())
+            return List.of(work.apply(0));
+        List<CompletableFuture<T>> futures = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            int bound = shard;
+            futures.add(CompletableFuture.supplyAsync(() -> on(bound, () -> work.apply(bound)), fanOut));
+        }
+        List<T> results = new ArrayList<>(count);
+        try {
+            for (CompletableFuture<T> future : futures)
+                results.add(future.join());
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw e;
+        }
+        return results;
+    }
+
+    public void fanOut(IntConsumer work) {
+        collect(shard -> {
+            work.accept(shard);
+            return shard;
+        });
+    }
+
+    public CompletableFuture<Void> async(int shard, Runnable work) {
+        if (!isRouted())
+            return CompletableFuture.runAsync(work);
+        return CompletableFuture.runAsync(() -> on(shard, work), fanOut);
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.workload_service.support;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class RecentKeyCache {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Boolean> keys;
+
+    public RecentKeyCache(int maxSize) {
+        this.keys = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public boolean contains(String key) {
+        lock.lock();
+        try {
+            return keys.get(key) != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void add(String key) {
+        lock.lock();
+        try {
+            keys.put(key, Boolean.TRUE);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return keys.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.workload_service.support;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+// only committed while a recording is running and the call took longer than the threshold,
+// which a .jfc file can override with org.example.workload.SlowOperation#threshold
+@Name("org.example.workload.SlowOperation")
+@Label("Slow Workload Operation")
+@Category({"Workload Service"})
+@Description("A storage call on the write or summary path that exceeded the threshold")
+@Threshold("20 ms")
+@StackTrace(false)
+public class SlowOperationEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    public String operation;
+}
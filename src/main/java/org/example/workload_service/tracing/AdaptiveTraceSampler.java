@@ -0,0 +1,169 @@
+package org.example.workload_service.tracing;
+
+import brave.sampler.RateLimitingSampler;
+import brave.sampler.Sampler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.workload_service.config.WorkloadProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+// Replaces the always-on sampler. New traces are rate limited per endpoint prefix, with a baseline
+// for everything else. Errors and slow responses are only known once the request is over, so
+// instead of being traced themselves they open a boost window in which their endpoint is always sampled.
+@Component
+@Slf4j
+public class AdaptiveTraceSampler extends Sampler {
+
+    static final String BASELINE = "*";
+
+    // set by TraceSamplingFilter around the request, read when the server span starts the trace
+    private static final ThreadLocal<Boolean> DECISION = new ThreadLocal<>();
+
+    private final LongSupplier nanoTime;
+    private final Map<String, Long> boostedUntil = new ConcurrentHashMap<>();
+    private final Counter sampled;
+    private final Counter dropped;
+    private final Counter boosts;
+
+    private volatile Policy policy;
+
+    @Autowired
+    public AdaptiveTraceSampler(WorkloadProperties properties, MeterRegistry meterRegistry) {
+        this(settingsOf(properties.getTracing()), meterRegistry, System::nanoTime);
+    }
+
+    AdaptiveTraceSampler(TraceSamplingSettings settings, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+        this.policy = new Policy(settings);
+        this.sampled = decisionCounter(meterRegistry, "sampled");
+        this.dropped = decisionCounter(meterRegistry, "dropped");
+        this.boosts = Counter.builder("workload.tracing.boosts")
+                .description("Boost windows opened by a failed or slow request")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean isSampled(long traceId) {
+        Boolean decision = DECISION.get();
+        if (decision != null)
+            return decision;
+        // traces started outside a request, e.g. by the ingest workers
+        return count(policy.baseline.isSampled(traceId));
+    }
+
+    void enter(String path) {
+        DECISION.set(decide(path));
+    }
+
+    void exit() {
+        DECISION.remove();
+    }
+
+    boolean decide(String path) {
+        Policy current = policy;
+        String key = current.keyOf(path);
+        if (isBoosted(key))
+            return count(true);
+        return count(current.limiterOf(key).isSampled(0L));
+    }
+
+    void completed(String path, int status, long durationNanos, boolean failed) {
+        Policy current = policy;
+        if (!failed && status < 500 && durationNanos < current.slowThresholdNanos)
+            return;
+        String key = current.keyOf(path);
+        long now = nanoTime.getAsLong();
+        Long previous = boostedUntil.put(key, now + current.boostWindowNanos);
+        if (previous == null || previous - now <= 0) {
+            boosts.increment();
+            log.debug("sampling every trace of {} after a {} response in {} ms", key, status, durationNanos / 1_000_000);
+        }
+    }
+
+    public TraceSamplingSettings settings() {
+        return policy.settings;
+    }
+
+    public void update(TraceSamplingSettings settings) {
+        policy = new Policy(settings);
+        log.info("trace sampling updated to {}", settings);
+    }
+
+    // prefix -> nanos left in its boost window, expired windows are dropped on the way
+    public Map<String, Long> boosted() {
+        long now = nanoTime.getAsLong();
+        boostedUntil.entrySet().removeIf(entry -> entry.getValue() - now <= 0);
+        Map<String, Long> remaining = new HashMap<>();
+        boostedUntil.forEach((key, until) -> remaining.put(key, until - now));
+        return remaining;
+    }
+
+    private boolean isBoosted(String key) {
+        Long until = boostedUntil.get(key);
+        return until != null && until - nanoTime.getAsLong() > 0;
+    }
+
+    private boolean count(boolean decision) {
+        (decision ? sampled : dropped).increment();
+        return decision;
+    }
+
+    static TraceSamplingSettings settingsOf(WorkloadProperties.Tracing properties) {
+        return new TraceSamplingSettings(properties.getBaselinePerSecond(), properties.getSlowThreshold(),
+                properties.getBoostWindow(), properties.getEndpointBudgets());
+    }
+
+    private static Counter decisionCounter(MeterRegistry meterRegistry, String decision) {
+        return Counter.builder("workload.tracing.decisions")
+                .description("Head sampling decisions for new traces")
+                .tag("decision", decision)
+                .register(meterRegistry);
+    }
+
+    // one immutable snapshot per update, so a decision never sees half of a new configuration
+    private static final class Policy {
+
+        private final TraceSamplingSettings settings;
+        private final Sampler baseline;
+        private final List<String> prefixes;
+        private final Map<String, Sampler> limiters;
+        private final long slowThresholdNanos;
+        private final long boostWindowNanos;
+
+        private Policy(TraceSamplingSettings settings) {
+            this.settings = settings;
+            this.baseline = RateLimitingSampler.create(settings.baselinePerSecond());
+            List<String> sorted = new ArrayList<>(settings.endpointBudgets().keySet());
+            sorted.sort(Comparator.comparingInt(String::length).reversed());
+            this.prefixes = List.copyOf(sorted);
+            Map<String, Sampler> byPrefix = new HashMap<>();
+            settings.endpointBudgets().forEach((prefix, perSecond) ->
+                    byPrefix.put(prefix, RateLimitingSampler.create(perSecond)));
+            this.limiters = byPrefix;
+            this.slowThresholdNanos = settings.slowThreshold().toNanos();
+            this.boostWindowNanos = settings.boostWindow().toNanos();
+        }
+
+        // keys are the configured prefixes plus the baseline, so boost state stays bounded
+        private String keyOf(String path) {
+            for (String prefix : prefixes)
+                if (path.startsWith(prefix))
+                    return prefix;
+            return BASELINE;
+        }
+
+        private Sampler limiterOf(String key) {
+            return key.equals(BASELINE) ? baseline : limiters.get(key);
+        }
+    }
+}
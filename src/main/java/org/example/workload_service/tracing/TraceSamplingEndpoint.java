@@ -0,0 +1,64 @@
+package org.example.workload_service.tracing;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// GET /actuator/tracesampling shows the live settings, POST changes them without a restart;
+// an endpoint budget is set with {"endpoint": "/api/workloads", "endpointPerSecond": 20}
+@Component
+@Endpoint(id = "tracesampling")
+@RequiredArgsConstructor
+public class TraceSamplingEndpoint {
+
+    private final AdaptiveTraceSampler sampler;
+
+    @ReadOperation
+    public Map<String, Object> sampling() {
+        TraceSamplingSettings settings = sampler.settings();
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("baselinePerSecond", settings.baselinePerSecond());
+        view.put("slowThreshold", settings.slowThreshold().toString());
+        view.put("boostWindow", settings.boostWindow().toString());
+        view.put("endpointBudgets", settings.endpointBudgets());
+        Map<String, Long> boosted = new LinkedHashMap<>();
+        sampler.boosted().forEach((key, nanos) -> boosted.put(key, Duration.ofNanos(nanos).toMillis()));
+        view.put("boostedMillisLeft", boosted);
+        return view;
+    }
+
+    @WriteOperation
+    public Map<String, Object> update(@Nullable Integer baselinePerSecond,
+                                      @Nullable Duration slowThreshold,
+                                      @Nullable Duration boostWindow,
+                                      @Nullable String endpoint,
+                                      @Nullable Integer endpointPerSecond) {
+        TraceSamplingSettings current = sampler.settings();
+        Map<String, Integer> budgets = new LinkedHashMap<>(current.endpointBudgets());
+        if (endpoint != null) {
+            // a null budget removes the endpoint, leaving it to the baseline
+            if (endpointPerSecond == null)
+                budgets.remove(endpoint);
+            else
+                budgets.put(endpoint, endpointPerSecond);
+        }
+        try {
+            sampler.update(new TraceSamplingSettings(
+                    baselinePerSecond != null ? baselinePerSecond : current.baselinePerSecond(),
+                    slowThreshold != null ? slowThreshold : current.slowThreshold(),
+                    boostWindow != null ? boostWindow : current.boostWindow(),
+                    budgets));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+        return sampling();
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.workload_service.tracing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// runs ahead of the observation filter, which starts the server span and with it the sampling decision
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class TraceSamplingFilter extends OncePerRequestFilter {
+
+    private final AdaptiveTraceSampler sampler;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        String path = request.getRequestURI();
+        long start = System.nanoTime();
+        boolean failed = true;
+        sampler.enter(path);
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            sampler.exit();
+            sampler.completed(path, response.getStatus(), System.nanoTime() - start, failed);
+        }
+    }
+}
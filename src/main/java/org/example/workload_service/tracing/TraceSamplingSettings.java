@@ -0,0 +1,20 @@
+package org.example.workload_service.tracing;
+
+import java.time.Duration;
+import java.util.Map;
+
+public record TraceSamplingSettings(int baselinePerSecond,
+                                    Duration slowThreshold,
+                                    Duration boostWindow,
+                                    Map<String, Integer> endpointBudgets) {
+
+    public TraceSamplingSettings {
+        if (baselinePerSecond < 0)
+            throw new IllegalArgumentException("baselinePerSecond must not be negative");
+        endpointBudgets.forEach((prefix, perSecond) -> {
+            if (perSecond == null || perSecond < 0)
+                throw new IllegalArgumentException("budget of " + prefix + " must not be negative");
+        });
+        endpointBudgets = Map.copyOf(endpointBudgets);
+    }
+}
@@ -0,0 +1,17 @@
+-- schema as previously generated by hibernate ddl-auto=update
+CREATE TABLE IF NOT EXISTS trainer_workload (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username       VARCHAR(255),
+    first_name     VARCHAR(255),
+    last_name      VARCHAR(255),
+    is_active      BOOLEAN,
+    work_year      INTEGER NOT NULL,
+    work_month     INTEGER NOT NULL,
+    total_duration INTEGER NOT NULL,
+    version        BIGINT  NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS processed_event (
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    processed_at    TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
@@ -0,0 +1,12 @@
+-- one row per trainer-month; also the access path for findByUsernameAndYearAndMonth
+ALTER TABLE trainer_workload ALTER COLUMN username SET NOT NULL;
+ALTER TABLE trainer_workload ADD CONSTRAINT IF NOT EXISTS uk_trainer_workload_month
+    UNIQUE (username, work_year, work_month);
+
+-- the summary read only needs these columns, so it never has to visit the table rows
+CREATE INDEX IF NOT EXISTS idx_trainer_workload_summary
+    ON trainer_workload (username, work_year, work_month, total_duration);
+
+-- purge of expired idempotency keys scans by age
+CREATE INDEX IF NOT EXISTS idx_processed_event_processed_at
+    ON processed_event (processed_at);
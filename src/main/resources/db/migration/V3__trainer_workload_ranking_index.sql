@@ -0,0 +1,3 @@
+-- monthly ranking reads one month ordered by total, ties broken by username
+CREATE INDEX IF NOT EXISTS idx_trainer_workload_ranking
+    ON trainer_workload (work_year, work_month, total_duration DESC, username);
@@ -0,0 +1,13 @@
+-- one row per bulk import, rewritten in the same transaction as each chunk it commits
+CREATE TABLE IF NOT EXISTS import_checkpoint (
+    import_id        VARCHAR(255) PRIMARY KEY,
+    source           VARCHAR(1024) NOT NULL,
+    chunk_size       INTEGER       NOT NULL,
+    chunks_committed BIGINT        NOT NULL,
+    events_read      BIGINT        NOT NULL,
+    events_applied   BIGINT        NOT NULL,
+    events_duplicate BIGINT        NOT NULL,
+    events_rejected  BIGINT        NOT NULL,
+    completed        BOOLEAN       NOT NULL,
+    updated_at       TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
@@ -0,0 +1,3 @@
+-- minutes per day of each trainer month as 31 unsigned 16-bit values, see MonthDays;
+-- months written before this migration keep NULL and only their month total
+ALTER TABLE trainer_workload ADD COLUMN IF NOT EXISTS day_totals VARBINARY(62);
@@ -0,0 +1,21 @@
+package org.example.workload_service.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypesScanner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FastStartConfigTest {
+
+    // a new @Entity has to be added to the fast-start list by hand, this fails until it is
+    @Test
+    void persistenceManagedTypes_shouldListEveryScannedEntity() {
+        PersistenceManagedTypes scanned = new PersistenceManagedTypesScanner(new DefaultResourceLoader())
+                .scan("org.example.workload_service");
+
+        assertThat(new FastStartConfig().persistenceManagedTypes().getManagedClassNames())
+                .containsExactlyInAnyOrderElementsOf(scanned.getManagedClassNames());
+    }
+}
@@ -2,10 +2,34 @@ package org.example.workload_service.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.example.workload_service.Enum.ActionType;
+import org.example.workload_service.Enum.ExportFormat;
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.dto.BatchItemResult;
+import org.example.workload_service.dto.DayTotal;
+import org.example.workload_service.dto.LeaderboardEntry;
+import org.example.workload_service.dto.SerializedSummary;
+import org.example.workload_service.dto.TrainerRankingEntry;
 import org.example.workload_service.dto.TrainerWorkloadRequest;
 import org.example.workload_service.dto.TrainerWorkloadResponse;
+import org.example.workload_service.dto.WeekTotal;
+import org.example.workload_service.dto.YearTotal;
+import org.example.workload_service.ingest.AsyncWorkloadIngestor;
+import org.example.workload_service.overload.OverloadExceptionHandler;
+import org.example.workload_service.overload.WorkloadAdmissionInterceptor;
+import org.example.workload_service.service.MonthRange;
+import org.example.workload_service.service.TrainerWorkloadBatchService;
 import org.example.workload_service.service.TrainerWorkloadService;
+import org.example.workload_service.service.WorkloadCalendar;
+import org.example.workload_service.service.WorkloadChangeStream;
+import org.example.workload_service.service.WorkloadExporter;
+import org.example.workload_service.service.WorkloadLeaderboard;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -13,17 +37,38 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -38,6 +83,27 @@ class TrainerWorkloadControllerTest {
     @Mock
     private TrainerWorkloadService service;
 
+    @Mock
+    private TrainerWorkloadBatchService batchService;
+
+    @Mock
+    private AsyncWorkloadIngestor ingestor;
+
+    @Spy
+    private WorkloadProperties properties = new WorkloadProperties();
+
+    @Mock
+    private WorkloadLeaderboard leaderboard;
+
+    @Mock
+    private WorkloadExporter exporter;
+
+    @Mock
+    private WorkloadChangeStream changeStream;
+
+    @Mock
+    private WorkloadCalendar calendar;
+
     @InjectMocks
     private TrainerWorkloadController controller;
 
@@ -46,7 +112,8 @@ class TrainerWorkloadControllerTest {
     @BeforeEach
     void setUp() {
         mockMvc = MockMvcBuilders.standaloneSetup(controller)
-                .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper))
+                .setMessageConverters(new ByteArrayHttpMessageConverter(),
+                        new MappingJackson2HttpMessageConverter(objectMapper))
                 .build();
     }
 
@@ -76,12 +143,52 @@ class TrainerWorkloadControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("POST /api/workloads/batch (updateWorkloads)")
+    class UpdateWorkloadsTests {
+
+        @Test
+        @DisplayName("should return 200 with a result per event")
+        void shouldReturn200WithResultPerEvent() throws Exception {
+            TrainerWorkloadRequest first = new TrainerWorkloadRequest();
+            first.setUsername("trainer1");
+            first.setTrainingDate(LocalDate.of(2025, 2, 15));
+            first.setDuration(60);
+            first.setActionType(ActionType.ADD);
+            first.setIdempotencyKey("key-1");
+
+            TrainerWorkloadRequest second = new TrainerWorkloadRequest();
+            second.setUsername("trainer1");
+            second.setTrainingDate(LocalDate.of(2025, 2, 16));
+            second.setDuration(60);
+            second.setActionType(ActionType.ADD);
+            second.setIdempotencyKey("key-1");
+
+            when(batchService.processBatch(any())).thenReturn(List.of(
+                    BatchItemResult.applied(0, first),
+                    BatchItemResult.duplicate(1, second)
+            ));
+
+            mockMvc.perform(post(BASE_URL + "/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(List.of(first, second))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].status").value("APPLIED"))
+                    .andExpect(jsonPath("$[1].status").value("DUPLICATE"))
+                    .andExpect(jsonPath("$[1].idempotencyKey").value("key-1"));
+
+            verify(batchService).processBatch(any());
+        }
+    }
+
     @Nested
     @DisplayName("GET /api/workloads/{username} (getSummary)")
     class GetSummaryTests {
 
+        private static final String ETAG = "\"5eed-3\"";
+
         @Test
-        @DisplayName("should return 200 with body when summary exists")
+        @DisplayName("should return 200 with the cached JSON and its ETag when summary exists")
         void shouldReturn200WithBodyWhenSummaryExists() throws Exception {
             String username = "trainer1";
             TrainerWorkloadResponse response = new TrainerWorkloadResponse();
@@ -93,30 +200,54 @@ class TrainerWorkloadControllerTest {
             yearsSummary.put(2025, Map.of("Feb", 100));
             response.setYearsSummary(yearsSummary);
 
-            when(service.getSummary(username)).thenReturn(response);
+            when(service.getSerializedSummary(username))
+                    .thenReturn(new SerializedSummary(ETAG, objectMapper.writeValueAsBytes(response)));
 
             mockMvc.perform(get(BASE_URL + "/" + username))
                     .andExpect(status().isOk())
                     .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(header().string("ETag", ETAG))
                     .andExpect(jsonPath("$.username").value(username))
                     .andExpect(jsonPath("$.firstName").value("John"))
                     .andExpect(jsonPath("$.lastName").value("Doe"))
                     .andExpect(jsonPath("$.active").value(true))
                     .andExpect(jsonPath("$.yearsSummary.2025.Feb").value(100));
 
-            verify(service).getSummary(username);
+            verify(service).getSerializedSummary(username);
+        }
+
+        @Test
+        @DisplayName("should return 304 without a body when If-None-Match is current")
+        void shouldReturn304WhenETagMatches() throws Exception {
+            when(service.getSerializedSummary("trainer1"))
+                    .thenReturn(new SerializedSummary(ETAG, "{}".getBytes(StandardCharsets.UTF_8)));
+
+            mockMvc.perform(get(BASE_URL + "/trainer1").header("If-None-Match", ETAG))
+                    .andExpect(status().isNotModified())
+                    .andExpect(content().string(""));
+        }
+
+        @Test
+        @DisplayName("should return 200 when If-None-Match holds an older tag")
+        void shouldReturn200WhenETagIsStale() throws Exception {
+            when(service.getSerializedSummary("trainer1"))
+                    .thenReturn(new SerializedSummary(ETAG, "{}".getBytes(StandardCharsets.UTF_8)));
+
+            mockMvc.perform(get(BASE_URL + "/trainer1").header("If-None-Match", "\"5eed-2\""))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", ETAG));
         }
 
         @Test
         @DisplayName("should return 404 when summary does not exist")
         void shouldReturn404WhenSummaryDoesNotExist() throws Exception {
             String username = "unknown";
-            when(service.getSummary(username)).thenReturn(null);
+            when(service.getSerializedSummary(username)).thenReturn(null);
 
             mockMvc.perform(get(BASE_URL + "/" + username))
                     .andExpect(status().isNotFound());
 
-            verify(service).getSummary(username);
+            verify(service).getSerializedSummary(username);
         }
     }
 
@@ -145,4 +276,398 @@ class TrainerWorkloadControllerTest {
             verify(service).processWorkload(any(TrainerWorkloadRequest.class));
         }
     }
+
+    @Nested
+    @DisplayName("POST /api/workloads in ASYNC ingest mode")
+    class AsyncIngestTests {
+
+        private TrainerWorkloadRequest request() {
+            TrainerWorkloadRequest request = new TrainerWorkloadRequest();
+            request.setUsername("trainer1");
+            request.setTrainingDate(LocalDate.of(2025, 2, 15));
+            request.setDuration(60);
+            request.setActionType(ActionType.ADD);
+            return request;
+        }
+
+        @Test
+        @DisplayName("should return 202 and queue the event instead of calling the service")
+        void shouldReturn202WhenQueued() throws Exception {
+            when(ingestor.isEnabled()).thenReturn(true);
+            when(ingestor.submit(any(TrainerWorkloadRequest.class))).thenReturn(true);
+
+            mockMvc.perform(post(BASE_URL)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request())))
+                    .andExpect(status().isAccepted());
+
+            verify(service, never()).processWorkload(any());
+        }
+
+        @Test
+        @DisplayName("should return 429 with Retry-After when the queue is full")
+        void shouldReturn429WhenQueueIsFull() throws Exception {
+            when(ingestor.isEnabled()).thenReturn(true);
+            when(ingestor.submit(any(TrainerWorkloadRequest.class))).thenReturn(false);
+            when(ingestor.retryAfter()).thenReturn(Duration.ofSeconds(2));
+
+            mockMvc.perform(post(BASE_URL)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request())))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string("Retry-After", "2"));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/workloads with ranges, usernames, ranking and leaderboard")
+    class QueryTests {
+
+        @Test
+        @DisplayName("should pass the from/to range to the service")
+        void shouldPassRangeToService() throws Exception {
+            MonthRange range = new MonthRange(YearMonth.of(2024, 11), YearMonth.of(2025, 2));
+            when(service.getSummary("trainer1", range)).thenReturn(new TrainerWorkloadResponse());
+
+            mockMvc.perform(get(BASE_URL + "/trainer1").param("from", "2024-11").param("to", "2025-02"))
+                    .andExpect(status().isOk());
+
+            verify(service).getSummary("trainer1", range);
+        }
+
+        @Test
+        @DisplayName("should return 400 when from is after to")
+        void shouldReturn400WhenRangeIsInverted() throws Exception {
+            mockMvc.perform(get(BASE_URL + "/trainer1").param("from", "2025-03").param("to", "2025-02"))
+                    .andExpect(status().isBadRequest());
+
+            verify(service, never()).getSummary(any(), any());
+        }
+
+        @Test
+        @DisplayName("should return all requested trainers from one service call")
+        void shouldReturnSummariesForUsernames() throws Exception {
+            TrainerWorkloadResponse first = new TrainerWorkloadResponse();
+            first.setUsername("a");
+            TrainerWorkloadResponse second = new TrainerWorkloadResponse();
+            second.setUsername("b");
+            when(service.getSummaries(Set.of("a", "b"), MonthRange.ALL)).thenReturn(List.of(first, second));
+
+            mockMvc.perform(get(BASE_URL).param("usernames", "a,b,a"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].username").value("a"))
+                    .andExpect(jsonPath("$[1].username").value("b"));
+        }
+
+        @Test
+        @DisplayName("should return 400 when too many usernames are requested")
+        void shouldReturn400WhenTooManyUsernames() throws Exception {
+            properties.getQuery().setMaxUsernames(2);
+
+            mockMvc.perform(get(BASE_URL).param("usernames", "a,b,c"))
+                    .andExpect(status().isBadRequest());
+
+            verify(service, never()).getSummaries(any(), any());
+        }
+
+        @Test
+        @DisplayName("should return a page of the month ranking")
+        void shouldReturnRankingPage() throws Exception {
+            when(service.getRanking(2025, 2, PageRequest.of(1, 2))).thenReturn(new PageImpl<>(
+                    List.of(new TrainerRankingEntry("b", "Bob", "B", 90)), PageRequest.of(1, 2), 3));
+
+            mockMvc.perform(get(BASE_URL + "/ranking")
+                            .param("year", "2025").param("month", "2").param("page", "1").param("size", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content[0].username").value("b"))
+                    .andExpect(jsonPath("$.content[0].totalDuration").value(90))
+                    .andExpect(jsonPath("$.totalElements").value(3));
+        }
+
+        @Test
+        @DisplayName("should return 400 for an invalid month or page size")
+        void shouldReturn400ForInvalidRankingParams() throws Exception {
+            mockMvc.perform(get(BASE_URL + "/ranking").param("year", "2025").param("month", "13"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get(BASE_URL + "/ranking").param("year", "2025").param("month", "2").param("size", "1000"))
+                    .andExpect(status().isBadRequest());
+
+            verify(service, never()).getRanking(anyInt(), anyInt(), any());
+        }
+
+        @Test
+        @DisplayName("should return the top trainers of a month from the leaderboard")
+        void shouldReturnLeaderboard() throws Exception {
+            when(leaderboard.top(2025, 2, 3)).thenReturn(List.of(
+                    new LeaderboardEntry(1, "a", 120),
+                    new LeaderboardEntry(2, "b", 90)));
+
+            mockMvc.perform(get(BASE_URL + "/leaderboard").param("year", "2025").param("month", "2").param("limit", "3"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].rank").value(1))
+                    .andExpect(jsonPath("$[1].username").value("b"))
+                    .andExpect(jsonPath("$[1].totalDuration").value(90));
+        }
+
+        @Test
+        @DisplayName("should return 400 when the leaderboard limit is out of bounds")
+        void shouldReturn400ForInvalidLeaderboardLimit() throws Exception {
+            mockMvc.perform(get(BASE_URL + "/leaderboard").param("year", "2025").param("month", "2").param("limit", "0"))
+                    .andExpect(status().isBadRequest());
+
+            verify(leaderboard, never()).top(anyInt(), anyInt(), anyInt());
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/workloads/export (export)")
+    class ExportTests {
+
+        private void exportWrites(ExportFormat format, String body) throws Exception {
+            when(exporter.export(eq(format), any())).thenAnswer(inv -> {
+                inv.<OutputStream>getArgument(1).write(body.getBytes(StandardCharsets.UTF_8));
+                return 1L;
+            });
+        }
+
+        @Test
+        @DisplayName("should stream NDJSON by default")
+        void shouldStreamNdjsonByDefault() throws Exception {
+            exportWrites(ExportFormat.NDJSON, "{\"username\":\"a\"}\n");
+
+            mockMvc.perform(get(BASE_URL + "/export"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                    .andExpect(header().string("Content-Disposition", "attachment; filename=\"workloads.ndjson\""))
+                    .andExpect(content().string("{\"username\":\"a\"}\n"));
+        }
+
+        @Test
+        @DisplayName("should gzip the stream when the client accepts it")
+        void shouldGzipWhenAccepted() throws Exception {
+            exportWrites(ExportFormat.CSV, "username\n");
+
+            byte[] body = mockMvc.perform(get(BASE_URL + "/export").param("format", "csv")
+                            .header("Accept-Encoding", "gzip, deflate"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("Content-Encoding", "gzip"))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("username\n");
+            }
+        }
+
+        @Test
+        @DisplayName("should return 400 for an unknown format")
+        void shouldReturn400ForUnknownFormat() throws Exception {
+            mockMvc.perform(get(BASE_URL + "/export").param("format", "xml"))
+                    .andExpect(status().isBadRequest());
+
+            verify(exporter, never()).export(any(), any());
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/workloads/{username}/days, weeks and years")
+    class CalendarTests {
+
+        @Test
+        @DisplayName("should return every day with ISO dates")
+        void shouldReturnDays() throws Exception {
+            LocalDate from = LocalDate.of(2025, 2, 28);
+            when(calendar.getDays("trainer1", from, LocalDate.of(2025, 3, 1))).thenReturn(List.of(
+                    new DayTotal(from, 60), new DayTotal(LocalDate.of(2025, 3, 1), 0)));
+
+            mockMvc.perform(get(BASE_URL + "/trainer1/days").param("from", "2025-02-28").param("to", "2025-03-01"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].date").value("2025-02-28"))
+                    .andExpect(jsonPath("$[0].totalDuration").value(60))
+                    .andExpect(jsonPath("$[1].date").value("2025-03-01"));
+        }
+
+        @Test
+        @DisplayName("should return weeks with their ISO week-based year")
+        void shouldReturnWeeks() throws Exception {
+            when(calendar.getWeeks("trainer1", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 1)))
+                    .thenReturn(List.of(new WeekTotal(2025, 1, LocalDate.of(2024, 12, 30), 90)));
+
+            mockMvc.perform(get(BASE_URL + "/trainer1/weeks").param("from", "2025-01-01").param("to", "2025-01-01"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].weekYear").value(2025))
+                    .andExpect(jsonPath("$[0].week").value(1))
+                    .andExpect(jsonPath("$[0].start").value("2024-12-30"));
+        }
+
+        @Test
+        @DisplayName("should return 400 for a reversed or too long range without reading")
+        void shouldRejectBadRanges() throws Exception {
+            mockMvc.perform(get(BASE_URL + "/trainer1/days").param("from", "2025-03-02").param("to", "2025-03-01"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get(BASE_URL + "/trainer1/weeks").param("from", "2024-01-01").param("to", "2025-01-06"))
+                    .andExpect(status().isBadRequest());
+
+            verify(calendar, never()).getDays(any(), any(), any());
+            verify(calendar, never()).getWeeks(any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("should return 404 for an unknown trainer")
+        void shouldReturn404ForUnknownTrainer() throws Exception {
+            when(calendar.getDays("ghost", LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 1))).thenReturn(null);
+            when(calendar.getYears("ghost")).thenReturn(null);
+
+            mockMvc.perform(get(BASE_URL + "/ghost/days").param("from", "2025-03-01").param("to", "2025-03-01"))
+                    .andExpect(status().isNotFound());
+            mockMvc.perform(get(BASE_URL + "/ghost/years"))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("should return the year rollup")
+        void shouldReturnYears() throws Exception {
+            when(calendar.getYears("trainer1")).thenReturn(List.of(new YearTotal(2024, 300), new YearTotal(2025, 60)));
+
+            mockMvc.perform(get(BASE_URL + "/trainer1/years"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[1].year").value(2025))
+                    .andExpect(jsonPath("$[1].totalDuration").value(60));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/workloads/stream (stream)")
+    class StreamTests {
+
+        @Test
+        @DisplayName("should open an event stream filtered by usernames")
+        void shouldOpenFilteredStream() throws Exception {
+            when(changeStream.subscribe(Set.of("a", "b"))).thenReturn(new SseEmitter());
+
+            mockMvc.perform(get(BASE_URL + "/stream").param("usernames", "a,b"))
+                    .andExpect(status().isOk())
+                    .andExpect(request().asyncStarted());
+        }
+
+        @Test
+        @DisplayName("should return 503 when the subscriber limit is reached")
+        void shouldReturn503WhenFull() throws Exception {
+            when(changeStream.subscribe(Set.of())).thenReturn(null);
+
+            mockMvc.perform(get(BASE_URL + "/stream"))
+                    .andExpect(status().isServiceUnavailable());
+        }
+    }
+
+    @Nested
+    @DisplayName("overload admission")
+    class OverloadTests {
+
+        private final BulkheadRegistry bulkheads = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(1)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        private final RateLimiterRegistry rateLimiters = RateLimiterRegistry.of(Map.of("workload-caller",
+                RateLimiterConfig.custom()
+                        .limitForPeriod(2)
+                        .limitRefreshPeriod(Duration.ofMinutes(1))
+                        .timeoutDuration(Duration.ZERO)
+                        .build()));
+        private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        @BeforeEach
+        void setUp() {
+            WorkloadProperties.Overload.Endpoint export = new WorkloadProperties.Overload.Endpoint();
+            export.setBulkhead("workload-export");
+            properties.getOverload().getEndpoints().put("export", export);
+            mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                    .setMessageConverters(new ByteArrayHttpMessageConverter(),
+                            new MappingJackson2HttpMessageConverter(objectMapper))
+                    .setControllerAdvice(new OverloadExceptionHandler(meterRegistry))
+                    .addInterceptors(new WorkloadAdmissionInterceptor(properties, bulkheads, rateLimiters, meterRegistry))
+                    .build();
+        }
+
+        private MockHttpServletRequestBuilder write(String caller) throws Exception {
+            TrainerWorkloadRequest request = new TrainerWorkloadRequest();
+            request.setUsername("trainer1");
+            request.setTrainingDate(LocalDate.of(2025, 2, 15));
+            request.setDuration(60);
+            request.setActionType(ActionType.ADD);
+            return post(BASE_URL)
+                    .header("X-Auth-Username", caller)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(request));
+        }
+
+        private double rejected(String endpoint, String reason) {
+            return meterRegistry.counter("workload.overload.rejected", "endpoint", endpoint, "reason", reason).count();
+        }
+
+        @Test
+        @DisplayName("should return 429 with Retry-After once a caller is over its rate, without touching others")
+        void shouldRateLimitPerCaller() throws Exception {
+            mockMvc.perform(write("gateway-a")).andExpect(status().isOk());
+            mockMvc.perform(write("gateway-a")).andExpect(status().isOk());
+
+            mockMvc.perform(write("gateway-a"))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string("Retry-After", "60"));
+            mockMvc.perform(write("gateway-b")).andExpect(status().isOk());
+
+            verify(service, times(3)).processWorkload(any(TrainerWorkloadRequest.class));
+            assertThat(rejected("updateWorkload", "rate-limited")).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should return 503 when the write bulkhead is full, while reads keep their own")
+        void shouldShedWritesOnAFullBulkhead() throws Exception {
+            Bulkhead writes = bulkheads.bulkhead("workload-write");
+            assertThat(writes.tryAcquirePermission()).isTrue();
+
+            mockMvc.perform(write("gateway-a"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"));
+            mockMvc.perform(get(BASE_URL + "/trainer1")).andExpect(status().isNotFound());
+
+            writes.onComplete();
+            mockMvc.perform(write("gateway-a")).andExpect(status().isOk());
+            mockMvc.perform(write("gateway-a")).andExpect(status().isTooManyRequests());
+            assertThat(rejected("updateWorkload", "bulkhead-full")).isEqualTo(1);
+            assertThat(bulkheads.bulkhead("workload-write").getMetrics().getAvailableConcurrentCalls()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should put an endpoint with an override on its own bulkhead")
+        void shouldHonourEndpointOverrides() throws Exception {
+            assertThat(bulkheads.bulkhead("workload-export").tryAcquirePermission()).isTrue();
+
+            mockMvc.perform(get(BASE_URL + "/export")).andExpect(status().isServiceUnavailable());
+            mockMvc.perform(get(BASE_URL + "/trainer1")).andExpect(status().isNotFound());
+
+            verify(exporter, never()).export(any(), any());
+        }
+
+        @Test
+        @DisplayName("should give the permit of a stream back once the handler returns")
+        void shouldReleaseThePermitOfAStream() throws Exception {
+            when(changeStream.subscribe(Set.of())).thenReturn(new SseEmitter());
+
+            mockMvc.perform(get(BASE_URL + "/stream")).andExpect(request().asyncStarted());
+
+            assertThat(bulkheads.bulkhead("workload-read").getMetrics().getAvailableConcurrentCalls()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should return 503 when a repository call runs past its deadline")
+        void shouldShedTimedOutRepositoryCalls() throws Exception {
+            doThrow(new TransactionTimedOutException("deadline passed"))
+                    .when(service).processWorkload(any(TrainerWorkloadRequest.class));
+
+            mockMvc.perform(write("gateway-a"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"));
+            assertThat(bulkheads.bulkhead("workload-write").getMetrics().getAvailableConcurrentCalls()).isEqualTo(1);
+        }
+    }
 }
@@ -0,0 +1,52 @@
+package org.example.workload_service.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class YearMonthTotalsTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void add_shouldKeepYearsOrdered_andExposeMapView() {
+        YearMonthTotals totals = new YearMonthTotals(1);
+        totals.add(2024, 7, 90);
+        totals.add(2022, 1, 10);
+        totals.add(2024, 6, 120);
+        totals.add(2023, 12, 200);
+
+        assertThat(totals.keySet()).containsExactly(2022, 2023, 2024);
+        assertThat(totals.get(2024)).containsExactly(Map.entry("Jun", 120), Map.entry("Jul", 90));
+        assertThat(totals.get(2024).get("Aug")).isNull();
+        assertThat(totals.get(2025)).isNull();
+    }
+
+    @Test
+    void serializer_shouldWriteSameShapeAsNestedMaps() throws Exception {
+        YearMonthTotals totals = new YearMonthTotals();
+        totals.add(2023, 12, 200);
+        totals.add(2024, 6, 0);
+        totals.add(2024, 1, 150);
+
+        Map<Integer, Map<String, Integer>> nested = new HashMap<>();
+        nested.put(2023, Map.of("Dec", 200));
+        nested.put(2024, Map.of("Jan", 150, "Jun", 0));
+
+        assertThat(objectMapper.readTree(objectMapper.writeValueAsString(totals)))
+                .isEqualTo(objectMapper.readTree(objectMapper.writeValueAsString(nested)));
+        assertThat(objectMapper.writeValueAsString(totals)).isEqualTo("{\"2023\":{\"Dec\":200},\"2024\":{\"Jan\":150,\"Jun\":0}}");
+    }
+
+    @Test
+    void put_shouldCopyMonthsByName() throws Exception {
+        TrainerWorkloadResponse response = new TrainerWorkloadResponse();
+        response.getYearsSummary().put(2025, Map.of("Feb", 100));
+
+        assertThat(objectMapper.writeValueAsString(response)).contains("\"yearsSummary\":{\"2025\":{\"Feb\":100}}");
+    }
+}
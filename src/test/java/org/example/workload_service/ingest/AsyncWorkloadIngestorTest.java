@@ -0,0 +1,134 @@
+package org.example.workload_service.ingest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.workload_service.Enum.ActionType;
+import org.example.workload_service.Enum.IngestMode;
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.dto.BatchItemResult;
+import org.example.workload_service.dto.TrainerWorkloadRequest;
+import org.example.workload_service.service.BatchFailedException;
+import org.example.workload_service.service.TrainerWorkloadBatchService;
+import org.example.workload_service.service.TrainerWorkloadService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncWorkloadIngestorTest {
+
+    @Mock
+    private TrainerWorkloadBatchService batchService;
+
+    @Mock
+    private TrainerWorkloadService service;
+
+    private SimpleMeterRegistry meterRegistry;
+    private WorkloadEventChannel channel;
+    private AsyncWorkloadIngestor ingestor;
+
+    @BeforeEach
+    void setUp() {
+        WorkloadProperties properties = new WorkloadProperties();
+        properties.getIngest().setMode(IngestMode.ASYNC);
+        properties.getIngest().setBatchSize(3);
+        meterRegistry = new SimpleMeterRegistry();
+        channel = new InMemoryWorkloadEventChannel(4);
+        ingestor = new AsyncWorkloadIngestor(properties, channel, batchService, service, meterRegistry,
+                new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true"));
+    }
+
+    private TrainerWorkloadRequest request(int duration) {
+        TrainerWorkloadRequest request = new TrainerWorkloadRequest();
+        request.setUsername("john.doe");
+        request.setTrainingDate(LocalDate.of(2024, 6, 15));
+        request.setDuration(duration);
+        request.setActionType(ActionType.ADD);
+        return request;
+    }
+
+    @Test
+    void submit_shouldRejectOnceChannelIsFull() {
+        for (int i = 0; i < 4; i++)
+            assertThat(ingestor.submit(request(i))).isTrue();
+
+        assertThat(ingestor.submit(request(5))).isFalse();
+        assertThat(meterRegistry.get("workload.ingest.queue.depth").gauge().value()).isEqualTo(4);
+        assertThat(meterRegistry.get("workload.ingest.rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void workers_shouldDrainQueueInMicroBatches() throws Exception {
+        for (int i = 0; i < 4; i++)
+            ingestor.submit(request(i));
+
+        ingestor.start();
+        ingestor.stop();
+
+        verify(batchService, times(2)).processBatch(anyList());
+        assertThat(channel.depth()).isZero();
+        assertThat(meterRegistry.get("workload.ingest.batch.size").summary().totalAmount()).isEqualTo(4);
+        assertThat(meterRegistry.get("workload.ingest.lag").timer().count()).isEqualTo(4);
+    }
+
+    @Test
+    void apply_shouldFallBackToSingleEvents_whenBatchRolledBack() {
+        List<TrainerWorkloadRequest> requests = List.of(request(1), request(2), request(3));
+        when(batchService.processBatch(anyList())).thenThrow(new BatchFailedException(List.of(
+                BatchItemResult.failed(0, requests.get(0), "write rolled back"),
+                BatchItemResult.failed(1, requests.get(1), "write rolled back"),
+                BatchItemResult.failed(2, requests.get(2), "write rolled back")), new IllegalStateException("boom")));
+        lenient().doThrow(new IllegalStateException("bad event")).when(service).processWorkload(argThat(r -> r.getDuration() == 2));
+
+        ingestor.apply(requests.stream().map(QueuedWorkload::of).toList());
+
+        verify(service, times(3)).processWorkload(any());
+        assertThat(meterRegistry.get("workload.ingest.failed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void apply_shouldNotReplayStoredEvents_whenTheBatchFailsAfterItsCommit() {
+        TrainerWorkloadRequest rolledBack = request(2);
+        when(batchService.processBatch(anyList())).thenThrow(new BatchFailedException(List.of(
+                BatchItemResult.applied(0, request(1)),
+                BatchItemResult.failed(1, rolledBack, "write rolled back")), new IllegalStateException("journal full")));
+
+        ingestor.apply(List.of(QueuedWorkload.of(request(1)), QueuedWorkload.of(rolledBack)));
+
+        verify(service).processWorkload(rolledBack);
+        verifyNoMoreInteractions(service);
+    }
+
+    @Test
+    void apply_shouldNotReplay_whenTheOutcomeIsUnknown() {
+        when(batchService.processBatch(anyList())).thenThrow(new IllegalStateException("listener failed"));
+
+        ingestor.apply(List.of(QueuedWorkload.of(request(1)), QueuedWorkload.of(request(2))));
+
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void apply_shouldReplayOnlyTheEventsOfAFailedShard_whenTheOthersCommitted() {
+        TrainerWorkloadRequest failed = request(2);
+        when(batchService.processBatch(anyList())).thenReturn(List.of(
+                BatchItemResult.applied(0, request(1)),
+                BatchItemResult.failed(1, failed, "shard write failed"),
+                BatchItemResult.applied(2, request(3))));
+
+        ingestor.apply(List.of(QueuedWorkload.of(request(1)), QueuedWorkload.of(failed), QueuedWorkload.of(request(3))));
+
+        verify(service).processWorkload(failed);
+        verifyNoMoreInteractions(service);
+    }
+}
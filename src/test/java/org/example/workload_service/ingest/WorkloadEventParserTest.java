@@ -0,0 +1,57 @@
+package org.example.workload_service.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.example.workload_service.Enum.ActionType;
+import org.example.workload_service.dto.TrainerWorkloadRequest;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WorkloadEventParserTest {
+
+    @Test
+    void csv_shouldMapColumnsByHeaderAndUnquoteFields() {
+        WorkloadEventParser parser = WorkloadEventParser.csv("duration,actionType,username,firstName,trainingDate,idempotencyKey");
+
+        TrainerWorkloadRequest request = parser.parse("60,ADD,john.doe,\"John, \"\"JD\"\"\",2024-06-15,");
+
+        assertThat(request.getUsername()).isEqualTo("john.doe");
+        assertThat(request.getFirstName()).isEqualTo("John, \"JD\"");
+        assertThat(request.getTrainingDate()).isEqualTo(LocalDate.of(2024, 6, 15));
+        assertThat(request.getDuration()).isEqualTo(60);
+        assertThat(request.getActionType()).isEqualTo(ActionType.ADD);
+        assertThat(request.getIdempotencyKey()).isNull();
+    }
+
+    @Test
+    void csv_shouldReturnNull_forInvalidLines() {
+        WorkloadEventParser parser = WorkloadEventParser.csv("username,trainingDate,duration,actionType");
+
+        assertThat(parser.parse("john.doe,2024-06-15,sixty,ADD")).isNull();
+        assertThat(parser.parse(",2024-06-15,60,ADD")).isNull();
+        assertThat(parser.parse("john.doe,2024-06-15,-5,DELETE")).isNull();
+    }
+
+    @Test
+    void csv_shouldRejectHeaderWithoutRequiredColumns() {
+        assertThatThrownBy(() -> WorkloadEventParser.csv("username,duration"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("trainingDate");
+    }
+
+    @Test
+    void ndjson_shouldParseRequestsAndRejectMalformedLines() {
+        WorkloadEventParser parser = WorkloadEventParser.ndjson(new ObjectMapper().registerModule(new JavaTimeModule()));
+
+        TrainerWorkloadRequest request = parser.parse(
+                "{\"username\":\"john.doe\",\"trainingDate\":\"2024-06-15\",\"duration\":30,\"actionType\":\"DELETE\",\"idempotencyKey\":\"k1\"}");
+
+        assertThat(request.getActionType()).isEqualTo(ActionType.DELETE);
+        assertThat(request.getIdempotencyKey()).isEqualTo("k1");
+        assertThat(parser.parse("{\"username\":")).isNull();
+    }
+}
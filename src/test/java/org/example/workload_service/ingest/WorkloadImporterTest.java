@@ -0,0 +1,234 @@
+package org.example.workload_service.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.entity.ImportCheckpoint;
+import org.example.workload_service.entity.TrainerWorkload;
+import org.example.workload_service.journal.WorkloadJournal;
+import org.example.workload_service.respository.ImportCheckpointRepository;
+import org.example.workload_service.respository.TrainerWorkloadBatchRepository;
+import org.example.workload_service.service.IdempotencyKeyStore;
+import org.example.workload_service.service.InMemoryWorkloadEngine;
+import org.example.workload_service.service.WorkloadMonthKey;
+import org.example.workload_service.service.WorkloadUpdatedEvent;
+import org.example.workload_service.service.WorkloadWriteGuard;
+import org.example.workload_service.sharding.WorkloadShards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.example.workload_service.service.WorkloadEventMatchers.updated;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WorkloadImporterTest {
+
+    private static final String HEADER = "idempotencyKey,username,firstName,lastName,active,trainingDate,duration,actionType\n";
+
+    @Mock
+    private ImportCheckpointRepository checkpoints;
+
+    @Mock
+    private TrainerWorkloadBatchRepository batchRepository;
+
+    @Mock
+    private WorkloadWriteGuard writeGuard;
+
+    @Mock
+    private IdempotencyKeyStore idempotencyStore;
+
+    @Mock
+    private InMemoryWorkloadEngine engine;
+
+    @Mock
+    private WorkloadJournal journal;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @TempDir
+    private Path dir;
+
+    private WorkloadImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        WorkloadProperties properties = new WorkloadProperties();
+        properties.getImporter().setChunkSize(2);
+        properties.getImporter().setParallelism(2);
+        importer = new WorkloadImporter(properties, checkpoints, batchRepository, writeGuard,
+                idempotencyStore, engine, journal, eventPublisher, new ObjectMapper().registerModule(new JavaTimeModule()),
+                new WorkloadShards(properties));
+
+        lenient().when(writeGuard.executeAll(any(), any())).thenAnswer(inv -> inv.<Supplier<?>>getArgument(1).get());
+        lenient().when(checkpoints.save(any())).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    private Path file(String body) throws Exception {
+        Path file = dir.resolve("events.csv");
+        Files.writeString(file, HEADER + body);
+        return file;
+    }
+
+    private static TrainerWorkload row(String username, int month, int total) {
+        TrainerWorkload row = new TrainerWorkload();
+        row.setId((long) month);
+        row.setUsername(username);
+        row.setYear(2024);
+        row.setMonth(month);
+        row.setTotalDuration(total);
+        row.setVersion(0L);
+        return row;
+    }
+
+    private static TrainerWorkload copy(TrainerWorkload row) {
+        TrainerWorkload copy = new TrainerWorkload();
+        copy.setUsername(row.getUsername());
+        copy.setYear(row.getYear());
+        copy.setMonth(row.getMonth());
+        copy.setTotalDuration(row.getTotalDuration());
+        copy.setDayTotals(row.getDayTotals());
+        return copy;
+    }
+
+    @Test
+    void importFile_shouldFoldEachMonthAndSkipDuplicateKeys() throws Exception {
+        Path file = file("""
+                k1,john.doe,John,Doe,true,2024-06-01,60,ADD
+                k2,john.doe,John,Doe,true,2024-06-20,30,ADD
+                k1,john.doe,John,Doe,true,2024-06-21,60,ADD
+                k3,john.doe,John,Doe,true,2024-07-02,500,DELETE
+                ,jane,Jane,Roe,true,2024-06-03,45,ADD
+                broken line
+                """);
+        when(checkpoints.findById("import-1")).thenReturn(Optional.empty());
+        Set<String> stored = new HashSet<>();
+        when(idempotencyStore.findDuplicates(any())).thenAnswer(inv -> inv.<Collection<String>>getArgument(0).stream()
+                .filter(stored::contains).collect(Collectors.toSet()));
+        doAnswer(inv -> stored.addAll(inv.getArgument(0))).when(idempotencyStore).recordAll(any());
+        when(batchRepository.findMonths(any())).thenAnswer(inv -> Stream.of(row("john.doe", 6, 100), row("john.doe", 7, 200))
+                .filter(row -> inv.<Collection<WorkloadMonthKey>>getArgument(0).contains(WorkloadMonthKey.of(row)))
+                .toList());
+
+        ImportCheckpoint checkpoint = importer.importFile(file, "import-1");
+
+        assertThat(checkpoint.isCompleted()).isTrue();
+        assertThat(checkpoint.getChunksCommitted()).isEqualTo(3);
+        assertThat(checkpoint.getEventsRead()).isEqualTo(6);
+        assertThat(checkpoint.getEventsApplied()).isEqualTo(3);
+        assertThat(checkpoint.getEventsDuplicate()).isEqualTo(1);
+        assertThat(checkpoint.getEventsRejected()).isEqualTo(2);
+
+        ArgumentCaptor<WorkloadUpdatedEvent> events = ArgumentCaptor.forClass(WorkloadUpdatedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        // both June ADDs of the first chunk land as one update, the oversized DELETE is rejected and keeps its key
+        assertThat(events.getAllValues()).extracting(WorkloadUpdatedEvent::username, WorkloadUpdatedEvent::month,
+                        WorkloadUpdatedEvent::totalDuration, WorkloadUpdatedEvent::delta)
+                .containsExactlyInAnyOrder(tuple("john.doe", 6, 190, 90), tuple("jane", 6, 45, 45));
+        assertThat(stored).containsExactlyInAnyOrder("k1", "k2");
+        verify(journal, times(3)).append(anyCollection());
+    }
+
+    @Test
+    void importFile_shouldRejectDeletesLargerThanTheMonthTotalAtThatPoint() throws Exception {
+        Path file = file("""
+                a1,john.doe,John,Doe,true,2024-06-01,10,ADD
+                a2,john.doe,John,Doe,true,2024-06-02,30,DELETE
+                a3,john.doe,John,Doe,true,2024-06-03,5,ADD
+                b1,jane,Jane,Roe,true,2024-07-01,30,DELETE
+                b2,jane,Jane,Roe,true,2024-07-02,40,ADD
+                """);
+        when(checkpoints.findById("import-1")).thenReturn(Optional.empty());
+        Set<String> stored = new HashSet<>();
+        doAnswer(inv -> stored.addAll(inv.getArgument(0))).when(idempotencyStore).recordAll(any());
+        // a table that keeps what each chunk wrote, so later chunks fold from it
+        Map<WorkloadMonthKey, TrainerWorkload> table = new HashMap<>();
+        when(batchRepository.findMonths(any())).thenAnswer(inv -> inv.<Collection<WorkloadMonthKey>>getArgument(0).stream()
+                .map(table::get)
+                .filter(Objects::nonNull)
+                .map(WorkloadImporterTest::copy)
+                .toList());
+        doAnswer(inv -> {
+            inv.<List<TrainerWorkload>>getArgument(0).forEach(row -> table.put(WorkloadMonthKey.of(row), copy(row)));
+            return null;
+        }).when(batchRepository).insert(any());
+        doAnswer(inv -> {
+            inv.<List<TrainerWorkload>>getArgument(0).forEach(row -> table.put(WorkloadMonthKey.of(row), copy(row)));
+            return null;
+        }).when(batchRepository).updateTotals(any());
+
+        ImportCheckpoint checkpoint = importer.importFile(file, "import-1");
+
+        assertThat(table.get(new WorkloadMonthKey("john.doe", 2024, 6)).getTotalDuration()).isEqualTo(15);
+        assertThat(table.get(new WorkloadMonthKey("jane", 2024, 7)).getTotalDuration()).isEqualTo(40);
+        assertThat(checkpoint.getEventsApplied()).isEqualTo(3);
+        assertThat(checkpoint.getEventsRejected()).isEqualTo(2);
+        assertThat(stored).containsExactlyInAnyOrder("a1", "a3", "b2");
+    }
+
+    @Test
+    void importFile_shouldSkipChunksTheCheckpointAlreadyCommitted() throws Exception {
+        Path file = file("""
+                ,a,A,A,true,2024-06-01,10,ADD
+                ,b,B,B,true,2024-06-01,10,ADD
+                ,c,C,C,true,2024-06-01,10,ADD
+                """);
+        ImportCheckpoint committed = new ImportCheckpoint("import-1", file.toString(), 2)
+                .next(2, 2, 0, 0);
+        when(checkpoints.findById("import-1")).thenReturn(Optional.of(committed));
+        when(batchRepository.findMonths(any())).thenReturn(List.of());
+
+        ImportCheckpoint checkpoint = importer.importFile(file, "import-1");
+
+        assertThat(checkpoint.getChunksCommitted()).isEqualTo(2);
+        assertThat(checkpoint.getEventsApplied()).isEqualTo(3);
+        verify(batchRepository).findMonths(Set.of(new WorkloadMonthKey("c", 2024, 6)));
+        verify(eventPublisher).publishEvent(updated("c", 2024, 6, 10, 10));
+    }
+
+    @Test
+    void importFile_shouldDoNothing_whenImportAlreadyCompleted() throws Exception {
+        Path file = file(",a,A,A,true,2024-06-01,10,ADD\n");
+        ImportCheckpoint completed = new ImportCheckpoint("import-1", file.toString(), 2);
+        completed.setCompleted(true);
+        when(checkpoints.findById("import-1")).thenReturn(Optional.of(completed));
+
+        assertThat(importer.importFile(file, "import-1")).isSameAs(completed);
+
+        verifyNoInteractions(writeGuard, batchRepository, eventPublisher);
+    }
+
+    @Test
+    void importFile_shouldRefuse_whenTheInMemoryEngineIsOn() throws Exception {
+        Path file = file(",a,A,A,true,2024-06-01,10,ADD\n");
+        when(engine.isEnabled()).thenReturn(true);
+
+        assertThatThrownBy(() -> importer.importFile(file, "import-1")).isInstanceOf(IllegalStateException.class);
+
+        verifyNoInteractions(checkpoints, writeGuard, idempotencyStore, batchRepository);
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.workload_service.journal;
+
+import org.example.workload_service.Enum.ActionType;
+import org.example.workload_service.dto.TrainerWorkloadRequest;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JournalRecordTest {
+
+    private TrainerWorkloadRequest request() {
+        TrainerWorkloadRequest request = new TrainerWorkloadRequest();
+        request.setIdempotencyKey("key-1");
+        request.setUsername("john.doe");
+        request.setFirstName("Jöhn");
+        request.setLastName(null);
+        request.setActive(true);
+        request.setTrainingDate(LocalDate.of(2024, 6, 15));
+        request.setDuration(60);
+        request.setActionType(ActionType.DELETE);
+        return request;
+    }
+
+    @Test
+    void encode_shouldRoundTrip() {
+        JournalRecord record = JournalRecord.of(request(), 1_700_000_000_000L);
+
+        JournalRecord decoded = JournalRecord.read(ByteBuffer.wrap(record.encode()));
+
+        assertThat(decoded).isEqualTo(record);
+        assertThat(decoded.signedDuration()).isEqualTo(-60);
+    }
+
+    @Test
+    void read_shouldStopAtTornOrCorruptFrame() {
+        byte[] frame = JournalRecord.of(request(), 1L).encode();
+
+        ByteBuffer torn = ByteBuffer.wrap(frame, 0, frame.length - 3).slice();
+        assertThat(JournalRecord.read(torn)).isNull();
+        assertThat(torn.position()).isZero();
+
+        frame[frame.length - 1] ^= 1;
+        assertThat(JournalRecord.read(ByteBuffer.wrap(frame))).isNull();
+        assertThat(JournalRecord.read(ByteBuffer.allocate(64))).isNull();
+    }
+}
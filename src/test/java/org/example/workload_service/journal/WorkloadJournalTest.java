@@ -0,0 +1,195 @@
+package org.example.workload_service.journal;
+
+import org.example.workload_service.Enum.ActionType;
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.dto.TrainerWorkloadRequest;
+import org.example.workload_service.entity.TrainerWorkload;
+import org.example.workload_service.respository.TrainerWorkloadBatchRepository;
+import org.example.workload_service.service.MonthDays;
+import org.example.workload_service.sharding.WorkloadShards;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+
+class WorkloadJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private WorkloadProperties properties;
+    private WorkloadJournal journal;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        properties = new WorkloadProperties();
+        properties.getJournal().setEnabled(true);
+        properties.getJournal().setDirectory(directory.toString());
+        properties.getJournal().setSegmentSize(DataSize.ofKilobytes(4));
+        journal = open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        journal.close();
+    }
+
+    private WorkloadJournal open() throws IOException {
+        WorkloadJournal opened = new WorkloadJournal(properties);
+        opened.open();
+        return opened;
+    }
+
+    private TrainerWorkloadRequest request(String username, ActionType actionType, int month, int duration) {
+        TrainerWorkloadRequest request = new TrainerWorkloadRequest();
+        request.setUsername(username);
+        request.setFirstName("John");
+        request.setLastName("Doe");
+        request.setActive(true);
+        request.setTrainingDate(LocalDate.of(2024, month, 15));
+        request.setDuration(duration);
+        request.setActionType(actionType);
+        return request;
+    }
+
+    private List<JournalRecord> readAll(WorkloadJournal source) {
+        List<JournalRecord> records = new ArrayList<>();
+        source.read(0, source.position(), records::add);
+        return records;
+    }
+
+    @Test
+    void append_shouldRollSegmentsAndReadBackInOrder() throws IOException {
+        for (int i = 0; i < 200; i++)
+            journal.append(request("trainer-" + i, ActionType.ADD, 6, i));
+
+        List<JournalRecord> records = readAll(journal);
+
+        assertThat(records).hasSize(200);
+        assertThat(records).extracting(JournalRecord::duration).containsExactlyElementsOf(
+                Stream.iterate(0, i -> i + 1).limit(200).toList());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.filter(p -> p.getFileName().toString().startsWith("journal-")).count()).isGreaterThan(1);
+        }
+    }
+
+    @Test
+    void snapshot_shouldDropSegmentsTheOldestKeptSnapshotCovers() throws IOException {
+        properties.getJournal().setRetainedSnapshots(1);
+        JournalSnapshotter snapshotter =
+                new JournalSnapshotter(journal, properties, mock(TrainerWorkloadBatchRepository.class),
+                        new WorkloadShards(properties));
+        for (int i = 0; i < 200; i++)
+            journal.append(request("john.doe", ActionType.ADD, 6, 1));
+        snapshotter.snapshot();
+        long covered = journal.position();
+        journal.append(request("john.doe", ActionType.ADD, 6, 10));
+
+        List<Long> bases;
+        try (Stream<Path> files = Files.list(directory)) {
+            bases = files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith("journal-"))
+                    .map(name -> Long.parseLong(name.substring("journal-".length(), name.length() - ".log".length())))
+                    .sorted()
+                    .toList();
+        }
+        // only the segment the snapshot ends in is left, and the fold still sees every event
+        assertThat(bases).hasSize(1);
+        assertThat(bases.getFirst()).isLessThanOrEqualTo(covered);
+        assertThat(snapshotter.fold().rows()).extracting(TrainerWorkload::getTotalDuration).containsExactly(210);
+    }
+
+    @Test
+    void append_shouldShareForcesAcrossConcurrentWriters() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        for (int i = 0; i < 800; i++) {
+            int n = i;
+            pool.submit(() -> journal.append(request("trainer-" + (n % 16), ActionType.ADD, 6, 1)));
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(readAll(journal)).hasSize(800);
+        assertThat(journal.syncCount()).isLessThanOrEqualTo(800);
+    }
+
+    @Test
+    void open_shouldRecoverPositionAndDropTornTail() throws IOException {
+        journal.append(request("john.doe", ActionType.ADD, 6, 60));
+        long end = journal.append(request("john.doe", ActionType.ADD, 6, 30));
+        journal.close();
+
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(p -> p.getFileName().toString().startsWith("journal-")).findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // header of a frame whose payload never made it to disk
+            channel.write(ByteBuffer.allocate(8).putInt(0, 40).putInt(4, 12345), end);
+        }
+
+        journal = open();
+        assertThat(journal.position()).isEqualTo(end);
+        journal.append(request("john.doe", ActionType.DELETE, 6, 20));
+
+        assertThat(readAll(journal)).extracting(JournalRecord::signedDuration).containsExactly(60, 30, -20);
+    }
+
+    @Test
+    void fold_shouldApplyJournalTailOnTopOfLatestSnapshot() {
+        JournalSnapshotter snapshotter =
+                new JournalSnapshotter(journal, properties, mock(TrainerWorkloadBatchRepository.class),
+                        new WorkloadShards(properties));
+        journal.append(request("john.doe", ActionType.ADD, 6, 60));
+        journal.append(request("jane.doe", ActionType.ADD, 7, 45));
+        snapshotter.snapshot();
+
+        journal.append(request("john.doe", ActionType.ADD, 6, 30));
+        journal.append(request("john.doe", ActionType.DELETE, 6, 50));
+        journal.append(request("john.doe", ActionType.ADD, 8, 15));
+
+        JournalSnapshot folded = snapshotter.fold();
+
+        assertThat(folded.getPosition()).isEqualTo(journal.position());
+        assertThat(folded.rows())
+                .extracting(TrainerWorkload::getUsername, TrainerWorkload::getMonth, TrainerWorkload::getTotalDuration)
+                .containsExactlyInAnyOrder(
+                        tuple("john.doe", 6, 40),
+                        tuple("john.doe", 8, 15),
+                        tuple("jane.doe", 7, 45));
+    }
+
+    @Test
+    void fold_shouldClampDaysOnlyAfterTheWholeTail_whenADeleteIsJournaledAheadOfItsAdd() {
+        JournalSnapshotter snapshotter =
+                new JournalSnapshotter(journal, properties, mock(TrainerWorkloadBatchRepository.class),
+                        new WorkloadShards(properties));
+        // both committed, the DELETE after the ADD, but appended in the other order
+        journal.append(request("john.doe", ActionType.DELETE, 6, 20));
+        journal.append(request("john.doe", ActionType.ADD, 6, 60));
+
+        TrainerWorkload row = snapshotter.fold().rows().iterator().next();
+
+        assertThat(row.getTotalDuration()).isEqualTo(40);
+        assertThat(MonthDays.get(row.getDayTotals(), 15)).isEqualTo(40);
+    }
+}
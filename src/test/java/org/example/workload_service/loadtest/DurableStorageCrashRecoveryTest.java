@@ -0,0 +1,243 @@
+package org.example.workload_service.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.example.workload_service.Enum.ActionType;
+import org.example.workload_service.WorkloadServiceApplication;
+import org.example.workload_service.dto.TrainerWorkloadRequest;
+import org.example.workload_service.dto.YearMonthTotals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// mvn -Pcrashtest test [-Dcrashtest.events=20000]
+// Runs the service as a child JVM on the h2-file profile, SIGKILLs it halfway through an ingest and starts it
+// again on the same files. The child writes every commit through (WRITE_DELAY=0), so each batch acknowledged
+// before the kill has to be there after it. Committed totals and idempotency keys share a transaction, so
+// replaying every event after recovery must land exactly on the expected totals: a total without its key would
+// be counted twice and a key without its total would be skipped.
+@EnabledIfSystemProperty(named = "crashtest", matches = "true")
+class DurableStorageCrashRecoveryTest {
+
+    private static final int EVENTS = Integer.getInteger("crashtest.events", 20_000);
+    private static final int TRAINERS = 50;
+    private static final int BATCH = 100;
+    private static final int SENDERS = 4;
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(3);
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().addModule(new JavaTimeModule()).build();
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+    private final Path directory = Path.of("target", "crashtest", UUID.randomUUID().toString());
+    private Process process;
+    private int port;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        stop();
+    }
+
+    @Test
+    void recoversConsistentTotalsAfterKillDuringIngest() throws Exception {
+        List<List<TrainerWorkloadRequest>> batches = batches();
+        Map<String, Map<Integer, Map<String, Integer>>> expected = expectedTotals(batches);
+
+        start();
+        AtomicInteger acknowledged = new AtomicInteger();
+        List<List<TrainerWorkloadRequest>> acknowledgedBatches = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService senders = Executors.newFixedThreadPool(SENDERS);
+        List<Future<?>> sending = new ArrayList<>();
+        for (int s = 0; s < SENDERS; s++) {
+            int sender = s;
+            sending.add(senders.submit(() -> {
+                for (int b = sender; b < batches.size(); b += SENDERS) {
+                    if (!post(batches.get(b)))
+                        return;
+                    acknowledgedBatches.add(batches.get(b));
+                    acknowledged.incrementAndGet();
+                }
+            }));
+        }
+        while (acknowledged.get() < batches.size() / 2)
+            Thread.sleep(5);
+        process.destroyForcibly().waitFor();
+        process = null;
+        for (Future<?> future : sending)
+            future.get(1, TimeUnit.MINUTES);
+        senders.shutdown();
+        System.out.printf("killed after %d of %d batches were acknowledged%n", acknowledged.get(), batches.size());
+
+        start();
+        Map<String, Map<Integer, Map<String, Integer>>> recovered = totals();
+        long recoveredSum = sum(recovered);
+        System.out.printf("recovered %d of %d minutes before replay%n", recoveredSum, sum(expected));
+        // only ADDs were sent, so no recovered month may be ahead of the full run
+        recovered.forEach((username, years) -> years.forEach((year, months) -> months.forEach((month, total) ->
+                assertThat(total).isLessThanOrEqualTo(expected.get(username).get(year).get(month)))));
+        // and none may be behind the batches the service acknowledged; batches in flight at the kill may add more
+        expectedTotals(acknowledgedBatches).forEach((username, years) -> years.forEach((year, months) ->
+                months.forEach((month, total) -> assertThat(recovered.getOrDefault(username, Map.of())
+                        .getOrDefault(year, Map.of()).getOrDefault(month, 0))
+                        .as("%s %d %s after the kill", username, year, month)
+                        .isGreaterThanOrEqualTo(total))));
+
+        for (List<TrainerWorkloadRequest> batch : batches)
+            assertThat(post(batch)).isTrue();
+
+        assertThat(totals()).isEqualTo(expected);
+    }
+
+    private List<List<TrainerWorkloadRequest>> batches() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<List<TrainerWorkloadRequest>> batches = new ArrayList<>();
+        for (int i = 0; i < EVENTS; i += BATCH) {
+            List<TrainerWorkloadRequest> batch = new ArrayList<>();
+            for (int j = i; j < Math.min(i + BATCH, EVENTS); j++) {
+                TrainerWorkloadRequest request = new TrainerWorkloadRequest();
+                request.setIdempotencyKey(UUID.randomUUID().toString());
+                request.setUsername("trainer-" + random.nextInt(TRAINERS));
+                request.setFirstName("Crash");
+                request.setLastName("Test");
+                request.setActive(true);
+                request.setTrainingDate(LocalDate.of(2024, 1 + random.nextInt(12), 1 + random.nextInt(28)));
+                request.setDuration(1 + random.nextInt(120));
+                request.setActionType(ActionType.ADD);
+                batch.add(request);
+            }
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    private static Map<String, Map<Integer, Map<String, Integer>>> expectedTotals(
+            List<List<TrainerWorkloadRequest>> batches) {
+        Map<String, Map<Integer, Map<String, Integer>>> expected = new HashMap<>();
+        for (List<TrainerWorkloadRequest> batch : batches)
+            for (TrainerWorkloadRequest request : batch)
+                expected.computeIfAbsent(request.getUsername(), u -> new HashMap<>())
+                        .computeIfAbsent(request.getTrainingDate().getYear(), y -> new HashMap<>())
+                        .merge(YearMonthTotals.monthName(request.getTrainingDate().getMonthValue()),
+                                request.getDuration(), Integer::sum);
+        return expected;
+    }
+
+    private Map<String, Map<Integer, Map<String, Integer>>> totals() throws Exception {
+        Map<String, Map<Integer, Map<String, Integer>>> totals = new HashMap<>();
+        for (int t = 0; t < TRAINERS; t++) {
+            String username = "trainer-" + t;
+            HttpResponse<String> response = client.send(request("/api/workloads/" + username).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 404)
+                continue;
+            assertThat(response.statusCode()).isEqualTo(200);
+            Map<String, Object> body = objectMapper.readValue(response.body(), new TypeReference<>() { });
+            totals.put(username, objectMapper.convertValue(body.get("yearsSummary"), new TypeReference<>() { }));
+        }
+        return totals;
+    }
+
+    private static long sum(Map<String, Map<Integer, Map<String, Integer>>> totals) {
+        return totals.values().stream()
+                .flatMap(years -> years.values().stream())
+                .flatMap(months -> months.values().stream())
+                .mapToLong(Integer::longValue)
+                .sum();
+    }
+
+    // false once the service is gone, which is how the senders notice the kill
+    private boolean post(List<TrainerWorkloadRequest> batch) {
+        try {
+            HttpResponse<Void> response = client.send(request("/api/workloads/batch")
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(batch)))
+                            .build(),
+                    HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("X-Auth-Username", "crash.test")
+                .timeout(Duration.ofSeconds(30));
+    }
+
+    private void start() throws Exception {
+        Files.createDirectories(directory);
+        port = freePort();
+        process = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                WorkloadServiceApplication.class.getName(),
+                "--spring.profiles.active=h2-file",
+                "--workload.storage.directory=" + directory.toAbsolutePath(),
+                // the profile's url with every commit written through, acknowledged work must survive the kill
+                "--spring.datasource.url=jdbc:h2:file:" + directory.toAbsolutePath().resolve("trainerdb")
+                        + ";CACHE_SIZE=65536;WRITE_DELAY=0;DB_CLOSE_ON_EXIT=FALSE",
+                "--server.port=" + port,
+                "--eureka.client.enabled=false")
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(directory.resolve("service.log").toFile()))
+                .start();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            assertThat(process.isAlive()).as("service exited during startup").isTrue();
+            try {
+                if (client.send(request("/actuator/health").GET().build(),
+                        HttpResponse.BodyHandlers.discarding()).statusCode() == 200)
+                    return;
+            } catch (ConnectException e) {
+                // not listening yet
+            }
+            Thread.sleep(100);
+        }
+        throw new IllegalStateException("service did not start within " + STARTUP_TIMEOUT);
+    }
+
+    private void stop() throws InterruptedException {
+        if (process == null)
+            return;
+        process.destroy();
+        if (!process.waitFor(1, TimeUnit.MINUTES))
+            process.destroyForcibly().waitFor();
+        process = null;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
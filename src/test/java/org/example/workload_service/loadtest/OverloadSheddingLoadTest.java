@@ -0,0 +1,151 @@
+package org.example.workload_service.loadtest;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.workload_service.WorkloadServiceApplication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// mvn -Poverloadtest test; the same mixed read/write overload once with the guards off and once with them on,
+// where the requests let in should keep a bounded p99 while the rest is turned away with 429 or 503
+@EnabledIfSystemProperty(named = "overloadtest", matches = "true")
+class OverloadSheddingLoadTest {
+
+    private static final Duration DURATION = Duration.parse(System.getProperty("overloadtest.duration", "PT20S"));
+    private static final int CONNECTIONS = Integer.getInteger("overloadtest.connections", 2000);
+    private static final int CALLERS = Integer.getInteger("overloadtest.callers", 20);
+    private static final Duration MAX_P99 = Duration.parse(System.getProperty("overloadtest.max-p99", "PT1S"));
+
+    private record Result(String mode, long admitted, long rateLimited, long shed, long errors,
+                          double admittedThroughput, double admittedP99Millis) {
+    }
+
+    @Test
+    void shedExcessLoad_andKeepTheAdmittedLatencyBounded() throws Exception {
+        List<Result> results = List.of(run(false), run(true));
+
+        StringBuilder report = new StringBuilder(
+                "mode,connections,admitted,rejected_429,rejected_503,errors,admitted_rps,admitted_p99_ms\n");
+        for (Result r : results)
+            report.append(String.format("%s,%d,%d,%d,%d,%d,%.1f,%.1f%n", r.mode(), CONNECTIONS, r.admitted(),
+                    r.rateLimited(), r.shed(), r.errors(), r.admittedThroughput(), r.admittedP99Millis()));
+        Path file = Path.of("target", "loadtest", "overload-shedding.csv");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, report);
+        System.out.println(report);
+
+        Result guarded = results.getLast();
+        assertThat(guarded.admitted()).isPositive();
+        assertThat(guarded.rateLimited() + guarded.shed()).as("requests turned away").isPositive();
+        assertThat(guarded.admittedP99Millis()).as("p99 of admitted requests, ms").isLessThan(MAX_P99.toMillis());
+    }
+
+    private Result run(boolean guarded) throws Exception {
+        String mode = guarded ? "guarded" : "unguarded";
+        ServletWebServerApplicationContext context = (ServletWebServerApplicationContext) new SpringApplication(
+                WorkloadServiceApplication.class).run(
+                "--server.port=0",
+                "--eureka.client.enabled=false",
+                "--workload.overload.enabled=" + guarded,
+                "--server.tomcat.max-connections=" + (CONNECTIONS * 2),
+                "--server.tomcat.accept-count=1000",
+                "--spring.datasource.url=jdbc:h2:mem:overloadtest-" + mode,
+                "--logging.level.root=WARN");
+        try {
+            return drive(mode, context.getWebServer().getPort());
+        } finally {
+            context.close();
+        }
+    }
+
+    private Result drive(String mode, int port) throws InterruptedException {
+        Timer latency = Timer.builder("overloadtest.admitted")
+                .publishPercentiles(0.99)
+                .register(new SimpleMeterRegistry());
+        AtomicLong rateLimited = new AtomicLong();
+        AtomicLong shed = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        String base = "http://localhost:" + port + "/api/workloads";
+        long deadline = System.nanoTime() + DURATION.toNanos();
+
+        // every connection sends its next request as soon as the previous one is answered, a rejection included,
+        // so the offered load stays far above what the guards let in; one connection in four reads
+        try (HttpClient client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(Duration.ofSeconds(30))
+                     .build();
+             ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CONNECTIONS; c++) {
+                int user = c;
+                users.submit(() -> {
+                    long n = 0;
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = request(base, user, n++);
+                        long start = System.nanoTime();
+                        try {
+                            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            if (status == 429)
+                                rateLimited.incrementAndGet();
+                            else if (status == 503)
+                                shed.incrementAndGet();
+                            else if (status >= 500)
+                                errors.incrementAndGet();
+                            else
+                                latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                });
+            }
+            users.shutdown();
+            users.awaitTermination(DURATION.toSeconds() + 120, TimeUnit.SECONDS);
+        }
+
+        double p99 = 0;
+        for (ValueAtPercentile percentile : latency.takeSnapshot().percentileValues())
+            p99 = percentile.value(TimeUnit.MILLISECONDS);
+        long admitted = latency.count();
+        return new Result(mode, admitted, rateLimited.get(), shed.get(), errors.get(),
+                admitted / (double) DURATION.toSeconds(), p99);
+    }
+
+    private static HttpRequest request(String base, int user, long n) {
+        String trainer = "trainer-" + user % 500;
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .header("X-Auth-Username", "gateway-" + user % CALLERS)
+                .header("X-Auth-Roles", "ROLE_TRAINER")
+                .timeout(Duration.ofSeconds(60));
+        if (user % 4 == 0)
+            return request.uri(URI.create(base + "/" + trainer)).GET().build();
+        return request.uri(URI.create(base))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("""
+                        {"username":"%s","firstName":"John","lastName":"Doe","active":true,\
+                        "trainingDate":"%s","duration":30,"actionType":"ADD"}"""
+                        .formatted(trainer, LocalDate.of(2024, 1 + (int) (n % 12), 15))))
+                .build();
+    }
+}
@@ -0,0 +1,140 @@
+package org.example.workload_service.loadtest;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.workload_service.WorkloadServiceApplication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// mvn -Ploadtest test; 10k connections need a file descriptor limit well above 20k since client and server share the JVM
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class RequestExecutionLoadTest {
+
+    private static final Duration DURATION = Duration.parse(System.getProperty("loadtest.duration", "PT20S"));
+    private static final int[] CONNECTIONS = Arrays.stream(System.getProperty("loadtest.connections", "1000,10000")
+            .split(",")).mapToInt(c -> Integer.parseInt(c.trim())).toArray();
+
+    private record Result(String mode, int connections, long requests, long errors, double throughput, double p99Millis) {
+    }
+
+    @Test
+    void compareVirtualAndPlatformThreads() throws Exception {
+        List<Result> results = new ArrayList<>();
+        for (int connections : CONNECTIONS) {
+            results.add(run(false, connections));
+            results.add(run(true, connections));
+        }
+
+        StringBuilder report = new StringBuilder("mode,connections,requests,errors,throughput_rps,p99_ms\n");
+        for (Result r : results)
+            report.append(String.format("%s,%d,%d,%d,%.1f,%.1f%n",
+                    r.mode(), r.connections(), r.requests(), r.errors(), r.throughput(), r.p99Millis()));
+        Path file = Path.of("target", "loadtest", "request-execution.csv");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, report);
+        System.out.println(report);
+
+        for (Result r : results)
+            assertThat(r.requests()).as("%s at %d connections", r.mode(), r.connections()).isPositive();
+    }
+
+    private Result run(boolean virtual, int connections) throws Exception {
+        String mode = virtual ? "virtual" : "platform";
+        ServletWebServerApplicationContext context = (ServletWebServerApplicationContext) new SpringApplication(
+                WorkloadServiceApplication.class).run(
+                "--server.port=0",
+                "--eureka.client.enabled=false",
+                "--spring.threads.virtual.enabled=" + virtual,
+                // measures the thread model, not the shedding in front of it, see OverloadSheddingLoadTest
+                "--workload.overload.enabled=false",
+                "--server.tomcat.max-connections=" + (connections * 2),
+                "--server.tomcat.accept-count=1000",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest-" + mode + "-" + connections,
+                "--logging.level.root=WARN");
+        try {
+            return drive(mode, connections, context.getWebServer().getPort());
+        } finally {
+            context.close();
+        }
+    }
+
+    private Result drive(String mode, int connections, int port) throws InterruptedException {
+        Timer latency = Timer.builder("loadtest.latency")
+                .publishPercentiles(0.99)
+                .register(new SimpleMeterRegistry());
+        AtomicLong errors = new AtomicLong();
+        URI uri = URI.create("http://localhost:" + port + "/api/workloads");
+        long deadline = System.nanoTime() + DURATION.toNanos();
+
+        // one virtual thread per simulated connection, each sending its next request once the previous one returns
+        try (HttpClient client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(Duration.ofSeconds(30))
+                     .build();
+             ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < connections; c++) {
+                int user = c;
+                users.submit(() -> {
+                    long n = 0;
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = HttpRequest.newBuilder(uri)
+                                .header("Content-Type", "application/json")
+                                .header("X-Auth-Username", "loadtest")
+                                .header("X-Auth-Roles", "ROLE_TRAINER")
+                                .timeout(Duration.ofSeconds(60))
+                                .POST(HttpRequest.BodyPublishers.ofString(body(user, n++)))
+                                .build();
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 300)
+                                errors.incrementAndGet();
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                });
+            }
+            users.shutdown();
+            users.awaitTermination(DURATION.toSeconds() + 120, TimeUnit.SECONDS);
+        }
+
+        double p99 = 0;
+        for (ValueAtPercentile percentile : latency.takeSnapshot().percentileValues())
+            p99 = percentile.value(TimeUnit.MILLISECONDS);
+        long requests = latency.count();
+        return new Result(mode, connections, requests, errors.get(), requests / (double) DURATION.toSeconds(), p99);
+    }
+
+    private static String body(int user, long n) {
+        return """
+                {"username":"trainer-%d","firstName":"John","lastName":"Doe","active":true,\
+                "trainingDate":"%s","duration":30,"actionType":"ADD"}"""
+                .formatted(user % 500, LocalDate.of(2024, 1 + (int) (n % 12), 15));
+    }
+}
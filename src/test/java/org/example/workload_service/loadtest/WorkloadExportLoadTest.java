@@ -0,0 +1,128 @@
+package org.example.workload_service.loadtest;
+
+import org.example.workload_service.Enum.ExportFormat;
+import org.example.workload_service.service.WorkloadExporter;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// mvn -Pexporttest test [-Dexporttest.rows=5000000]; the profile caps the heap far below what the rows would need
+// the table lives in a file-backed H2 under target/ so the rows themselves stay off the heap
+@EnabledIfSystemProperty(named = "exporttest", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(properties = {
+        "eureka.client.enabled=false",
+        "spring.datasource.url=jdbc:h2:file:./target/exporttest/workloads-${random.uuid}"
+})
+class WorkloadExportLoadTest {
+
+    private static final int ROWS = Integer.getInteger("exporttest.rows", 5_000_000);
+    private static final int CHUNK = 250_000;
+    private static final int MONTHS_PER_TRAINER = 60;
+
+    private static final String FILL =
+            "INSERT INTO trainer_workload " +
+            "(username, first_name, last_name, is_active, work_year, work_month, total_duration, version) " +
+            "SELECT 'trainer-' || (X / " + MONTHS_PER_TRAINER + "), 'First', 'Last', TRUE, " +
+            "2000 + MOD(X, " + MONTHS_PER_TRAINER + ") / 12, MOD(X, 12) + 1, MOD(X, 480) + 1, 0 " +
+            "FROM SYSTEM_RANGE(?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WorkloadExporter exporter;
+
+    @BeforeAll
+    void fill() {
+        long started = System.nanoTime();
+        for (int from = 0; from < ROWS; from += CHUNK)
+            jdbcTemplate.update(FILL, from, Math.min(from + CHUNK, ROWS) - 1);
+        System.out.printf("inserted %d rows in %d s%n", ROWS, (System.nanoTime() - started) / 1_000_000_000);
+    }
+
+    @Test
+    void exportsEveryRowAsNdjsonInConstantMemory() throws Exception {
+        LineCountingStream out = new LineCountingStream();
+
+        long rows = exporter.export(ExportFormat.NDJSON, out);
+
+        report("ndjson", rows, out);
+        assertThat(rows).isEqualTo(ROWS);
+        assertThat(out.lines).isEqualTo(ROWS);
+    }
+
+    @Test
+    void exportsEveryRowAsGzippedCsvInConstantMemory() throws Exception {
+        LineCountingStream counted = new LineCountingStream();
+
+        long rows;
+        try (GZIPOutputStream out = new GZIPOutputStream(counted, 65536)) {
+            rows = exporter.export(ExportFormat.CSV, out);
+        }
+
+        report("csv.gz", rows, counted);
+        assertThat(rows).isEqualTo(ROWS);
+    }
+
+    private static void report(String format, long rows, LineCountingStream out) {
+        System.out.printf("%s: %d rows, %d bytes, peak live heap after GC %d MB of %d MB%n", format, rows,
+                out.bytes, out.peakLiveHeap >> 20, Runtime.getRuntime().maxMemory() >> 20);
+    }
+
+    // discards the bytes, counts lines and samples what the last GC left on the heap every megabyte written
+    private static final class LineCountingStream extends OutputStream {
+
+        private final List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP && pool.getCollectionUsage() != null)
+                .toList();
+        private long bytes;
+        private long lines;
+        private long peakLiveHeap;
+
+        @Override
+        public void write(int b) {
+            count(b);
+            bytes++;
+            sample(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++)
+                count(b[i]);
+            bytes += len;
+            sample(len);
+        }
+
+        private void count(int b) {
+            if (b == '\n')
+                lines++;
+        }
+
+        private void sample(int written) {
+            if ((bytes >> 20) == ((bytes - written) >> 20))
+                return;
+            long live = 0;
+            for (MemoryPoolMXBean pool : heapPools) {
+                MemoryUsage usage = pool.getCollectionUsage();
+                live += usage.getUsed();
+            }
+            peakLiveHeap = Math.max(peakLiveHeap, live);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.workload_service.overload;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.workload_service.config.WorkloadProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RepositoryTimeLimiterTest {
+
+    private HikariDataSource pool;
+    private ConnectionWaitDataSource dataSource;
+    private RepositoryTimeLimiter limiter;
+    private TransactionTemplate transactions;
+
+    @BeforeEach
+    void setUp() {
+        pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:time-limiter");
+        pool.setMaximumPoolSize(1);
+        pool.setConnectionTimeout(30_000);
+        dataSource = new ConnectionWaitDataSource(pool);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        WorkloadProperties properties = new WorkloadProperties();
+        properties.getOverload().setConnectionTimeout(Duration.ofMillis(200));
+        limiter = new RepositoryTimeLimiter(transactionManager, properties);
+        transactions = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    private Integer selectOne() {
+        return new JdbcTemplate(dataSource).queryForObject("SELECT 1", Integer.class);
+    }
+
+    @Test
+    void limitedCalls_shouldGiveUpOnABusyPool_afterTheirOwnWait() throws Exception {
+        try (Connection held = dataSource.getConnection()) {
+            long started = System.nanoTime();
+
+            assertThatThrownBy(() -> limiter.read(this::selectOne))
+                    .isInstanceOf(CannotCreateTransactionException.class);
+            assertThatThrownBy(() -> limiter.limit(transactions).execute(status -> selectOne()))
+                    .isInstanceOf(CannotCreateTransactionException.class);
+
+            assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(5));
+        }
+        assertThat(limiter.read(this::selectOne)).isEqualTo(1);
+    }
+
+    @Test
+    void otherCalls_shouldKeepWaiting_forThePoolsConnectionTimeout() throws Exception {
+        Connection held = dataSource.getConnection();
+        CompletableFuture<Integer> batch = CompletableFuture.supplyAsync(
+                () -> transactions.execute(status -> selectOne()));
+
+        Thread.sleep(500);
+        assertThat(batch).isNotDone();
+        held.close();
+
+        assertThat(batch.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.workload_service.security;
+
+import org.example.workload_service.config.WorkloadProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GatewayAuthFilterTest {
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void parseRoles_shouldTrimAndSkipBlankEntries() {
+        assertThat(GatewayAuthFilter.parseRoles("ROLE_A, ROLE_B,,ROLE_C,"))
+                .extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_A", "ROLE_B", "ROLE_C");
+        assertThat(GatewayAuthFilter.parseRoles(" ")).isEmpty();
+    }
+
+    @Test
+    void authorities_shouldReuseTheParsedList_andStopCachingAtTheBound() {
+        WorkloadProperties properties = new WorkloadProperties();
+        properties.getGateway().setRolesCacheSize(1);
+        GatewayAuthFilter filter = new GatewayAuthFilter(properties);
+
+        assertThat(filter.authorities("ROLE_A,ROLE_B")).isSameAs(filter.authorities("ROLE_A,ROLE_B"));
+        assertThat(filter.authorities("ROLE_C")).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_C");
+        assertThat(filter.cachedRoleSets()).isEqualTo(1);
+    }
+
+    @Test
+    void doFilterInternal_shouldAuthenticateFromGatewayHeaders_withoutDetailsWhenDisabled() throws Exception {
+        WorkloadProperties properties = new WorkloadProperties();
+        properties.getGateway().setAuthenticationDetails(false);
+        GatewayAuthFilter filter = new GatewayAuthFilter(properties);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/workloads/john.doe");
+        request.addHeader(GatewayAuthFilter.USERNAME_HEADER, "john.doe");
+        request.addHeader(GatewayAuthFilter.ROLES_HEADER, "ROLE_TRAINER");
+
+        filter.doFilterInternal(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication.getName()).isEqualTo("john.doe");
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_TRAINER");
+        assertThat(authentication.getDetails()).isNull();
+    }
+}
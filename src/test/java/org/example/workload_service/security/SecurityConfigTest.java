@@ -0,0 +1,53 @@
+package org.example.workload_service.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "eureka.client.enabled=false")
+@AutoConfigureMockMvc
+class SecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private static MockHttpServletRequestBuilder as(MockHttpServletRequestBuilder request, String roles) {
+        return request
+                .header(GatewayAuthFilter.USERNAME_HEADER, "ops.user")
+                .header(GatewayAuthFilter.ROLES_HEADER, roles);
+    }
+
+    private static MockHttpServletRequestBuilder updateSampling() {
+        return post("/actuator/tracesampling")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"baselinePerSecond\": 10}");
+    }
+
+    @Test
+    void traceSamplingUpdate_shouldBeForbidden_forAnOrdinaryRole() throws Exception {
+        mockMvc.perform(as(updateSampling(), "ROLE_TRAINER"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void traceSamplingUpdate_shouldBeAllowed_forAdmins() throws Exception {
+        mockMvc.perform(as(updateSampling(), "ROLE_TRAINER,ROLE_ADMIN"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.baselinePerSecond").value(10));
+    }
+
+    @Test
+    void traceSamplingRead_shouldStayOpen_toAnyAuthenticatedCaller() throws Exception {
+        mockMvc.perform(as(get("/actuator/tracesampling"), "ROLE_TRAINER"))
+                .andExpect(status().isOk());
+    }
+}
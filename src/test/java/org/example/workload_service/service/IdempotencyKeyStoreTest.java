@@ -0,0 +1,93 @@
+package org.example.workload_service.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.respository.ProcessedEventRepository;
+import org.example.workload_service.sharding.WorkloadShards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyKeyStoreTest {
+
+    @Mock
+    private ProcessedEventRepository repository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private MeterRegistry meterRegistry;
+    private IdempotencyKeyStore store;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        store = new IdempotencyKeyStore(repository, transactionTemplate, new WorkloadProperties(),
+                new WorkloadShards(new WorkloadProperties()), meterRegistry);
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("workload.idempotency.lookups").tag("result", result).counter().count();
+    }
+
+    @Test
+    void isDuplicate_shouldSkipStore_whenBloomFilterHasNeverSeenKey() {
+        assertThat(store.isDuplicate("fresh-key")).isFalse();
+
+        verifyNoInteractions(repository);
+        assertThat(lookups("bloom_miss")).isEqualTo(1);
+    }
+
+    @Test
+    void isDuplicate_shouldAnswerFromRecentKeys_afterRecord() {
+        store.record("seen-key");
+
+        assertThat(store.isDuplicate("seen-key")).isTrue();
+
+        verify(repository, never()).existsById(any());
+        assertThat(lookups("recent_hit")).isEqualTo(1);
+    }
+
+    @Test
+    void isDuplicate_shouldFallBackToStore_whenKeyLeftRecentKeys() {
+        store = storeWithRecentKeys(1);
+        store.record("older-key");
+        store.record("newer-key");
+        when(repository.existsById("older-key")).thenReturn(true);
+
+        assertThat(store.isDuplicate("older-key")).isTrue();
+        assertThat(lookups("store_hit")).isEqualTo(1);
+    }
+
+    @Test
+    void findDuplicates_shouldQueryOnlyBloomCandidates_andCountFalsePositives() {
+        store = storeWithRecentKeys(1);
+        store.recordAll(List.of("rolled-back-key", "recent-key"));
+        when(repository.findExistingKeys(List.of("rolled-back-key"))).thenReturn(List.of());
+
+        assertThat(store.findDuplicates(List.of("rolled-back-key", "recent-key", "fresh-key")))
+                .containsExactly("recent-key");
+
+        assertThat(lookups("false_positive")).isEqualTo(1);
+        assertThat(lookups("recent_hit")).isEqualTo(1);
+        assertThat(lookups("bloom_miss")).isEqualTo(1);
+    }
+
+    private IdempotencyKeyStore storeWithRecentKeys(int recentKeys) {
+        WorkloadProperties properties = new WorkloadProperties();
+        properties.getIdempotency().setRecentKeys(recentKeys);
+        return new IdempotencyKeyStore(repository, transactionTemplate, properties, new WorkloadShards(properties),
+                meterRegistry);
+    }
+}
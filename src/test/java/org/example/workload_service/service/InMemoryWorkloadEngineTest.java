@@ -0,0 +1,212 @@
+package org.example.workload_service.service;
+
+import org.example.workload_service.Enum.ActionType;
+import org.example.workload_service.Enum.EngineMode;
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.dto.TrainerWorkloadRequest;
+import org.example.workload_service.dto.TrainerWorkloadResponse;
+import org.example.workload_service.entity.TrainerWorkload;
+import org.example.workload_service.respository.TrainerWorkloadBatchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InMemoryWorkloadEngineTest {
+
+    @Mock
+    private TrainerWorkloadBatchRepository batchRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private IdempotencyKeyStore idempotencyStore;
+
+    private InMemoryWorkloadEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        WorkloadProperties properties = new WorkloadProperties();
+        properties.getEngine().setMode(EngineMode.MEMORY);
+        properties.getEngine().setFlushBatchSize(2);
+        engine = new InMemoryWorkloadEngine(properties, batchRepository, transactionTemplate, idempotencyStore);
+        lenient().doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private TrainerWorkloadRequest request(String key, ActionType actionType, int month, int duration) {
+        TrainerWorkloadRequest request = request(actionType, month, duration);
+        request.setIdempotencyKey(key);
+        return request;
+    }
+
+    private TrainerWorkloadRequest request(ActionType actionType, int month, int duration) {
+        TrainerWorkloadRequest request = new TrainerWorkloadRequest();
+        request.setUsername("john.doe");
+        request.setFirstName("John");
+        request.setLastName("Doe");
+        request.setActive(true);
+        request.setTrainingDate(LocalDate.of(2024, month, 15));
+        request.setDuration(duration);
+        request.setActionType(actionType);
+        return request;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<TrainerWorkload> flushedRows() {
+        ArgumentCaptor<List<TrainerWorkload>> captor = ArgumentCaptor.forClass(List.class);
+        verify(batchRepository, atLeastOnce()).upsertTotals(captor.capture());
+        return captor.getAllValues().stream().flatMap(List::stream).toList();
+    }
+
+    @Test
+    void apply_shouldAddAndSubtract_andRejectDeleteBelowZero() {
+        InMemoryWorkloadEngine.Applied added = engine.apply(request(ActionType.ADD, 6, 120));
+        InMemoryWorkloadEngine.Applied deleted = engine.apply(request(ActionType.DELETE, 6, 20));
+
+        assertThat(added.total()).isEqualTo(120);
+        assertThat(deleted.total()).isEqualTo(100);
+        assertThat(deleted.version()).isGreaterThan(added.version());
+        assertThat(engine.apply(request(ActionType.DELETE, 6, 500)).total()).isEqualTo(InMemoryWorkloadEngine.REJECTED);
+        assertThat(engine.total("john.doe", 2024, 6)).isEqualTo(100);
+    }
+
+    @Test
+    void summary_shouldServeTotalsWithoutDatabase() {
+        engine.apply(request(ActionType.ADD, 6, 120));
+        engine.apply(request(ActionType.ADD, 7, 90));
+
+        TrainerWorkloadResponse response = engine.summary("john.doe");
+
+        assertThat(response.getFirstName()).isEqualTo("John");
+        assertThat(response.getYearsSummary().get(2024)).containsEntry("Jun", 120).containsEntry("Jul", 90).hasSize(2);
+        assertThat(engine.summary("ghost")).isNull();
+        verifyNoInteractions(batchRepository);
+    }
+
+    @Test
+    void flush_shouldCoalesceDirtyCells_intoOneRowPerMonth() {
+        for (int i = 0; i < 50; i++)
+            engine.apply(request(ActionType.ADD, 6, 1));
+        engine.apply(request(ActionType.ADD, 7, 10));
+        engine.apply(request(ActionType.ADD, 8, 10));
+
+        engine.flush();
+
+        List<TrainerWorkload> rows = flushedRows();
+        assertThat(rows).hasSize(3);
+        assertThat(rows).filteredOn(r -> r.getMonth() == 6).singleElement()
+                .extracting(TrainerWorkload::getTotalDuration).isEqualTo(50);
+        assertThat(engine.dirtyCells()).isZero();
+    }
+
+    @Test
+    void flush_shouldKeepCellsDirty_whenWriteFails() {
+        engine.apply(request(ActionType.ADD, 6, 10));
+        doThrow(new IllegalStateException("db down")).when(batchRepository).upsertTotals(any());
+
+        engine.flush();
+
+        assertThat(engine.dirtyCells()).isEqualTo(1);
+    }
+
+    @Test
+    void flush_shouldStoreKeys_inTheTransactionThatWritesTheirCells() {
+        List<String> written = new ArrayList<>();
+        doAnswer(inv -> {
+            written.add("rows");
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            written.add("commit");
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        doAnswer(inv -> written.add("keys " + inv.getArgument(0))).when(idempotencyStore).recordAll(any());
+        assertThat(engine.claim("k1")).isTrue();
+        assertThat(engine.claim("k2")).isTrue();
+        engine.apply(request("k1", ActionType.ADD, 6, 10));
+        engine.apply(request("k2", ActionType.DELETE, 6, 500));
+
+        assertThat(engine.claim("k1")).isFalse();
+        // a rejected DELETE gives its claim back and is not stored, so it can be retried under the same key
+        assertThat(engine.claim("k2")).isTrue();
+        engine.flush();
+
+        assertThat(written).containsExactly("rows", "keys [k1]", "commit");
+        assertThat(flushedRows()).singleElement().extracting(TrainerWorkload::getTotalDuration).isEqualTo(10);
+        assertThat(engine.claim("k1")).isTrue();
+    }
+
+    @Test
+    void flush_shouldKeepKeysWithTheirCells_untilAWriteSucceeds() {
+        engine.claim("k1");
+        engine.apply(request("k1", ActionType.ADD, 6, 10));
+        doThrow(new IllegalStateException("db down")).doNothing().when(batchRepository).upsertTotals(any());
+
+        engine.flush();
+
+        verify(idempotencyStore, never()).recordAll(any());
+        assertThat(engine.claim("k1")).isFalse();
+
+        engine.flush();
+
+        verify(idempotencyStore).recordAll(List.of("k1"));
+        assertThat(engine.dirtyCells()).isZero();
+    }
+
+    @Test
+    void warmUp_shouldLoadTotalsFromTable() {
+        doAnswer(inv -> {
+            TrainerWorkload row = new TrainerWorkload();
+            row.setUsername("john.doe");
+            row.setFirstName("John");
+            row.setYear(2023);
+            row.setMonth(12);
+            row.setTotalDuration(200);
+            inv.<Consumer<TrainerWorkload>>getArgument(0).accept(row);
+            return null;
+        }).when(batchRepository).forEachRow(any());
+
+        engine.warmUp();
+
+        assertThat(engine.total("john.doe", 2023, 12)).isEqualTo(200);
+        assertThat(engine.summary("john.doe").getYearsSummary().get(2023)).containsEntry("Dec", 200);
+        assertThat(engine.dirtyCells()).isZero();
+    }
+
+    @Test
+    void apply_shouldStayExact_underConcurrentWriters() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        List<Runnable> tasks = new ArrayList<>();
+        for (int w = 0; w < 32; w++)
+            tasks.add(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    engine.apply(request(ActionType.ADD, 6, 2));
+                    engine.apply(request(ActionType.DELETE, 6, 1));
+                }
+            });
+        tasks.forEach(executor::execute);
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(engine.total("john.doe", 2024, 6)).isEqualTo(32 * 1_000);
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.workload_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MonthDaysTest {
+
+    @Test
+    void add_shouldReturnACopy_andLeaveOtherDaysAlone() {
+        byte[] days = MonthDays.add(null, 1, 300);
+        byte[] next = MonthDays.add(days, 31, 70_000);
+
+        assertThat(days).hasSize(MonthDays.BYTES);
+        assertThat(next).isNotSameAs(days);
+        assertThat(MonthDays.get(days, 31)).isZero();
+        assertThat(MonthDays.get(next, 1)).isEqualTo(300);
+        assertThat(MonthDays.get(next, 31)).isEqualTo(65_535);
+        assertThat(MonthDays.get(MonthDays.add(next, 1, -500), 1)).isZero();
+    }
+
+    @Test
+    void add_shouldKeepTheSameArray_whenNoDayMoves() {
+        byte[] days = MonthDays.of(new int[MonthDays.DAYS]);
+        long[] deltas = new long[MonthDays.DAYS];
+
+        assertThat(MonthDays.add(days, deltas)).isSameAs(days);
+        assertThat(MonthDays.add(null, deltas)).isNull();
+
+        deltas[14] = 45;
+        assertThat(MonthDays.toArray(MonthDays.add(days, deltas))[14]).isEqualTo(45);
+        assertThat(MonthDays.toArray(days)[14]).isZero();
+    }
+
+    @Test
+    void get_shouldReadAMonthWithoutDaysAsZero() {
+        assertThat(MonthDays.get(null, 15)).isZero();
+        assertThat(MonthDays.toArray(null)).containsOnly(0);
+    }
+}
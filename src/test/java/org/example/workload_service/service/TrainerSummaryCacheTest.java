@@ -0,0 +1,132 @@
+package org.example.workload_service.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.dto.SerializedSummary;
+import org.example.workload_service.dto.TrainerWorkloadResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrainerSummaryCacheTest {
+
+    private MeterRegistry meterRegistry;
+    private TrainerSummaryCache cache;
+    private AtomicInteger loads;
+    private Function<String, TrainerWorkloadResponse> loader;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new TrainerSummaryCache(new WorkloadProperties(), meterRegistry);
+        loads = new AtomicInteger();
+        loader = username -> {
+            loads.incrementAndGet();
+            if (username.equals("ghost"))
+                return null;
+            TrainerWorkloadResponse response = new TrainerWorkloadResponse();
+            response.setUsername(username);
+            return response;
+        };
+    }
+
+    @Test
+    void get_shouldLoadOnce_andServeFromCacheAfterwards() {
+        TrainerWorkloadResponse first = cache.get("john.doe", loader);
+        TrainerWorkloadResponse second = cache.get("john.doe", loader);
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "trainerSummary").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void get_shouldNotCacheUnknownTrainers() {
+        assertThat(cache.get("ghost", loader)).isNull();
+        assertThat(cache.get("ghost", loader)).isNull();
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void onWorkloadUpdated_shouldInvalidateTrainerEntry() {
+        cache.get("john.doe", loader);
+        cache.get("jane.doe", loader);
+
+        cache.onWorkloadUpdated(new WorkloadUpdatedEvent("john.doe", 2024, 6, 120, 60, 1));
+        cache.get("john.doe", loader);
+        cache.get("jane.doe", loader);
+
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void get_shouldDropInFlightLoad_whenInvalidatedWhileLoading() {
+        TrainerWorkloadResponse stale = cache.get("john.doe", username -> {
+            cache.onWorkloadUpdated(new WorkloadUpdatedEvent(username, 2024, 6, 120, 60, 1));
+            return loader.apply(username);
+        });
+        TrainerWorkloadResponse fresh = cache.get("john.doe", loader);
+
+        assertThat(fresh).isNotSameAs(stale);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void get_shouldNotStoreALoad_thatWasInvalidatedFromAnotherThreadBeforeItCompleted() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        CompletableFuture<TrainerWorkloadResponse> stale = CompletableFuture.supplyAsync(() ->
+                cache.get("john.doe", username -> {
+                    TrainerWorkloadResponse response = loader.apply(username);
+                    loading.countDown();
+                    await(invalidated);
+                    return response;
+                }));
+
+        await(loading);
+        cache.onWorkloadUpdated(new WorkloadUpdatedEvent("john.doe", 2024, 6, 120, 60, 1));
+        invalidated.countDown();
+
+        assertThat(cache.get("john.doe", loader)).isNotSameAs(stale.get(5, TimeUnit.SECONDS));
+        assertThat(loads).hasValue(2);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void getSerialized_shouldServeCachedBytesUntilTheTrainerChanges() {
+        AtomicInteger serializations = new AtomicInteger();
+        Function<String, SerializedSummary> serializer = username -> {
+            int n = serializations.incrementAndGet();
+            return new SerializedSummary("\"" + n + "\"", new byte[]{(byte) n});
+        };
+
+        SerializedSummary first = cache.getSerialized("john.doe", serializer);
+        assertThat(cache.getSerialized("john.doe", serializer)).isSameAs(first);
+
+        cache.onWorkloadUpdated(new WorkloadUpdatedEvent("john.doe", 2024, 6, 120, 0, 1));
+        assertThat(cache.getSerialized("john.doe", serializer)).isSameAs(first);
+
+        cache.onWorkloadUpdated(new WorkloadUpdatedEvent("john.doe", 2024, 6, 180, 60, 1));
+
+        SerializedSummary next = cache.getSerialized("john.doe", serializer);
+        assertThat(next.json()).containsExactly(2);
+        assertThat(next.etag()).isEqualTo("\"2\"");
+    }
+}
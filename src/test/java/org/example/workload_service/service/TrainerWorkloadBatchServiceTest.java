@@ -0,0 +1,286 @@
+package org.example.workload_service.service;
+
+import org.example.workload_service.Enum.ActionType;
+import org.example.workload_service.Enum.BatchItemStatus;
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.dto.BatchItemResult;
+import org.example.workload_service.dto.TrainerWorkloadRequest;
+import org.example.workload_service.entity.TrainerWorkload;
+import org.example.workload_service.journal.WorkloadJournal;
+import org.example.workload_service.respository.TrainerWorkloadBatchRepository;
+import org.example.workload_service.sharding.WorkloadShards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.example.workload_service.service.WorkloadEventMatchers.updated;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TrainerWorkloadBatchServiceTest {
+
+    @Mock
+    private TrainerWorkloadBatchRepository batchRepository;
+
+    @Mock
+    private WorkloadWriteGuard writeGuard;
+
+    @Mock
+    private IdempotencyKeyStore idempotencyStore;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private InMemoryWorkloadEngine engine;
+
+    @Mock
+    private WorkloadJournal journal;
+
+    @Spy
+    private WorkloadShards shards = new WorkloadShards(new WorkloadProperties());
+
+    @InjectMocks
+    private TrainerWorkloadBatchService service;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(writeGuard.executeAll(any(), any())).thenAnswer(inv -> inv.<Supplier<?>>getArgument(1).get());
+    }
+
+    private TrainerWorkloadRequest request(String key, ActionType actionType, LocalDate date, int duration) {
+        TrainerWorkloadRequest request = new TrainerWorkloadRequest();
+        request.setUsername("john.doe");
+        request.setFirstName("John");
+        request.setLastName("Doe");
+        request.setActive(true);
+        request.setTrainingDate(date);
+        request.setDuration(duration);
+        request.setActionType(actionType);
+        request.setIdempotencyKey(key);
+        return request;
+    }
+
+    private TrainerWorkload existing(int month, int total) {
+        TrainerWorkload workload = new TrainerWorkload();
+        workload.setId((long) month);
+        workload.setUsername("john.doe");
+        workload.setYear(2024);
+        workload.setMonth(month);
+        workload.setTotalDuration(total);
+        return workload;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<TrainerWorkload> captureUpdates() {
+        ArgumentCaptor<List<TrainerWorkload>> captor = ArgumentCaptor.forClass(List.class);
+        verify(batchRepository).updateTotals(captor.capture());
+        return captor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<TrainerWorkload> captureInserts() {
+        ArgumentCaptor<List<TrainerWorkload>> captor = ArgumentCaptor.forClass(List.class);
+        verify(batchRepository).insert(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    void processBatch_shouldNetEventsAndWriteEachRowOnce() {
+        when(idempotencyStore.findDuplicates(any())).thenReturn(Set.of());
+        when(batchRepository.findMonths(any())).thenReturn(List.of(existing(6, 120)));
+
+        List<BatchItemResult> results = service.processBatch(List.of(
+                request("k1", ActionType.ADD, LocalDate.of(2024, 6, 1), 60),
+                request("k2", ActionType.ADD, LocalDate.of(2024, 6, 2), 30),
+                request("k3", ActionType.DELETE, LocalDate.of(2024, 6, 3), 50)
+        ));
+
+        assertThat(results).extracting(BatchItemResult::getStatus)
+                .containsOnly(BatchItemStatus.APPLIED);
+        List<TrainerWorkload> updates = captureUpdates();
+        assertThat(updates).hasSize(1);
+        assertThat(updates.getFirst().getTotalDuration()).isEqualTo(160); // 120 + 60 + 30 - 50
+        assertThat(captureInserts()).isEmpty();
+        verify(eventPublisher).publishEvent(updated("john.doe", 2024, 6, 160, 40));
+    }
+
+    @Test
+    void processBatch_shouldClaimKeysInTheEngine_andLeaveStoringThemToItsFlush() {
+        when(engine.isEnabled()).thenReturn(true);
+        Set<String> claims = new HashSet<>();
+        when(engine.claim(any())).thenAnswer(inv -> claims.add(inv.getArgument(0)));
+        when(idempotencyStore.findDuplicates(any())).thenReturn(Set.of("stored"));
+        when(engine.apply(any())).thenReturn(new InMemoryWorkloadEngine.Applied(60, 1));
+
+        List<BatchItemResult> results = service.processBatch(List.of(
+                request("stored", ActionType.ADD, LocalDate.of(2024, 6, 1), 60),
+                request("fresh", ActionType.ADD, LocalDate.of(2024, 6, 1), 60),
+                request("fresh", ActionType.ADD, LocalDate.of(2024, 6, 1), 60)
+        ));
+
+        assertThat(results).extracting(BatchItemResult::getStatus).containsExactly(
+                BatchItemStatus.DUPLICATE, BatchItemStatus.APPLIED, BatchItemStatus.DUPLICATE);
+        verify(engine).release("stored");
+        verify(engine, never()).release("fresh");
+        verify(engine, times(1)).apply(any());
+        verify(idempotencyStore, never()).recordAll(any());
+    }
+
+    private static String usernameOnShard(int shard, int shards) {
+        for (int i = 0; ; i++)
+            if (WorkloadShards.shardOf("trainer" + i, shards) == shard)
+                return "trainer" + i;
+    }
+
+    @Test
+    void processBatch_shouldSettleEachShard_andReportOnlyTheFailedShardsEvents() {
+        WorkloadProperties properties = new WorkloadProperties();
+        properties.getSharding().setShards(2);
+        TrainerWorkloadBatchService sharded = new TrainerWorkloadBatchService(batchRepository, writeGuard,
+                idempotencyStore, eventPublisher, engine, journal, new WorkloadShards(properties));
+        String committed = usernameOnShard(0, 2);
+        String failing = usernameOnShard(1, 2);
+        doThrow(new IllegalStateException("shard down"))
+                .when(writeGuard).executeAll(argThat(usernames -> usernames.contains(failing)), any());
+        TrainerWorkloadRequest first = request(null, ActionType.ADD, LocalDate.of(2024, 6, 1), 60);
+        first.setUsername(committed);
+        TrainerWorkloadRequest second = request(null, ActionType.ADD, LocalDate.of(2024, 6, 1), 30);
+        second.setUsername(failing);
+
+        List<BatchItemResult> results = sharded.processBatch(List.of(second, first));
+
+        assertThat(results).extracting(BatchItemResult::getIndex).containsExactly(0, 1);
+        assertThat(results).extracting(BatchItemResult::getStatus)
+                .containsExactly(BatchItemStatus.FAILED, BatchItemStatus.APPLIED);
+        verify(journal).append(List.of(first));
+        verify(eventPublisher).publishEvent(updated(committed, 2024, 6, 60, 60));
+        verifyNoMoreInteractions(eventPublisher);
+    }
+
+    @Test
+    void processBatch_shouldNotReportACommittedShardFailed_whenItsJournalAppendFails() {
+        WorkloadProperties properties = new WorkloadProperties();
+        properties.getSharding().setShards(2);
+        TrainerWorkloadBatchService sharded = new TrainerWorkloadBatchService(batchRepository, writeGuard,
+                idempotencyStore, eventPublisher, engine, journal, new WorkloadShards(properties));
+        TrainerWorkloadRequest first = request(null, ActionType.ADD, LocalDate.of(2024, 6, 1), 60);
+        first.setUsername(usernameOnShard(0, 2));
+        TrainerWorkloadRequest second = request(null, ActionType.ADD, LocalDate.of(2024, 6, 1), 30);
+        second.setUsername(usernameOnShard(1, 2));
+        doThrow(new IllegalStateException("journal full")).when(journal).append(List.of(first));
+
+        assertThatThrownBy(() -> sharded.processBatch(List.of(first, second)))
+                .isInstanceOfSatisfying(BatchFailedException.class, e -> assertThat(e.getResults())
+                        .extracting(BatchItemResult::getStatus)
+                        .containsExactly(BatchItemStatus.APPLIED, BatchItemStatus.APPLIED))
+                .hasRootCauseMessage("journal full");
+        // the second shard still ran and settled
+        verify(writeGuard, times(2)).executeAll(any(), any());
+        verify(journal).append(List.of(second));
+        verify(eventPublisher).publishEvent(updated(second.getUsername(), 2024, 6, 30, 30));
+    }
+
+    @Test
+    void processBatch_shouldThrow_whenEveryShardFails() {
+        WorkloadProperties properties = new WorkloadProperties();
+        properties.getSharding().setShards(2);
+        TrainerWorkloadBatchService sharded = new TrainerWorkloadBatchService(batchRepository, writeGuard,
+                idempotencyStore, eventPublisher, engine, journal, new WorkloadShards(properties));
+        doThrow(new IllegalStateException("shards down")).when(writeGuard).executeAll(any(), any());
+        TrainerWorkloadRequest first = request(null, ActionType.ADD, LocalDate.of(2024, 6, 1), 60);
+        first.setUsername(usernameOnShard(0, 2));
+        TrainerWorkloadRequest second = request(null, ActionType.ADD, LocalDate.of(2024, 6, 1), 30);
+        second.setUsername(usernameOnShard(1, 2));
+
+        assertThatThrownBy(() -> sharded.processBatch(List.of(first, second)))
+                .isInstanceOfSatisfying(BatchFailedException.class, e -> assertThat(e.getResults())
+                        .extracting(BatchItemResult::getStatus)
+                        .containsExactly(BatchItemStatus.FAILED, BatchItemStatus.FAILED));
+        verifyNoInteractions(journal, eventPublisher);
+    }
+
+    @Test
+    void processBatch_shouldLoadOnlyTheMonthsItWritesTo() {
+        when(idempotencyStore.findDuplicates(any())).thenReturn(Set.of());
+
+        service.processBatch(List.of(
+                request("k1", ActionType.ADD, LocalDate.of(2024, 6, 1), 60),
+                request("k2", ActionType.ADD, LocalDate.of(2024, 6, 20), 30),
+                request("k3", ActionType.ADD, LocalDate.of(2025, 1, 2), 15),
+                request("k4", ActionType.ADD, null, 10)
+        ));
+
+        verify(batchRepository).findMonths(Set.of(
+                new WorkloadMonthKey("john.doe", 2024, 6), new WorkloadMonthKey("john.doe", 2025, 1)));
+    }
+
+    @Test
+    void processBatch_shouldInsertNewRows_whenMonthDoesNotExist() {
+        when(idempotencyStore.findDuplicates(any())).thenReturn(Set.of());
+        when(batchRepository.findMonths(any())).thenReturn(List.of());
+
+        service.processBatch(List.of(
+                request("k1", ActionType.ADD, LocalDate.of(2024, 7, 1), 45),
+                request("k2", ActionType.ADD, LocalDate.of(2024, 7, 9), 15)
+        ));
+
+        List<TrainerWorkload> inserts = captureInserts();
+        assertThat(inserts).hasSize(1);
+        assertThat(inserts.getFirst().getMonth()).isEqualTo(7);
+        assertThat(inserts.getFirst().getTotalDuration()).isEqualTo(60);
+        assertThat(captureUpdates()).isEmpty();
+    }
+
+    @Test
+    void processBatch_shouldMarkDuplicates_inBatchAndAlreadyStored() {
+        when(idempotencyStore.findDuplicates(any())).thenReturn(Set.of("stored"));
+        when(batchRepository.findMonths(any())).thenReturn(List.of(existing(6, 0)));
+
+        List<BatchItemResult> results = service.processBatch(List.of(
+                request("stored", ActionType.ADD, LocalDate.of(2024, 6, 1), 60),
+                request("fresh", ActionType.ADD, LocalDate.of(2024, 6, 1), 60),
+                request("fresh", ActionType.ADD, LocalDate.of(2024, 6, 1), 60)
+        ));
+
+        assertThat(results).extracting(BatchItemResult::getStatus).containsExactly(
+                BatchItemStatus.DUPLICATE, BatchItemStatus.APPLIED, BatchItemStatus.DUPLICATE);
+        assertThat(captureUpdates().getFirst().getTotalDuration()).isEqualTo(60);
+        verify(idempotencyStore).recordAll(List.of("fresh"));
+    }
+
+    @Test
+    void processBatch_shouldReject_whenDeleteExceedsTotalOrRequestIsInvalid() {
+        when(idempotencyStore.findDuplicates(any())).thenReturn(Set.of());
+        when(batchRepository.findMonths(any())).thenReturn(List.of(existing(6, 30)));
+        TrainerWorkloadRequest missingDate = request("k2", ActionType.ADD, null, 10);
+
+        List<BatchItemResult> results = service.processBatch(List.of(
+                request("k1", ActionType.DELETE, LocalDate.of(2024, 6, 1), 60),
+                missingDate
+        ));
+
+        assertThat(results).extracting(BatchItemResult::getStatus)
+                .containsOnly(BatchItemStatus.REJECTED);
+        assertThat(captureUpdates()).isEmpty();
+        assertThat(captureInserts()).isEmpty();
+        // neither key is used up, a corrected retry under the same key is applied
+        verify(idempotencyStore).recordAll(List.of());
+        verifyNoInteractions(eventPublisher);
+    }
+}
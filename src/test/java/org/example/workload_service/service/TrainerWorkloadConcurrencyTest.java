@@ -0,0 +1,173 @@
+package org.example.workload_service.service;
+
+import org.example.workload_service.Enum.ActionType;
+import org.example.workload_service.Enum.ConcurrencyMode;
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.dto.TrainerWorkloadRequest;
+import org.example.workload_service.entity.TrainerWorkload;
+import org.example.workload_service.respository.TrainerWorkloadRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "eureka.client.enabled=false",
+        "workload.concurrency.max-attempts=200"
+})
+class TrainerWorkloadConcurrencyTest {
+
+    private static final int WRITERS = 32;
+    private static final int EVENTS_PER_WRITER = 40;
+    private static final String[] TRAINERS = {"hot.trainer", "warm.trainer"};
+
+    @Autowired
+    private TrainerWorkloadService service;
+
+    @Autowired
+    private TrainerWorkloadBatchService batchService;
+
+    @Autowired
+    private TrainerWorkloadRepository repository;
+
+    @Autowired
+    private WorkloadProperties properties;
+
+    private ConcurrencyMode defaultMode;
+
+    @BeforeEach
+    void setUp() {
+        defaultMode = properties.getConcurrency().getMode();
+        repository.deleteAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        properties.getConcurrency().setMode(defaultMode);
+        repository.deleteAll();
+    }
+
+    @ParameterizedTest
+    @EnumSource(ConcurrencyMode.class)
+    void processWorkload_shouldKeepExactTotals_underConcurrentWriters(ConcurrencyMode mode) throws Exception {
+        properties.getConcurrency().setMode(mode);
+
+        runConcurrently(writer -> {
+            for (int i = 0; i < EVENTS_PER_WRITER; i++) {
+                // every writer adds 3 and deletes 1 so DELETEs race against ADDs on the same row
+                service.processWorkload(event(TRAINERS[i % 2], ActionType.ADD, 3));
+                service.processWorkload(event(TRAINERS[i % 2], ActionType.DELETE, 1));
+            }
+        });
+
+        int expected = WRITERS * (EVENTS_PER_WRITER / 2) * 2;
+        for (String trainer : TRAINERS) {
+            assertThat(totalOf(trainer)).as("%s total in %s mode", trainer, mode).isEqualTo(expected);
+            assertThat(dayTotalOf(trainer)).as("%s day total in %s mode", trainer, mode).isEqualTo(expected);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ConcurrencyMode.class)
+    void processBatch_shouldKeepExactTotals_whenMixedWithSingleWrites(ConcurrencyMode mode) throws Exception {
+        properties.getConcurrency().setMode(mode);
+
+        runConcurrently(writer -> {
+            for (int i = 0; i < EVENTS_PER_WRITER / 4; i++) {
+                if (writer % 2 == 0)
+                    batchService.processBatch(List.of(
+                            event(TRAINERS[0], ActionType.ADD, 1),
+                            event(TRAINERS[1], ActionType.ADD, 1)));
+                else
+                    service.processWorkload(event(TRAINERS[i % 2], ActionType.ADD, 2));
+            }
+        });
+
+        int expected = (WRITERS / 2) * (EVENTS_PER_WRITER / 4) * 2;
+        for (String trainer : TRAINERS) {
+            assertThat(totalOf(trainer)).as("%s total in %s mode", trainer, mode).isEqualTo(expected);
+            assertThat(dayTotalOf(trainer)).as("%s day total in %s mode", trainer, mode).isEqualTo(expected);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ConcurrencyMode.class)
+    void processWorkload_shouldApplyEachIdempotencyKeyOnce_whenRetriedConcurrently(ConcurrencyMode mode) throws Exception {
+        properties.getConcurrency().setMode(mode);
+        String prefix = mode + "-" + UUID.randomUUID() + "-";
+
+        runConcurrently(writer -> {
+            // all writers replay the same ten events
+            for (int i = 0; i < 10; i++) {
+                TrainerWorkloadRequest request = event(TRAINERS[0], ActionType.ADD, 5);
+                request.setIdempotencyKey(prefix + i);
+                service.processWorkload(request);
+            }
+        });
+
+        assertThat(totalOf(TRAINERS[0])).isEqualTo(50);
+    }
+
+    private void runConcurrently(Writer writer) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int w = 0; w < WRITERS; w++) {
+                int id = w;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    writer.write(id);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int totalOf(String username) {
+        return repository.findByUsernameAndYearAndMonth(username, 2024, 6)
+                .map(TrainerWorkload::getTotalDuration)
+                .orElse(0);
+    }
+
+    private int dayTotalOf(String username) {
+        return repository.findByUsernameAndYearAndMonth(username, 2024, 6)
+                .map(workload -> MonthDays.get(workload.getDayTotals(), 15))
+                .orElse(0);
+    }
+
+    private TrainerWorkloadRequest event(String username, ActionType actionType, int duration) {
+        TrainerWorkloadRequest request = new TrainerWorkloadRequest();
+        request.setUsername(username);
+        request.setFirstName("Stress");
+        request.setLastName("Test");
+        request.setActive(true);
+        request.setTrainingDate(LocalDate.of(2024, 6, 15));
+        request.setDuration(duration);
+        request.setActionType(actionType);
+        return request;
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(int writer) throws Exception;
+    }
+}
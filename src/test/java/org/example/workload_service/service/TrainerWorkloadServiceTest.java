@@ -1,23 +1,44 @@
 package org.example.workload_service.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.example.workload_service.Enum.ActionType;
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.dto.SerializedSummary;
+import org.example.workload_service.dto.TrainerMonthTotal;
 import org.example.workload_service.dto.TrainerWorkloadRequest;
 import org.example.workload_service.dto.TrainerWorkloadResponse;
+import org.example.workload_service.dto.YearMonthTotals;
 import org.example.workload_service.entity.TrainerWorkload;
+import org.example.workload_service.journal.WorkloadJournal;
+import org.example.workload_service.overload.RepositoryTimeLimiter;
+import org.example.workload_service.respository.TrainerSummaryRepository;
 import org.example.workload_service.respository.TrainerWorkloadRepository;
+import org.example.workload_service.sharding.WorkloadShards;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.example.workload_service.service.WorkloadEventMatchers.updated;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,6 +47,41 @@ class TrainerWorkloadServiceTest {
     @Mock
     private TrainerWorkloadRepository repository;
 
+    @Mock
+    private TrainerSummaryRepository summaryRepository;
+
+    @Mock
+    private WorkloadWriteGuard writeGuard;
+
+    @Mock
+    private IdempotencyKeyStore idempotencyStore;
+
+    @Mock
+    private TrainerSummaryCache summaryCache;
+
+    @Mock
+    private InMemoryWorkloadEngine engine;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private WorkloadJournal journal;
+
+    @Mock
+    private RepositoryTimeLimiter timeLimiter;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private WorkloadMetrics metrics = new WorkloadMetrics(meterRegistry);
+
+    @Spy
+    private WorkloadShards shards = new WorkloadShards(new WorkloadProperties());
+
     @InjectMocks
     private TrainerWorkloadService service;
 
@@ -45,33 +101,44 @@ class TrainerWorkloadServiceTest {
         request.setIdempotencyKey("test-uuid-1234");
 
         existingWorkload = new TrainerWorkload();
+        existingWorkload.setId(1L);
         existingWorkload.setUsername("john.doe");
         existingWorkload.setYear(2024);
         existingWorkload.setMonth(6);
         existingWorkload.setTotalDuration(120);
+
+        lenient().when(writeGuard.execute(any(), any())).thenAnswer(inv -> inv.<Supplier<?>>getArgument(1).get());
+        lenient().when(timeLimiter.read(any())).thenAnswer(inv -> inv.<Supplier<?>>getArgument(0).get());
+        lenient().when(summaryCache.get(any(), any())).thenAnswer(inv ->
+                inv.<Function<String, TrainerWorkloadResponse>>getArgument(1).apply(inv.getArgument(0)));
     }
 
     // ─── processWorkload ────────────────────────────────────────────────────────
 
     @Test
     void processWorkload_shouldSkip_whenDuplicateIdempotencyKey() {
-        when(repository.existsByIdempotencyKey("test-uuid-1234")).thenReturn(true);
+        when(idempotencyStore.isDuplicate("test-uuid-1234")).thenReturn(true);
 
         service.processWorkload(request);
 
+        verify(idempotencyStore, never()).record(any());
         verify(repository, never()).findByUsernameAndYearAndMonth(any(), anyInt(), anyInt());
         verify(repository, never()).save(any());
+        verifyNoInteractions(eventPublisher);
+        assertThat(writes("duplicate")).isEqualTo(1);
     }
 
     @Test
     void processWorkload_shouldProcess_whenIdempotencyKeyIsNew() {
-        when(repository.existsByIdempotencyKey("test-uuid-1234")).thenReturn(false);
+        when(idempotencyStore.isDuplicate("test-uuid-1234")).thenReturn(false);
         when(repository.findByUsernameAndYearAndMonth("john.doe", 2024, 6))
                 .thenReturn(Optional.of(existingWorkload));
 
         service.processWorkload(request);
 
-        verify(repository).save(existingWorkload);
+        InOrder order = inOrder(repository, idempotencyStore);
+        order.verify(repository).save(existingWorkload);
+        order.verify(idempotencyStore).record("test-uuid-1234");
         assertThat(existingWorkload.getTotalDuration()).isEqualTo(180); // 120 + 60
     }
 
@@ -83,12 +150,12 @@ class TrainerWorkloadServiceTest {
 
         service.processWorkload(request);
 
+        verifyNoInteractions(idempotencyStore);
         verify(repository).save(existingWorkload);
     }
 
     @Test
     void processWorkload_shouldAddDuration_whenActionTypeIsAdd() {
-        when(repository.existsByIdempotencyKey(any())).thenReturn(false);
         when(repository.findByUsernameAndYearAndMonth("john.doe", 2024, 6))
                 .thenReturn(Optional.of(existingWorkload));
 
@@ -96,12 +163,13 @@ class TrainerWorkloadServiceTest {
 
         assertThat(existingWorkload.getTotalDuration()).isEqualTo(180); // 120 + 60
         verify(repository).save(existingWorkload);
+        verify(eventPublisher).publishEvent(updated("john.doe", 2024, 6, 180, 60));
+        verify(journal).append(request);
     }
 
     @Test
     void processWorkload_shouldSubtractDuration_whenActionTypeIsDelete() {
         request.setActionType(ActionType.DELETE);
-        when(repository.existsByIdempotencyKey(any())).thenReturn(false);
         when(repository.findByUsernameAndYearAndMonth("john.doe", 2024, 6))
                 .thenReturn(Optional.of(existingWorkload));
 
@@ -115,7 +183,6 @@ class TrainerWorkloadServiceTest {
     void processWorkload_shouldNotGoBelowZero_whenDeleteExceedsTotal() {
         request.setActionType(ActionType.DELETE);
         request.setDuration(200); // more than existing 120
-        when(repository.existsByIdempotencyKey(any())).thenReturn(false);
         when(repository.findByUsernameAndYearAndMonth("john.doe", 2024, 6))
                 .thenReturn(Optional.of(existingWorkload));
 
@@ -123,11 +190,15 @@ class TrainerWorkloadServiceTest {
 
         assertThat(existingWorkload.getTotalDuration()).isEqualTo(120); // unchanged
         verify(repository).save(existingWorkload);
+        // the key stays free, so the same DELETE can be retried once the month has enough
+        verify(idempotencyStore, never()).record(any());
+        verifyNoInteractions(journal);
+        assertThat(writes("rejected")).isEqualTo(1);
+        assertThat(writes("created")).isZero();
     }
 
     @Test
     void processWorkload_shouldCreateNewWorkload_whenNoneExists() {
-        when(repository.existsByIdempotencyKey(any())).thenReturn(false);
         when(repository.findByUsernameAndYearAndMonth("john.doe", 2024, 6))
                 .thenReturn(Optional.empty());
 
@@ -139,42 +210,102 @@ class TrainerWorkloadServiceTest {
                         saved.getMonth() == 6 &&
                         saved.getTotalDuration() == 60 // 0 + 60
         ));
+        assertThat(writes("created")).isEqualTo(1);
+        assertThat(meterRegistry.get("workload.repository.calls").tag("operation", "save_month").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void processWorkload_shouldUpdateInPlace_whenModeIsAtomic() {
+        when(writeGuard.isAtomic()).thenReturn(true);
+        when(repository.addDuration("john.doe", 2024, 6, 15, 60)).thenReturn(1);
+        when(repository.findTotalDuration("john.doe", 2024, 6)).thenReturn(Optional.of(180));
+
+        service.processWorkload(request);
+
+        verify(repository, never()).findByUsernameAndYearAndMonth(any(), anyInt(), anyInt());
+        verify(repository, never()).saveAndFlush(any());
+        verify(eventPublisher).publishEvent(updated("john.doe", 2024, 6, 180, 60));
+    }
+
+    @Test
+    void processWorkload_shouldInsertRow_whenModeIsAtomicAndMonthIsMissing() {
+        when(writeGuard.isAtomic()).thenReturn(true);
+        when(repository.addDuration("john.doe", 2024, 6, 15, 60)).thenReturn(0);
+
+        service.processWorkload(request);
+
+        verify(repository).saveAndFlush(argThat(saved -> saved.getTotalDuration() == 60));
+    }
+
+    @Test
+    void processWorkload_shouldLeaveTotal_whenModeIsAtomicAndDeleteExceedsTotal() {
+        request.setActionType(ActionType.DELETE);
+        when(writeGuard.isAtomic()).thenReturn(true);
+        when(repository.addDuration("john.doe", 2024, 6, 15, -60)).thenReturn(0);
+        when(repository.findTotalDuration("john.doe", 2024, 6)).thenReturn(Optional.of(30));
+
+        service.processWorkload(request);
+
+        verify(repository, never()).saveAndFlush(any());
+        verify(idempotencyStore, never()).record(any());
+    }
+
+    @Test
+    void processWorkload_shouldApplyInMemory_whenEngineIsEnabled() {
+        when(engine.isEnabled()).thenReturn(true);
+        when(engine.claim("test-uuid-1234")).thenReturn(true);
+        when(idempotencyStore.isDuplicate("test-uuid-1234")).thenReturn(false);
+        when(engine.apply(request)).thenReturn(new InMemoryWorkloadEngine.Applied(60, 1));
+
+        service.processWorkload(request);
+
+        // the engine stores the key with the month total it flushes
+        verify(idempotencyStore, never()).record(any());
+        verify(engine, never()).release(any());
+        verify(repository, never()).findByUsernameAndYearAndMonth(any(), anyInt(), anyInt());
+        verify(repository, never()).save(any());
+        verify(eventPublisher).publishEvent(updated("john.doe", 2024, 6, 60, 60));
+    }
+
+    @Test
+    void processWorkload_shouldReleaseTheClaim_whenTheStoreHasTheKey() {
+        when(engine.isEnabled()).thenReturn(true);
+        when(engine.claim("test-uuid-1234")).thenReturn(true);
+        when(idempotencyStore.isDuplicate("test-uuid-1234")).thenReturn(true);
+
+        service.processWorkload(request);
+
+        verify(engine).release("test-uuid-1234");
+        verify(engine, never()).apply(any());
+        verifyNoInteractions(eventPublisher);
     }
 
     // ─── getSummary ─────────────────────────────────────────────────────────────
 
     @Test
     void getSummary_shouldReturnNull_whenUsernameDoesNotExist() {
-        when(repository.existsTrainerWorkloadByUsername("ghost")).thenReturn(false);
-        when(repository.findByUsername("ghost")).thenReturn(List.of());
+        when(summaryRepository.findMonthTotals("ghost")).thenReturn(new YearMonthTotals());
 
         TrainerWorkloadResponse response = service.getSummary("ghost");
 
         assertThat(response).isNull();
+        verify(summaryRepository, never()).findTrainer(any());
     }
 
     @Test
     void getSummary_shouldReturnResponse_withCorrectYearMonthMapping() {
-        TrainerWorkload w1 = new TrainerWorkload();
-        w1.setUsername("john.doe");
-        w1.setFirstName("John");
-        w1.setLastName("Doe");
-        w1.setActive(true);
-        w1.setYear(2024);
-        w1.setMonth(6);
-        w1.setTotalDuration(120);
-
-        TrainerWorkload w2 = new TrainerWorkload();
-        w2.setUsername("john.doe");
-        w2.setFirstName("John");
-        w2.setLastName("Doe");
-        w2.setActive(true);
-        w2.setYear(2024);
-        w2.setMonth(7);
-        w2.setTotalDuration(90);
-
-        when(repository.existsTrainerWorkloadByUsername("john.doe")).thenReturn(true);
-        when(repository.findByUsername("john.doe")).thenReturn(List.of(w1, w2));
+        YearMonthTotals totals = new YearMonthTotals();
+        totals.add(2024, 6, 120);
+        totals.add(2024, 7, 90);
+
+        TrainerWorkload trainer = new TrainerWorkload();
+        trainer.setFirstName("John");
+        trainer.setLastName("Doe");
+        trainer.setActive(true);
+
+        when(summaryRepository.findMonthTotals("john.doe")).thenReturn(totals);
+        when(summaryRepository.findTrainer("john.doe")).thenReturn(Optional.of(trainer));
 
         TrainerWorkloadResponse response = service.getSummary("john.doe");
 
@@ -184,20 +315,18 @@ class TrainerWorkloadServiceTest {
         assertThat(response.getActive()).isTrue();
         assertThat(response.getYearsSummary().get(2024)).containsEntry("Jun", 120);
         assertThat(response.getYearsSummary().get(2024)).containsEntry("Jul", 90);
+
+        assertThat(meterRegistry.get("workload.summary.months").summary().totalAmount()).isEqualTo(2);
     }
 
     @Test
     void getSummary_shouldGroupCorrectly_acrossMultipleYears() {
-        TrainerWorkload w2023 = new TrainerWorkload();
-        w2023.setUsername("john.doe"); w2023.setFirstName("John"); w2023.setLastName("Doe");
-        w2023.setActive(true); w2023.setYear(2023); w2023.setMonth(12); w2023.setTotalDuration(200);
-
-        TrainerWorkload w2024 = new TrainerWorkload();
-        w2024.setUsername("john.doe"); w2024.setFirstName("John"); w2024.setLastName("Doe");
-        w2024.setActive(true); w2024.setYear(2024); w2024.setMonth(1); w2024.setTotalDuration(150);
+        YearMonthTotals totals = new YearMonthTotals();
+        totals.add(2023, 12, 200);
+        totals.add(2024, 1, 150);
 
-        when(repository.existsTrainerWorkloadByUsername("john.doe")).thenReturn(true);
-        when(repository.findByUsername("john.doe")).thenReturn(List.of(w2023, w2024));
+        when(summaryRepository.findMonthTotals("john.doe")).thenReturn(totals);
+        when(summaryRepository.findTrainer("john.doe")).thenReturn(Optional.of(new TrainerWorkload()));
 
         TrainerWorkloadResponse response = service.getSummary("john.doe");
 
@@ -205,4 +334,98 @@ class TrainerWorkloadServiceTest {
         assertThat(response.getYearsSummary().get(2023)).containsEntry("Dec", 200);
         assertThat(response.getYearsSummary().get(2024)).containsEntry("Jan", 150);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getSummary_shouldReadFromEngine_whenEngineIsEnabled() {
+        TrainerWorkloadResponse fromEngine = new TrainerWorkloadResponse();
+        when(engine.isEnabled()).thenReturn(true);
+        when(engine.summary("john.doe")).thenReturn(fromEngine);
+
+        assertThat(service.getSummary("john.doe")).isSameAs(fromEngine);
+
+        verifyNoInteractions(repository, summaryRepository);
+    }
+
+    // ─── serialized summary ──────────────────────────────────────────────────────
+
+    @Test
+    void getSerializedSummary_shouldTagTheJsonWithAHashOfItsBytes() {
+        YearMonthTotals totals = new YearMonthTotals();
+        totals.add(2024, 6, 120);
+        when(summaryCache.getSerialized(eq("john.doe"), any())).thenAnswer(inv ->
+                inv.<Function<String, SerializedSummary>>getArgument(1).apply("john.doe"));
+        when(summaryRepository.findMonthTotals("john.doe")).thenReturn(totals);
+        when(summaryRepository.findTrainer("john.doe")).thenReturn(Optional.of(new TrainerWorkload()));
+
+        SerializedSummary summary = service.getSerializedSummary("john.doe");
+        // another replica, or this one after its entry expired, reading the same rows
+        SerializedSummary again = service.getSerializedSummary("john.doe");
+
+        assertThat(summary.etag()).matches("\"[0-9a-f]{24}\"").isEqualTo(again.etag());
+        assertThat(new String(summary.json(), StandardCharsets.UTF_8))
+                .contains("\"username\":\"john.doe\"")
+                .contains("\"yearsSummary\":{\"2024\":{\"Jun\":120}}");
+
+        totals.add(2024, 7, 30);
+        assertThat(service.getSerializedSummary("john.doe").etag()).isNotEqualTo(summary.etag());
+    }
+
+    @Test
+    void getSerializedSummary_shouldReturnNull_forUnknownTrainer() {
+        when(summaryCache.getSerialized(eq("ghost"), any())).thenAnswer(inv ->
+                inv.<Function<String, SerializedSummary>>getArgument(1).apply("ghost"));
+        when(summaryRepository.findMonthTotals("ghost")).thenReturn(new YearMonthTotals());
+
+        assertThat(service.getSerializedSummary("ghost")).isNull();
+    }
+
+    // ─── ranged and multi-trainer reads ─────────────────────────────────────────
+
+    @Test
+    void getSummary_withRange_shouldQueryMonthKeysAndSkipCache() {
+        MonthRange range = new MonthRange(YearMonth.of(2023, 11), YearMonth.of(2024, 2));
+        when(repository.findMonthTotals(List.of("john.doe"), 2023, 2024, 2023 * 12 + 10, 2024 * 12 + 1))
+                .thenReturn(List.of(
+                        new TrainerMonthTotal("john.doe", "John", "Doe", true, 2023, 12, 200),
+                        new TrainerMonthTotal("john.doe", "John", "Doe", true, 2024, 1, 150)));
+
+        TrainerWorkloadResponse response = service.getSummary("john.doe", range);
+
+        assertThat(response.getFirstName()).isEqualTo("John");
+        assertThat(response.getYearsSummary().get(2023)).containsExactly(entry("Dec", 200));
+        assertThat(response.getYearsSummary().get(2024)).containsExactly(entry("Jan", 150));
+        verifyNoInteractions(summaryCache);
+    }
+
+    @Test
+    void getSummary_withRange_shouldReturnEmptySummary_whenTrainerHasNoMonthsInRange() {
+        TrainerWorkload trainer = new TrainerWorkload();
+        trainer.setFirstName("John");
+        when(repository.findMonthTotals(any(), anyInt(), anyInt(), anyInt(), anyInt())).thenReturn(List.of());
+        when(summaryRepository.findTrainer("john.doe")).thenReturn(Optional.of(trainer));
+
+        TrainerWorkloadResponse response = service.getSummary("john.doe", new MonthRange(YearMonth.of(2030, 1), null));
+
+        assertThat(response.getFirstName()).isEqualTo("John");
+        assertThat(response.getYearsSummary()).isEmpty();
+    }
+
+    @Test
+    void getSummaries_shouldSplitOneQueryIntoTrainers() {
+        when(repository.findMonthTotals(List.of("a", "b"), 0, 9999, 0, 9999 * 12 + 11)).thenReturn(List.of(
+                new TrainerMonthTotal("a", "Ann", "A", true, 2024, 1, 10),
+                new TrainerMonthTotal("a", "Ann", "A", true, 2024, 2, 20),
+                new TrainerMonthTotal("b", "Bob", "B", false, 2024, 1, 30)));
+
+        List<TrainerWorkloadResponse> responses = service.getSummaries(List.of("a", "b"), MonthRange.ALL);
+
+        assertThat(responses).extracting(TrainerWorkloadResponse::getUsername).containsExactly("a", "b");
+        assertThat(responses.get(0).getYearsSummary().get(2024)).containsEntry("Jan", 10).containsEntry("Feb", 20);
+        assertThat(responses.get(1).getYearsSummary().get(2024)).containsExactly(entry("Jan", 30));
+        verify(repository).findMonthTotals(any(), anyInt(), anyInt(), anyInt(), anyInt());
+    }
+
+    private double writes(String outcome) {
+        return meterRegistry.get("workload.writes").tag("outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.workload_service.service;
+
+import org.example.workload_service.Enum.ActionType;
+import org.example.workload_service.Enum.ConcurrencyMode;
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.dto.DayTotal;
+import org.example.workload_service.dto.TrainerWorkloadRequest;
+import org.example.workload_service.dto.WeekTotal;
+import org.example.workload_service.dto.YearTotal;
+import org.example.workload_service.entity.TrainerWorkload;
+import org.example.workload_service.respository.TrainerWorkloadRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "eureka.client.enabled=false")
+class WorkloadCalendarTest {
+
+    @Autowired
+    private WorkloadCalendar calendar;
+
+    @Autowired
+    private TrainerWorkloadService service;
+
+    @Autowired
+    private TrainerWorkloadBatchService batchService;
+
+    @Autowired
+    private TrainerWorkloadRepository repository;
+
+    @Autowired
+    private WorkloadProperties properties;
+
+    private ConcurrencyMode defaultMode;
+
+    @BeforeEach
+    void setUp() {
+        defaultMode = properties.getConcurrency().getMode();
+    }
+
+    @AfterEach
+    void tearDown() {
+        properties.getConcurrency().setMode(defaultMode);
+        repository.deleteAll();
+    }
+
+    private static TrainerWorkloadRequest event(String username, LocalDate date, ActionType actionType, int duration) {
+        TrainerWorkloadRequest request = new TrainerWorkloadRequest();
+        request.setUsername(username);
+        request.setFirstName("First");
+        request.setLastName("Last");
+        request.setActive(true);
+        request.setTrainingDate(date);
+        request.setActionType(actionType);
+        request.setDuration(duration);
+        return request;
+    }
+
+    @Test
+    void getDays_shouldSpanMonths_andKeepTheMonthTotalAsTheSumOfItsDays() {
+        service.processWorkload(event("days.trainer", LocalDate.of(2024, 1, 31), ActionType.ADD, 60));
+        service.processWorkload(event("days.trainer", LocalDate.of(2024, 2, 1), ActionType.ADD, 45));
+        service.processWorkload(event("days.trainer", LocalDate.of(2024, 2, 1), ActionType.ADD, 15));
+        service.processWorkload(event("days.trainer", LocalDate.of(2024, 2, 1), ActionType.DELETE, 30));
+
+        List<DayTotal> days = calendar.getDays("days.trainer", LocalDate.of(2024, 1, 30), LocalDate.of(2024, 2, 2));
+
+        assertThat(days).extracting(DayTotal::date).containsExactly(LocalDate.of(2024, 1, 30),
+                LocalDate.of(2024, 1, 31), LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 2));
+        assertThat(days).extracting(DayTotal::totalDuration).containsExactly(0, 60, 30, 0);
+        assertThat(service.getSummary("days.trainer").getYearsSummary().get(2024)).containsEntry("Feb", 30);
+    }
+
+    @Test
+    void getDays_shouldMoveTheFirstAndLastDayInPlace_inAtomicMode() {
+        properties.getConcurrency().setMode(ConcurrencyMode.ATOMIC);
+        service.processWorkload(event("atomic.trainer", LocalDate.of(2024, 1, 1), ActionType.ADD, 10));
+        service.processWorkload(event("atomic.trainer", LocalDate.of(2024, 1, 31), ActionType.ADD, 300));
+        service.processWorkload(event("atomic.trainer", LocalDate.of(2024, 1, 1), ActionType.ADD, 20));
+        service.processWorkload(event("atomic.trainer", LocalDate.of(2024, 1, 31), ActionType.DELETE, 45));
+
+        List<DayTotal> days = calendar.getDays("atomic.trainer", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31));
+
+        assertThat(days).extracting(DayTotal::totalDuration)
+                .startsWith(30, 0)
+                .endsWith(0, 255)
+                .containsOnly(0, 30, 255);
+        assertThat(service.getSummary("atomic.trainer").getYearsSummary().get(2024)).containsEntry("Jan", 285);
+    }
+
+    @Test
+    void getWeeks_shouldWidenToWholeIsoWeeks_acrossTheYearBoundary() {
+        service.processWorkload(event("weeks.trainer", LocalDate.of(2024, 12, 30), ActionType.ADD, 20));
+        service.processWorkload(event("weeks.trainer", LocalDate.of(2025, 1, 5), ActionType.ADD, 40));
+        service.processWorkload(event("weeks.trainer", LocalDate.of(2025, 1, 6), ActionType.ADD, 90));
+
+        List<WeekTotal> weeks = calendar.getWeeks("weeks.trainer", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 6));
+
+        assertThat(weeks).containsExactly(
+                new WeekTotal(2025, 1, LocalDate.of(2024, 12, 30), 60),
+                new WeekTotal(2025, 2, LocalDate.of(2025, 1, 6), 90));
+    }
+
+    @Test
+    void getYears_shouldRollUpMonths_includingMonthsWithoutDays() {
+        service.processWorkload(event("years.trainer", LocalDate.of(2023, 11, 3), ActionType.ADD, 30));
+        batchService.processBatch(List.of(
+                event("years.trainer", LocalDate.of(2024, 3, 10), ActionType.ADD, 50),
+                event("years.trainer", LocalDate.of(2024, 3, 11), ActionType.ADD, 25)));
+        // a month written before day totals were kept
+        TrainerWorkload legacy = new TrainerWorkload();
+        legacy.setUsername("years.trainer");
+        legacy.setFirstName("First");
+        legacy.setLastName("Last");
+        legacy.setActive(true);
+        legacy.setYear(2024);
+        legacy.setMonth(4);
+        legacy.setTotalDuration(100);
+        repository.save(legacy);
+        service.processWorkload(event("years.trainer", LocalDate.of(2024, 5, 1), ActionType.ADD, 5));
+
+        assertThat(calendar.getYears("years.trainer")).containsExactly(new YearTotal(2023, 30), new YearTotal(2024, 180));
+        assertThat(calendar.getDays("years.trainer", LocalDate.of(2024, 3, 10), LocalDate.of(2024, 4, 1)))
+                .extracting(DayTotal::totalDuration)
+                .startsWith(50, 25, 0)
+                .endsWith(0);
+    }
+
+    @Test
+    void getDays_shouldReturnNullForAnUnknownTrainer_andZerosForAKnownOne() {
+        service.processWorkload(event("quiet.trainer", LocalDate.of(2024, 6, 1), ActionType.ADD, 10));
+
+        assertThat(calendar.getDays("ghost.trainer", LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 7))).isNull();
+        assertThat(calendar.getWeeks("ghost.trainer", LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 7))).isNull();
+        assertThat(calendar.getYears("ghost.trainer")).isNull();
+        assertThat(calendar.getDays("quiet.trainer", LocalDate.of(2024, 8, 1), LocalDate.of(2024, 8, 3)))
+                .extracting(DayTotal::totalDuration).containsExactly(0, 0, 0);
+    }
+}
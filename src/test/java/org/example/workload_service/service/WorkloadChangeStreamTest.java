@@ -0,0 +1,128 @@
+package org.example.workload_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.dto.WorkloadChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorkloadChangeStreamTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private WorkloadChangeStream stream;
+
+    @BeforeEach
+    void setUp() {
+        WorkloadProperties properties = new WorkloadProperties();
+        properties.getStream().setBufferSize(2);
+        properties.getStream().setMaxSubscribers(2);
+        properties.getStream().setHeartbeat(Duration.ofHours(1));
+        meterRegistry = new SimpleMeterRegistry();
+        stream = new WorkloadChangeStream(properties, meterRegistry, Runnable::run);
+    }
+
+    // totals only grow in these tests, so the total doubles as the version
+    private static WorkloadUpdatedEvent event(String username, int month, int total) {
+        return new WorkloadUpdatedEvent(username, 2025, month, total, 10, total);
+    }
+
+    private static WorkloadChange change(String username, int month, int total) {
+        return new WorkloadChange(username, 2025, month, total, total);
+    }
+
+    @Test
+    void flush_shouldCoalesceChangesToTheSameMonth() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        stream.subscribe(List.of(), emitter);
+
+        stream.onWorkloadUpdated(event("john.doe", 2, 10));
+        stream.onWorkloadUpdated(event("john.doe", 3, 5));
+        stream.onWorkloadUpdated(event("john.doe", 2, 20));
+        stream.flush();
+
+        assertThat(emitter.changes).containsExactly(
+                change("john.doe", 2, 20),
+                change("john.doe", 3, 5));
+    }
+
+    @Test
+    void onWorkloadUpdated_shouldKeepTheNewerTotal_whenChangesArriveOutOfOrder() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        stream.subscribe(List.of(), emitter);
+
+        // published after the guard is released, the older change of each pair arrives second
+        stream.onWorkloadUpdated(event("john.doe", 2, 20));
+        stream.onWorkloadUpdated(event("john.doe", 2, 10));
+        stream.flush();
+        stream.onWorkloadUpdated(event("john.doe", 2, 15));
+        stream.flush();
+
+        assertThat(emitter.changes).containsExactly(change("john.doe", 2, 20));
+    }
+
+    @Test
+    void onWorkloadUpdated_shouldOnlyDeliverFollowedTrainersAndAcceptedChanges() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        stream.subscribe(List.of("jane"), emitter);
+
+        stream.onWorkloadUpdated(event("john.doe", 2, 10));
+        stream.onWorkloadUpdated(new WorkloadUpdatedEvent("jane", 2025, 2, 30, 0, 30));
+        stream.onWorkloadUpdated(event("jane", 2, 40));
+        stream.flush();
+
+        assertThat(emitter.changes).containsExactly(change("jane", 2, 40));
+    }
+
+    @Test
+    void onWorkloadUpdated_shouldCloseSubscriberWhoseBufferIsFull() {
+        RecordingEmitter slow = new RecordingEmitter();
+        RecordingEmitter fast = new RecordingEmitter();
+        stream.subscribe(List.of(), slow);
+        stream.subscribe(List.of("jane"), fast);
+
+        stream.onWorkloadUpdated(event("john.doe", 1, 10));
+        stream.onWorkloadUpdated(event("john.doe", 2, 10));
+        stream.onWorkloadUpdated(event("john.doe", 3, 10));
+        stream.onWorkloadUpdated(event("jane", 1, 10));
+        stream.flush();
+
+        assertThat(slow.failure).hasMessageContaining("overflow");
+        assertThat(fast.changes).containsExactly(change("jane", 1, 10));
+        assertThat(stream.subscriberCount()).isEqualTo(1);
+        assertThat(meterRegistry.get("workload.stream.overflows").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void subscribe_shouldRefuseBeyondTheSubscriberLimit() {
+        assertThat(stream.subscribe(Set.of(), new RecordingEmitter())).isNotNull();
+        assertThat(stream.subscribe(Set.of(), new RecordingEmitter())).isNotNull();
+        assertThat(stream.subscribe(Set.of(), new RecordingEmitter())).isNull();
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final List<WorkloadChange> changes = new ArrayList<>();
+        private Throwable failure;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            builder.build().forEach(part -> {
+                if (part.getData() instanceof WorkloadChange change)
+                    changes.add(change);
+            });
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            failure = ex;
+        }
+    }
+}
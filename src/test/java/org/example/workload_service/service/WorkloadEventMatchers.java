@@ -0,0 +1,15 @@
+package org.example.workload_service.service;
+
+import org.mockito.ArgumentMatchers;
+
+// versions come from a process-wide counter, so a published event is matched on everything else
+public final class WorkloadEventMatchers {
+
+    private WorkloadEventMatchers() {
+    }
+
+    public static Object updated(String username, int year, int month, int total, int delta) {
+        return ArgumentMatchers.<Object>argThat(event -> event instanceof WorkloadUpdatedEvent updated
+                && updated.equals(new WorkloadUpdatedEvent(username, year, month, total, delta, updated.version())));
+    }
+}
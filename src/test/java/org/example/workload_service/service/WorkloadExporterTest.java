@@ -0,0 +1,81 @@
+package org.example.workload_service.service;
+
+import org.example.workload_service.Enum.ExportFormat;
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.dto.TrainerMonthTotal;
+import org.example.workload_service.respository.TrainerWorkloadExportRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WorkloadExporterTest {
+
+    @Mock
+    private TrainerWorkloadExportRepository exportRepository;
+
+    private WorkloadExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        WorkloadProperties properties = new WorkloadProperties();
+        properties.getExport().setFetchSize(50);
+        exporter = new WorkloadExporter(exportRepository, properties);
+    }
+
+    private void rows(TrainerMonthTotal... rows) {
+        when(exportRepository.forEachMonthTotal(eq(50), any())).thenAnswer(inv -> {
+            Consumer<TrainerMonthTotal> consumer = inv.getArgument(1);
+            List.of(rows).forEach(consumer);
+            return (long) rows.length;
+        });
+    }
+
+    @Test
+    void export_shouldWriteOneJsonObjectPerLine() throws Exception {
+        rows(new TrainerMonthTotal("john.doe", "John", "Doe", true, 2024, 6, 120),
+                new TrainerMonthTotal("jane", "Jane", null, null, 2024, 7, 90));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = exporter.export(ExportFormat.NDJSON, out);
+
+        assertThat(exported).isEqualTo(2);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "{\"username\":\"john.doe\",\"firstName\":\"John\",\"lastName\":\"Doe\",\"active\":true," +
+                        "\"year\":2024,\"month\":6,\"totalDuration\":120}\n" +
+                "{\"username\":\"jane\",\"firstName\":\"Jane\",\"lastName\":null,\"active\":null," +
+                        "\"year\":2024,\"month\":7,\"totalDuration\":90}\n");
+    }
+
+    @Test
+    void export_shouldWriteCsvWithHeaderAndQuoting() throws Exception {
+        rows(new TrainerMonthTotal("john.doe", "John, Jr.", "O\"Neil", false, 2024, 6, 120));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exporter.export(ExportFormat.CSV, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(WorkloadExporter.CSV_HEADER +
+                "john.doe,\"John, Jr.\",\"O\"\"Neil\",false,2024,6,120\n");
+    }
+
+    @Test
+    void export_shouldWriteNothing_whenTableIsEmpty() throws Exception {
+        rows();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThat(exporter.export(ExportFormat.NDJSON, out)).isZero();
+        assertThat(out.size()).isZero();
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.workload_service.service;
+
+import org.example.workload_service.config.WorkloadProperties;
+import org.example.workload_service.dto.LeaderboardEntry;
+import org.example.workload_service.entity.TrainerWorkload;
+import org.example.workload_service.respository.TrainerWorkloadBatchRepository;
+import org.example.workload_service.sharding.WorkloadShards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+class WorkloadLeaderboardTest {
+
+    @Mock
+    private TrainerWorkloadBatchRepository batchRepository;
+
+    private WorkloadLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(inv -> {
+            Consumer<TrainerWorkload> consumer = inv.getArgument(0);
+            consumer.accept(row("ann", 2025, 2, 120));
+            consumer.accept(row("bob", 2025, 2, 90));
+            consumer.accept(row("cid", 2025, 2, 60));
+            consumer.accept(row("ann", 2025, 3, 10));
+            return null;
+        }).when(batchRepository).forEachRow(any());
+        leaderboard = new WorkloadLeaderboard(batchRepository, new WorkloadShards(new WorkloadProperties()));
+        leaderboard.rebuild();
+    }
+
+    private static TrainerWorkload row(String username, int year, int month, int total) {
+        TrainerWorkload row = new TrainerWorkload();
+        row.setUsername(username);
+        row.setYear(year);
+        row.setMonth(month);
+        row.setTotalDuration(total);
+        return row;
+    }
+
+    @Test
+    void top_shouldRankRebuiltTotalsPerMonth() {
+        assertThat(leaderboard.top(2025, 2, 2)).containsExactly(
+                new LeaderboardEntry(1, "ann", 120),
+                new LeaderboardEntry(2, "bob", 90));
+        assertThat(leaderboard.top(2025, 3, 10)).containsExactly(new LeaderboardEntry(1, "ann", 10));
+        assertThat(leaderboard.top(2024, 1, 10)).isEmpty();
+    }
+
+    @Test
+    void onWorkloadUpdated_shouldMoveTrainersAndDropEmptyTotals() {
+        leaderboard.onWorkloadUpdated(new WorkloadUpdatedEvent("cid", 2025, 2, 160, 100, 1));
+        leaderboard.onWorkloadUpdated(new WorkloadUpdatedEvent("bob", 2025, 2, 0, -90, 1));
+        // a dropped DELETE carries no delta and leaves the board alone
+        leaderboard.onWorkloadUpdated(new WorkloadUpdatedEvent("ann", 2025, 2, 120, 0, 1));
+
+        assertThat(leaderboard.top(2025, 2, 10)).containsExactly(
+                new LeaderboardEntry(1, "cid", 160),
+                new LeaderboardEntry(2, "ann", 120));
+    }
+
+    @Test
+    void onWorkloadUpdated_shouldConverge_whenDeltasArriveOutOfOrder() {
+        List<WorkloadUpdatedEvent> events = List.of(
+                new WorkloadUpdatedEvent("dan", 2025, 4, 30, 30, 1),
+                new WorkloadUpdatedEvent("dan", 2025, 4, 20, -10, 2),
+                new WorkloadUpdatedEvent("dan", 2025, 4, 45, 25, 3));
+        for (int i = events.size() - 1; i >= 0; i--)
+            leaderboard.onWorkloadUpdated(events.get(i));
+
+        assertThat(leaderboard.top(2025, 4, 1)).containsExactly(new LeaderboardEntry(1, "dan", 45));
+    }
+
+    @Test
+    void refresh_shouldPickUpWritesOtherReplicasMade() {
+        // another replica moved bob ahead of ann and emptied cid; no event of it reached this one
+        doAnswer(inv -> {
+            Consumer<TrainerWorkload> consumer = inv.getArgument(0);
+            consumer.accept(row("ann", 2025, 2, 120));
+            consumer.accept(row("bob", 2025, 2, 150));
+            return null;
+        }).when(batchRepository).forEachRow(any());
+
+        leaderboard.refresh();
+
+        assertThat(leaderboard.top(2025, 2, 10)).containsExactly(
+                new LeaderboardEntry(1, "bob", 150),
+                new LeaderboardEntry(2, "ann", 120));
+        assertThat(leaderboard.top(2025, 3, 10)).isEmpty();
+    }
+}
@@ -0,0 +1,174 @@
+package org.example.workload_service.sharding;
+
+import org.example.workload_service.Enum.ActionType;
+import org.example.workload_service.Enum.BatchItemStatus;
+import org.example.workload_service.dto.BatchItemResult;
+import org.example.workload_service.dto.TrainerMonthTotal;
+import org.example.workload_service.dto.TrainerRankingEntry;
+import org.example.workload_service.dto.TrainerWorkloadRequest;
+import org.example.workload_service.dto.TrainerWorkloadResponse;
+import org.example.workload_service.entity.TrainerWorkload;
+import org.example.workload_service.respository.TrainerWorkloadBatchRepository;
+import org.example.workload_service.respository.TrainerWorkloadExportRepository;
+import org.example.workload_service.service.MonthRange;
+import org.example.workload_service.service.TrainerWorkloadBatchService;
+import org.example.workload_service.service.TrainerWorkloadService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// three shards, plus a fourth still open from the layout before a resize
+@SpringBootTest(properties = {
+        "eureka.client.enabled=false",
+        "workload.sharding.shards=3",
+        "workload.sharding.previous-shards=4",
+        "workload.sharding.url-template=jdbc:h2:mem:sharded-test-{shard};DB_CLOSE_DELAY=-1"
+})
+class ShardedStorageTest {
+
+    @Autowired
+    private WorkloadShards shards;
+
+    @Autowired
+    private TrainerWorkloadService service;
+
+    @Autowired
+    private TrainerWorkloadBatchService batchService;
+
+    @Autowired
+    private TrainerWorkloadExportRepository exportRepository;
+
+    @Autowired
+    private TrainerWorkloadBatchRepository batchRepository;
+
+    @Autowired
+    private ShardRebalancer rebalancer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<String> trainers = IntStream.range(0, 12).mapToObj(i -> "trainer." + i).toList();
+
+    @BeforeEach
+    void setUp() {
+        for (int shard = 0; shard < shards.targets(); shard++)
+            shards.on(shard, () -> {
+                jdbcTemplate.update("DELETE FROM trainer_workload");
+                jdbcTemplate.update("DELETE FROM processed_event");
+            });
+    }
+
+    private static TrainerWorkloadRequest event(String username, int month, int duration) {
+        TrainerWorkloadRequest request = new TrainerWorkloadRequest();
+        request.setUsername(username);
+        request.setFirstName("First");
+        request.setLastName("Last");
+        request.setActive(true);
+        request.setTrainingDate(LocalDate.of(2024, month, 1));
+        request.setActionType(ActionType.ADD);
+        request.setDuration(duration);
+        return request;
+    }
+
+    private int rowsOn(int shard, String username) {
+        return shards.on(shard, () -> jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM trainer_workload WHERE username = ?", Integer.class, username));
+    }
+
+    @Test
+    void processWorkload_shouldWriteEachTrainerToExactlyOneShard() {
+        trainers.forEach(trainer -> service.processWorkload(event(trainer, 3, 60)));
+
+        for (String trainer : trainers)
+            for (int shard = 0; shard < shards.targets(); shard++)
+                assertThat(rowsOn(shard, trainer)).as("%s on shard %d", trainer, shard)
+                        .isEqualTo(shard == shards.shardOf(trainer) ? 1 : 0);
+        assertThat(trainers.stream().map(shards::shardOf).distinct()).hasSize(3);
+        assertThat(service.getSummary(trainers.getFirst()).getYearsSummary().get(2024)).containsEntry("Mar", 60);
+    }
+
+    @Test
+    void processBatch_shouldSplitTheBatchByShard_andKeepTheResultPositions() {
+        List<TrainerWorkloadRequest> requests = new ArrayList<>();
+        trainers.forEach(trainer -> requests.add(event(trainer, 4, 30)));
+        requests.add(5, event(null, 4, 30));
+
+        List<BatchItemResult> results = batchService.processBatch(requests);
+
+        assertThat(results).extracting(BatchItemResult::getIndex).containsExactlyElementsOf(
+                IntStream.range(0, requests.size()).boxed().toList());
+        assertThat(results.get(5).getStatus()).isEqualTo(BatchItemStatus.REJECTED);
+        assertThat(results).filteredOn(result -> result.getStatus() == BatchItemStatus.APPLIED).hasSize(12);
+        for (String trainer : trainers)
+            assertThat(rowsOn(shards.shardOf(trainer), trainer)).isEqualTo(1);
+    }
+
+    @Test
+    void crossTrainerReads_shouldFanOut_andMergeInTheSingleTableOrder() {
+        for (int i = 0; i < trainers.size(); i++) {
+            service.processWorkload(event(trainers.get(i), 5, 10 + i));
+            service.processWorkload(event(trainers.get(i), 6, 5));
+        }
+
+        Page<TrainerRankingEntry> page = service.getRanking(2024, 5, PageRequest.of(1, 5));
+        assertThat(page.getTotalElements()).isEqualTo(12);
+        assertThat(page.getContent()).extracting(TrainerRankingEntry::totalDuration).containsExactly(16, 15, 14, 13, 12);
+
+        List<TrainerWorkloadResponse> summaries = service.getSummaries(trainers, MonthRange.ALL);
+        assertThat(summaries).extracting(TrainerWorkloadResponse::getUsername)
+                .containsExactlyElementsOf(trainers.stream().sorted().toList());
+
+        List<TrainerMonthTotal> exported = new ArrayList<>();
+        long rows = exportRepository.forEachMonthTotal(2, exported::add);
+        assertThat(rows).isEqualTo(24);
+        assertThat(exported).isSortedAccordingTo(Comparator.comparing(TrainerMonthTotal::username)
+                .thenComparingInt(TrainerMonthTotal::month));
+    }
+
+    @Test
+    void rebalance_shouldMoveStrayTrainersHome_withTheirIdempotencyKeys() {
+        String stray = trainers.getFirst();
+        int home = shards.shardOf(stray);
+        // rows and key as written under the four-shard layout
+        shards.on(3, () -> {
+            batchRepository.insert(List.of(row(stray, 120), row(trainers.get(1), 45)));
+            jdbcTemplate.update("INSERT INTO processed_event (idempotency_key, processed_at) " +
+                    "VALUES ('replayed-key', CURRENT_TIMESTAMP)");
+        });
+
+        assertThat(rebalancer.rebalance()).isEqualTo(2);
+
+        assertThat(rowsOn(3, stray)).isZero();
+        assertThat(rowsOn(home, stray)).isEqualTo(1);
+        assertThat(rebalancer.rebalance()).isZero();
+
+        assertThat(service.getSummary(stray).getYearsSummary().get(2024)).containsEntry("Jul", 120);
+        assertThat(shards.on(home, () -> jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM processed_event WHERE idempotency_key = 'replayed-key'", Integer.class)))
+                .isEqualTo(1);
+    }
+
+    private static TrainerWorkload row(String username, int total) {
+        TrainerWorkload row = new TrainerWorkload();
+        row.setUsername(username);
+        row.setFirstName("First");
+        row.setLastName("Last");
+        row.setActive(true);
+        row.setYear(2024);
+        row.setMonth(7);
+        row.setTotalDuration(total);
+        return row;
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.workload_service.sharding;
+
+import org.example.workload_service.config.WorkloadProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WorkloadShardsTest {
+
+    private static WorkloadShards shards(int count) {
+        WorkloadProperties properties = new WorkloadProperties();
+        properties.getSharding().setShards(count);
+        return new WorkloadShards(properties);
+    }
+
+    private static String spanning(WorkloadShards shards, String username) {
+        for (int i = 0; ; i++)
+            if (shards.shardOf("trainer." + i) != shards.shardOf(username))
+                return "trainer." + i;
+    }
+
+    @Test
+    void shardOf_shouldSpreadTrainersEvenly_andOnlyMoveThemOntoTheNewShard_whenGrowing() {
+        int trainers = 40_000;
+        int[] perShard = new int[4];
+        int moved = 0;
+        for (int i = 0; i < trainers; i++) {
+            String username = "trainer." + i;
+            int before = WorkloadShards.shardOf(username, 3);
+            int after = WorkloadShards.shardOf(username, 4);
+            perShard[after]++;
+            if (before != after) {
+                moved++;
+                assertThat(after).isEqualTo(3);
+            }
+        }
+
+        for (int count : perShard)
+            assertThat(count).isBetween(trainers / 4 - trainers / 40, trainers / 4 + trainers / 40);
+        assertThat(moved).isEqualTo(perShard[3]);
+    }
+
+    @Test
+    void shardOf_shouldPutEveryTrainerOnShardZero_withASingleShard() {
+        assertThat(WorkloadShards.shardOf("john.doe", 1)).isZero();
+        assertThat(WorkloadShards.shardOf(null, 8)).isZero();
+        assertThat(shards(1).isRouted()).isFalse();
+    }
+
+    @Test
+    void onShardOfAll_shouldRefuseUsernamesOnDifferentShards_unlessTheCallerBoundOne() {
+        WorkloadShards shards = shards(4);
+        List<String> usernames = List.of("john.doe", spanning(shards, "john.doe"));
+
+        assertThatThrownBy(() -> shards.onShardOfAll(usernames, () -> 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(shards.on(2, () -> shards.onShardOfAll(usernames, WorkloadShards::current))).isEqualTo(2);
+        assertThat(WorkloadShards.current()).isNull();
+    }
+
+    @Test
+    void collect_shouldBindEachShard_andReturnTheResultsInShardOrder() {
+        WorkloadShards shards = shards(4);
+
+        assertThat(shards.collect(shard -> WorkloadShards.current() * 10 + shard)).containsExactly(0, 11, 22, 33);
+        assertThat(shards.partition(List.of("john.doe", "jane.roe"), username -> username))
+                .allSatisfy((shard, usernames) -> assertThat(usernames)
+                        .allMatch(username -> shards.shardOf(username) == shard));
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.workload_service.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void mightContain_shouldNeverMissInsertedKeys() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        String[] keys = new String[10_000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = UUID.randomUUID().toString();
+            filter.put(keys[i]);
+        }
+
+        for (String key : keys)
+            assertThat(filter.mightContain(key)).isTrue();
+    }
+
+    @Test
+    void mightContain_shouldStayNearConfiguredFalsePositiveRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++)
+            filter.put("inserted-" + i);
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++)
+            if (filter.mightContain("absent-" + i))
+                falsePositives++;
+
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.workload_service.tracing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveTraceSamplerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private SimpleMeterRegistry meterRegistry;
+    private AdaptiveTraceSampler sampler;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sampler = new AdaptiveTraceSampler(
+                new TraceSamplingSettings(0, Duration.ofMillis(500), Duration.ofSeconds(30),
+                        Map.of("/api/workloads", 1, "/api/workloads/export", 0)),
+                meterRegistry, now::get);
+    }
+
+    @Test
+    void decide_shouldSpendTheBudgetOfTheLongestMatchingPrefix() {
+        assertThat(sampler.decide("/api/workloads/john.doe")).isTrue();
+        assertThat(sampler.decide("/api/workloads/john.doe")).isFalse();
+        assertThat(sampler.decide("/api/workloads/export")).isFalse();
+        assertThat(sampler.decide("/actuator/health")).isFalse();
+        assertThat(meterRegistry.get("workload.tracing.decisions").tag("decision", "dropped").counter().count())
+                .isEqualTo(3);
+    }
+
+    @Test
+    void completed_shouldSampleTheEndpointFully_forTheBoostWindowAfterAnError() {
+        sampler.completed("/api/workloads/export", 500, TimeUnit.MILLISECONDS.toNanos(5), false);
+
+        assertThat(sampler.decide("/api/workloads/export")).isTrue();
+        assertThat(sampler.decide("/api/workloads/export")).isTrue();
+        assertThat(sampler.decide("/actuator/health")).isFalse();
+
+        now.addAndGet(Duration.ofSeconds(31).toNanos());
+        assertThat(sampler.decide("/api/workloads/export")).isFalse();
+        assertThat(sampler.boosted()).isEmpty();
+    }
+
+    @Test
+    void completed_shouldBoostOnSlowRequests_andIgnoreFastSuccessfulOnes() {
+        sampler.completed("/other", 200, TimeUnit.MILLISECONDS.toNanos(10), false);
+        assertThat(sampler.boosted()).isEmpty();
+
+        sampler.completed("/other", 200, TimeUnit.MILLISECONDS.toNanos(800), false);
+
+        assertThat(sampler.boosted()).containsOnlyKeys(AdaptiveTraceSampler.BASELINE);
+        assertThat(sampler.decide("/other")).isTrue();
+        assertThat(meterRegistry.get("workload.tracing.boosts").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void isSampled_shouldFollowTheDecisionTakenForTheCurrentRequest() {
+        sampler.enter("/api/workloads");
+        try {
+            assertThat(sampler.isSampled(42L)).isTrue();
+        } finally {
+            sampler.exit();
+        }
+        // outside a request the baseline of zero applies
+        assertThat(sampler.isSampled(42L)).isFalse();
+    }
+
+    @Test
+    void endpoint_shouldUpdateSettingsAtRuntime() {
+        TraceSamplingEndpoint endpoint = new TraceSamplingEndpoint(sampler);
+
+        endpoint.update(5, null, Duration.ofSeconds(5), "/api/workloads/export", 2);
+        endpoint.update(null, null, null, "/api/workloads", null);
+
+        TraceSamplingSettings settings = sampler.settings();
+        assertThat(settings.baselinePerSecond()).isEqualTo(5);
+        assertThat(settings.slowThreshold()).isEqualTo(Duration.ofMillis(500));
+        assertThat(settings.boostWindow()).isEqualTo(Duration.ofSeconds(5));
+        assertThat(settings.endpointBudgets()).containsExactly(Map.entry("/api/workloads/export", 2));
+        assertThatThrownBy(() -> endpoint.update(-1, null, null, null, null))
+                .hasMessageContaining("baselinePerSecond");
+    }
+}